@@ -31,7 +31,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
     AppenderAttachable<ILoggingEvent>, Serializable {
@@ -65,6 +64,8 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
 
   /**
    * The children of this logger. A logger may have zero or more children.
+   * Guarded by the logger tree lock of the context; children are looked up
+   * by name through the context's logger cache instead of this list.
    */
   transient private List<Logger> childrenList;
 
@@ -129,71 +130,58 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   }
 
   Logger getChildByName(final String childName) {
-    if (childrenList == null) {
-      return null;
-    } else {
-      int len = this.childrenList.size();
-      for (int i = 0; i < len; i++) {
-        final Logger childLogger_i = (Logger) childrenList.get(i);
-        final String childName_i = childLogger_i.getName();
-
-        if (childName.equals(childName_i)) {
-          return childLogger_i;
-        }
-      }
-      // no child found
-      return null;
+    Logger child = loggerContext.exists(childName);
+    if (child != null && child.parent == this) {
+      return child;
     }
+    return null;
   }
 
-  public synchronized void setLevel(Level newLevel) {
-    if (level == newLevel) {
-      // nothing to do;
-      return;
-    }
-    if (newLevel == null && isRootLogger()) {
-      throw new IllegalArgumentException(
-          "The level of the root logger cannot be set to null");
-    }
-
-    level = newLevel;
-    if (newLevel == null) {
-      effectiveLevelInt = parent.effectiveLevelInt;
-      newLevel = parent.getEffectiveLevel();
-    } else {
-      effectiveLevelInt = newLevel.levelInt;
-    }
+  public void setLevel(Level newLevel) {
+    synchronized (loggerContext.loggerTreeLock) {
+      if (level == newLevel) {
+        // nothing to do;
+        return;
+      }
+      if (newLevel == null && isRootLogger()) {
+        throw new IllegalArgumentException(
+            "The level of the root logger cannot be set to null");
+      }
 
-    if (childrenList != null) {
-      int len = childrenList.size();
-      for (int i = 0; i < len; i++) {
-        Logger child = (Logger) childrenList.get(i);
-        // tell child to handle parent levelInt change
-        child.handleParentLevelChange(effectiveLevelInt);
+      level = newLevel;
+      if (newLevel == null) {
+        effectiveLevelInt = parent.effectiveLevelInt;
+        newLevel = parent.getEffectiveLevel();
+      } else {
+        effectiveLevelInt = newLevel.levelInt;
       }
+      propagateEffectiveLevel();
     }
     // inform listeners
     loggerContext.fireOnLevelChange(this, newLevel);
   }
 
   /**
-   * This method is invoked by parent logger to let this logger know that the
-   * prent's levelInt changed.
+   * Hands this logger's effective level down to the descendants which
+   * inherit it, in a single pass over the subtree instead of one recursive
+   * call per logger. Descendants with a level of their own, and their
+   * subtrees, are skipped.
    *
-   * @param newParentLevelInt
+   * <p>Must be called with the logger tree lock held.
    */
-  private synchronized void handleParentLevelChange(int newParentLevelInt) {
-    // changes in the parent levelInt affect children only if their levelInt is
-    // null
-    if (level == null) {
-      effectiveLevelInt = newParentLevelInt;
-
-      // propagate the parent levelInt change to this logger's children
-      if (childrenList != null) {
-        int len = childrenList.size();
-        for (int i = 0; i < len; i++) {
-          Logger child = (Logger) childrenList.get(i);
-          child.handleParentLevelChange(newParentLevelInt);
+  private void propagateEffectiveLevel() {
+    if (childrenList == null) {
+      return;
+    }
+    List<Logger> pending = new ArrayList<Logger>(childrenList);
+    while (!pending.isEmpty()) {
+      Logger child = pending.remove(pending.size() - 1);
+      // changes in the parent levelInt affect children only if their levelInt
+      // is null
+      if (child.level == null) {
+        child.effectiveLevelInt = effectiveLevelInt;
+        if (child.childrenList != null) {
+          pending.addAll(child.childrenList);
         }
       }
     }
@@ -226,6 +214,23 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
     aai.addAppender(newAppender);
   }
 
+  /**
+   * Replaces the appenders of this logger in one step, so that events logged
+   * meanwhile reach either the previous appenders or the new ones.
+   *
+   * @param newAppenders the appenders to attach
+   * @return the previous appenders, which are not stopped
+   */
+  synchronized List<Appender<ILoggingEvent>> replaceAppenders(List<Appender<ILoggingEvent>> newAppenders) {
+    if (aai == null) {
+      if (newAppenders.isEmpty()) {
+        return Collections.emptyList();
+      }
+      aai = new AppenderAttachableImpl<ILoggingEvent>();
+    }
+    return aai.replaceAllAppenders(newAppenders);
+  }
+
   public boolean isAttached(Appender<ILoggingEvent> appender) {
     if (aai == null) {
       return false;
@@ -294,8 +299,8 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
    * lastPart is "z", then the created child logger will be named "x.y.z".
    *
    * <p>
-   * IMPORTANT: Calls to this method must be within a synchronized block on this
-   * logger.
+   * IMPORTANT: Calls to this method must be within a synchronized block on the
+   * logger tree lock of the context.
    *
    * @param lastPart
    *          the suffix (i.e. last part) of the child logger name. This
@@ -335,14 +340,22 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   }
 
   void recursiveReset() {
-    detachAndStopAllAppenders();
-    localLevelReset();
-    additive = true;
-    if (childrenList == null) {
-      return;
+    List<Logger> loggers = new ArrayList<Logger>();
+    synchronized (loggerContext.loggerTreeLock) {
+      loggers.add(this);
+      for (int i = 0; i < loggers.size(); i++) {
+        Logger logger = loggers.get(i);
+        logger.localLevelReset();
+        logger.additive = true;
+        if (logger.childrenList != null) {
+          loggers.addAll(logger.childrenList);
+        }
+      }
     }
-    for (Logger childLogger : new CopyOnWriteArrayList<Logger>(childrenList)) {
-      childLogger.recursiveReset();
+    // appenders are stopped outside the lock, they may log or wait for
+    // threads which do
+    for (Logger logger : loggers) {
+      logger.detachAndStopAllAppenders();
     }
   }
 
@@ -352,6 +365,10 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
    */
   private static final int DEFAULT_CHILD_ARRAY_SIZE = 5;
 
+  /**
+   * Calls to this method must be within a synchronized block on the logger
+   * tree lock of the context.
+   */
   Logger createChildByName(final String childName) {
     int i_index = LoggerNameUtil.getSeparatorIndexOf(childName, this.name.length() + 1);
     if (i_index != -1) {
@@ -15,17 +15,21 @@ package ch.qos.logback.classic;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import ch.qos.logback.classic.util.LoggerNameUtil;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Marker;
 
 import ch.qos.logback.classic.android.AndroidManifestPropertiesUtil;
+import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggerComparator;
 import ch.qos.logback.classic.spi.LoggerContextListener;
 import ch.qos.logback.classic.spi.LoggerContextVO;
 import ch.qos.logback.classic.spi.TurboFilterList;
 import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.joran.spi.JoranException;
@@ -54,13 +58,31 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
 
   private Map<String, Logger> loggerCache;
 
+  /**
+   * Guards the structure of the logger tree and the propagation of levels
+   * through it. Loggers are looked up without it, through loggerCache.
+   */
+  final Object loggerTreeLock = new Object();
+
   private LoggerContextVO loggerContextRemoteView;
   private final TurboFilterList turboFilterList = new TurboFilterList();
   private boolean packagingDataEnabled = true;
-  private boolean androidPropsInitialized = false;
+  // the manifest properties are read at most once per configuration, a
+  // reset clears them along with the other properties
+  private volatile boolean androidPropsInitialized = false;
+  private final Object androidPropsLock = new Object();
 
   private int maxCallerDataDepth = ClassicConstants.DEFAULT_MAX_CALLEDER_DATA_DEPTH;
 
+  /**
+   * How long appenders replaced by {@link #install(StagedLoggerContext)} keep
+   * running, so that events already on their way to them are not dropped.
+   */
+  static final long RETIRED_APPENDER_GRACE_PERIOD = 1000;
+
+  // appenders replaced by install() and not stopped yet
+  private final List<Appender<ILoggingEvent>> retiredAppenders = new ArrayList<Appender<ILoggingEvent>>();
+
   int resetCount = 0;
   private List<String> frameworkPackages;
 
@@ -101,19 +123,27 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   public String getProperty(String key) {
     // lazily add the manifest attributes to the property map if
     // a key containing the right prefix is requested
-    if (isSpecialKey(key)) {
+    if (!androidPropsInitialized && isSpecialKey(key)) {
+      initAndroidProperties();
+    }
+    return super.getProperty(key);
+  }
+
+  private void initAndroidProperties() {
+    synchronized (androidPropsLock) {
+      if (androidPropsInitialized) {
+        return;
+      }
       try {
-        if (!androidPropsInitialized) {
-          androidPropsInitialized = true;
-          AndroidManifestPropertiesUtil.setAndroidProperties(this);
-        }
+        AndroidManifestPropertiesUtil.setAndroidProperties(this);
       } catch (JoranException e) {
+        // not retried before the next reset, so that every lookup of
+        // the special keys does not read the manifest again
         StatusManager sm = getStatusManager();
         sm.add(new WarnStatus("Can't set manifest properties", e));
-        androidPropsInitialized = false;
       }
+      androidPropsInitialized = true;
     }
-    return super.getProperty(key);
   }
 
   @Override
@@ -144,40 +174,35 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
       return root;
     }
 
-    int i = 0;
-    Logger logger = root;
-
     // check if the desired logger exists, if it does, return it
     // without further ado.
-    Logger childLogger = (Logger) loggerCache.get(name);
+    Logger childLogger = loggerCache.get(name);
     // if we have the child, then let us return it without wasting time
     if (childLogger != null) {
       return childLogger;
     }
 
-    // if the desired logger does not exist, them create all the loggers
+    // if the desired logger does not exist, then create all the loggers
     // in between as well (if they don't already exist)
-    String childName;
-    while (true) {
-      int h = LoggerNameUtil.getSeparatorIndexOf(name, i);
-      if (h == -1) {
-        childName = name;
-      } else {
-        childName = name.substring(0, h);
-      }
-      // move i left of the last point
-      i = h + 1;
-      synchronized (logger) {
-        childLogger = logger.getChildByName(childName);
+    synchronized (loggerTreeLock) {
+      int i = 0;
+      Logger logger = root;
+      while (true) {
+        int h = LoggerNameUtil.getSeparatorIndexOf(name, i);
+        String childName = h == -1 ? name : name.substring(0, h);
+        // move i left of the last point
+        i = h + 1;
+        childLogger = loggerCache.get(childName);
         if (childLogger == null) {
           childLogger = logger.createChildByName(childName);
+          // publishes the fully initialized logger to lock-free readers
           loggerCache.put(childName, childLogger);
           incSize();
         }
-      }
-      logger = childLogger;
-      if (h == -1) {
-        return childLogger;
+        logger = childLogger;
+        if (h == -1) {
+          return childLogger;
+        }
       }
     }
   }
@@ -239,6 +264,8 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   public void reset() {
     resetCount++;
     super.reset();
+    stopRetiredAppenders(getCopyOfRetiredAppenders());
+    androidPropsInitialized = false;
     initEvaluatorMap();
     root.recursiveReset();
     resetTurboFilterList();
@@ -247,6 +274,95 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     resetStatusListeners();
   }
 
+  /**
+   * Installs the configuration built in a staged context. Unlike a reset
+   * followed by a new configuration, loggers are never left without
+   * appenders: the appenders of each logger are replaced in one step, and
+   * the previous appenders are stopped {@link #RETIRED_APPENDER_GRACE_PERIOD}
+   * milliseconds later, once the events that logging threads were passing
+   * to them have been appended.
+   */
+  void install(StagedLoggerContext staged) {
+    setName(staged.getName());
+    takeOverState(staged);
+    androidPropsInitialized = false;
+    updateLoggerContextVO();
+
+    fireOnReset();
+    resetListenersExceptResetResistant();
+    for (LoggerContextListener listener : staged.getCopyOfListenerList()) {
+      addListener(listener);
+    }
+
+    for (Logger stagedLogger : staged.getLoggerList()) {
+      getLogger(stagedLogger.getName());
+    }
+    final Set<Appender<ILoggingEvent>> retired = new HashSet<Appender<ILoggingEvent>>();
+    for (Logger logger : getLoggerList()) {
+      Logger stagedLogger = staged.exists(logger.getName());
+      List<Appender<ILoggingEvent>> appenders = new ArrayList<Appender<ILoggingEvent>>();
+      if (stagedLogger != null) {
+        logger.setLevel(stagedLogger.getLevel());
+        logger.setAdditive(stagedLogger.isAdditive());
+        for (Iterator<Appender<ILoggingEvent>> it = stagedLogger.iteratorForAppenders(); it.hasNext(); ) {
+          appenders.add(it.next());
+        }
+      } else {
+        logger.setLevel(null);
+        logger.setAdditive(true);
+      }
+      retired.addAll(logger.replaceAppenders(appenders));
+    }
+
+    // new filters are added before the previous ones are removed, so that
+    // no event escapes both
+    List<TurboFilter> previousFilters = new ArrayList<TurboFilter>(turboFilterList);
+    turboFilterList.addAll(staged.getTurboFilterList());
+    turboFilterList.removeAll(previousFilters);
+    for (TurboFilter tf : previousFilters) {
+      tf.stop();
+    }
+    retire(retired);
+  }
+
+  private void retire(final Collection<Appender<ILoggingEvent>> appenders) {
+    synchronized (retiredAppenders) {
+      retiredAppenders.addAll(appenders);
+    }
+    // logging threads may still be iterating over the previous appender lists
+    Runnable stopTask = new Runnable() {
+      public void run() {
+        stopRetiredAppenders(appenders);
+      }
+    };
+    try {
+      getScheduledExecutorService().schedule(stopTask, RETIRED_APPENDER_GRACE_PERIOD, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      stopTask.run();
+    }
+  }
+
+  private List<Appender<ILoggingEvent>> getCopyOfRetiredAppenders() {
+    synchronized (retiredAppenders) {
+      return new ArrayList<Appender<ILoggingEvent>>(retiredAppenders);
+    }
+  }
+
+  // stops those of the given appenders that were not stopped already
+  private void stopRetiredAppenders(Collection<Appender<ILoggingEvent>> appenders) {
+    List<Appender<ILoggingEvent>> toStop = new ArrayList<Appender<ILoggingEvent>>();
+    synchronized (retiredAppenders) {
+      for (Appender<ILoggingEvent> appender : appenders) {
+        if (retiredAppenders.remove(appender)) {
+          toStop.add(appender);
+        }
+      }
+    }
+    for (Appender<ILoggingEvent> appender : toStop) {
+      appender.stop();
+    }
+  }
+
   private void resetStatusListeners() {
     StatusManager sm = getStatusManager();
     for (StatusListener sl : sm.getCopyOfStatusListenerList()) {
@@ -273,10 +389,21 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     turboFilterList.clear();
   }
 
+  /**
+   * Whether a request is disabled by level and no turbo filter could enable
+   * it, in which case the filter chain need not be consulted: any reply
+   * other than ACCEPT leaves the request disabled.
+   */
+  private boolean cannotBeEnabled(Marker marker, Logger logger, Level level) {
+    return marker == null
+        && level.levelInt < turboFilterList.getLowestAcceptedLevelInt()
+        && level.levelInt < logger.getEffectiveLevelInt();
+  }
+
   final FilterReply getTurboFilterChainDecision_0_3OrMore(final Marker marker,
                                                           final Logger logger, final Level level, final String format,
                                                           final Object[] params, final Throwable t) {
-    if (turboFilterList.size() == 0) {
+    if (turboFilterList.size() == 0 || cannotBeEnabled(marker, logger, level)) {
       return FilterReply.NEUTRAL;
     }
     return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
@@ -286,7 +413,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   final FilterReply getTurboFilterChainDecision_1(final Marker marker,
                                                   final Logger logger, final Level level, final String format,
                                                   final Object param, final Throwable t) {
-    if (turboFilterList.size() == 0) {
+    if (turboFilterList.size() == 0 || cannotBeEnabled(marker, logger, level)) {
       return FilterReply.NEUTRAL;
     }
     return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
@@ -296,7 +423,7 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   final FilterReply getTurboFilterChainDecision_2(final Marker marker,
                                                   final Logger logger, final Level level, final String format,
                                                   final Object param1, final Object param2, final Throwable t) {
-    if (turboFilterList.size() == 0) {
+    if (turboFilterList.size() == 0 || cannotBeEnabled(marker, logger, level)) {
       return FilterReply.NEUTRAL;
     }
     return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
@@ -0,0 +1,100 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.status.StatusListener;
+import ch.qos.logback.core.status.StatusManager;
+
+/**
+ * A LoggerContext in which a new configuration is built while its target
+ * context keeps logging with the current configuration. Once the new
+ * configuration is complete, {@link #install()} hands it over to the target
+ * context; if it turns out to be faulty, {@link #discard()} drops it and the
+ * target context is left untouched.
+ *
+ * <p>The staged context has a status manager of its own, so that errors
+ * reported meanwhile by the components of the target context are not taken
+ * for errors of the new configuration. Its statuses are passed on to the
+ * target when it is installed or discarded. It shares the executors of its
+ * target, so that components configured in it run on the target context.
+ */
+public class StagedLoggerContext extends LoggerContext {
+
+  private final LoggerContext target;
+
+  public StagedLoggerContext(LoggerContext target) {
+    this.target = target;
+    setName(target.getName());
+    setPackagingDataEnabled(target.isPackagingDataEnabled());
+    setMaxCallerDataDepth(target.getMaxCallerDataDepth());
+  }
+
+  /**
+   * @return the context this context's configuration is meant for
+   */
+  public LoggerContext getTarget() {
+    return target;
+  }
+
+  @Override
+  public ExecutorService getExecutorService() {
+    return target.getExecutorService();
+  }
+
+  @Override
+  public ScheduledExecutorService getScheduledExecutorService() {
+    return target.getScheduledExecutorService();
+  }
+
+  /**
+   * Replaces the configuration of the target context with the configuration
+   * of this context. This context must not be used afterwards.
+   */
+  public void install() {
+    StatusManager sm = getStatusManager();
+    StatusManager targetSm = target.getStatusManager();
+    // the components configured here report to the target from now on
+    setStatusManager(targetSm);
+    passStatusesOn(sm, targetSm);
+    // as on a reset, the status listeners of the target are removed, and
+    // those of the new configuration take their place
+    for (StatusListener sl : targetSm.getCopyOfStatusListenerList()) {
+      targetSm.remove(sl);
+    }
+    for (StatusListener sl : sm.getCopyOfStatusListenerList()) {
+      targetSm.add(sl);
+    }
+    target.install(this);
+  }
+
+  /**
+   * Stops the components configured in this context, leaving the target
+   * context as it was. This context must not be used afterwards.
+   */
+  public void discard() {
+    StatusManager sm = getStatusManager();
+    reset();
+    passStatusesOn(sm, target.getStatusManager());
+  }
+
+  private void passStatusesOn(StatusManager from, StatusManager to) {
+    for (Status status : from.getCopyOfStatusList()) {
+      to.add(status);
+    }
+  }
+}
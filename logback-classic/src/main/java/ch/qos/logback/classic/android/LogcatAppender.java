@@ -13,6 +13,12 @@
  */
 package ch.qos.logback.classic.android;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import android.util.Log;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.PatternLayout;
@@ -20,6 +26,12 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.pattern.parser.CompositeNode;
+import ch.qos.logback.core.pattern.parser.Node;
+import ch.qos.logback.core.pattern.parser.Parser;
+import ch.qos.logback.core.pattern.parser.SimpleKeywordNode;
+import ch.qos.logback.core.spi.ScanException;
+import ch.qos.logback.core.util.Duration;
 
 /**
  * An appender that wraps the native Android logging mechanism (<i>logcat</i>);
@@ -32,6 +44,14 @@ import ch.qos.logback.core.UnsynchronizedAppenderBase;
  * See the Android Developer Guide for details on adjusting the <i>logcat</i> filter.
  * <p>
  * See http://developer.android.com/guide/developing/tools/adb.html#filteringoutput
+ * <p>
+ * Tags that depend on nothing but the logger name (the default, or a tag
+ * pattern made of <code>%logger</code> and literal text) are computed once per
+ * logger. The answers of <code>isLoggable()</code> are cached per tag and asked
+ * again after {@link #setLoggableCacheInterval(String) loggableCacheInterval}.
+ * <p>
+ * Messages longer than what <i>logcat</i> keeps in one entry can be split
+ * into several entries with {@link #setMaxMessageLength(int)}.
  *
  * @author Fred Eisele
  * @author Anthony Trinh
@@ -42,9 +62,28 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
    * http://developer.android.com/reference/android/util/Log.html#isLoggable(java.lang.String, int)
    */
   private static final int MAX_TAG_LENGTH = 23;
+
+  /**
+   * Cached tags and isLoggable() answers are dropped once there are more of
+   * them, which only happens with many loggers or event dependent tags.
+   */
+  static final int MAX_CACHED_TAGS = 1024;
+
+  /**
+   * Conversion words which only depend on the logger name, or print nothing.
+   */
+  private static final Set<String> LOGGER_NAME_KEYWORDS = new HashSet<String>(
+      Arrays.asList("c", "lo", "logger", "nopex", "nopexception"));
+
   private PatternLayoutEncoder encoder = null;
   private PatternLayoutEncoder tagEncoder = null;
   private boolean checkLoggable = false;
+  private Duration loggableCacheInterval = Duration.buildBySeconds(10);
+  private int maxMessageLength = 0;
+
+  private boolean tagDependsOnLoggerOnly;
+  private final ConcurrentMap<String, String> tagsByLogger = new ConcurrentHashMap<String, String>();
+  private final ConcurrentMap<String, Loggable> loggableByTag = new ConcurrentHashMap<String, Loggable>();
 
   /**
    * As in most cases, the default constructor does nothing.
@@ -87,9 +126,37 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
       }
     }
 
+    tagsByLogger.clear();
+    loggableByTag.clear();
+    tagDependsOnLoggerOnly = tagEncoder == null || dependsOnLoggerOnly(tagEncoder.getPattern());
     super.start();
   }
 
+  /**
+   * Tells whether a pattern only depends on the logger name of an event, so
+   * that its output can be cached per logger.
+   */
+  private boolean dependsOnLoggerOnly(String pattern) {
+    if (pattern == null) {
+      return false;
+    }
+    try {
+      Node node = new Parser<ILoggingEvent>(pattern).parse();
+      for (; node != null; node = node.getNext()) {
+        if (node instanceof CompositeNode) {
+          return false;
+        }
+        if (node instanceof SimpleKeywordNode
+            && !LOGGER_NAME_KEYWORDS.contains((String) node.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    } catch (ScanException e) {
+      return false;
+    }
+  }
+
   /**
    * Writes an event to Android's logging mechanism (logcat)
    *
@@ -102,46 +169,138 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
       return;
     }
 
-    String tag = getTag(event);
-
+    final int priority;
     switch (event.getLevel().levelInt) {
     case Level.ALL_INT:
     case Level.TRACE_INT:
-      if (!checkLoggable || Log.isLoggable(tag, Log.VERBOSE)) {
-        Log.v(tag, this.encoder.getLayout().doLayout(event));
-      }
+      priority = Log.VERBOSE;
       break;
-
     case Level.DEBUG_INT:
-      if (!checkLoggable || Log.isLoggable(tag, Log.DEBUG)) {
-        Log.d(tag, this.encoder.getLayout().doLayout(event));
-      }
+      priority = Log.DEBUG;
       break;
-
     case Level.INFO_INT:
-      if (!checkLoggable || Log.isLoggable(tag, Log.INFO)) {
-        Log.i(tag, this.encoder.getLayout().doLayout(event));
-      }
+      priority = Log.INFO;
       break;
-
     case Level.WARN_INT:
-      if (!checkLoggable || Log.isLoggable(tag, Log.WARN)) {
-        Log.w(tag, this.encoder.getLayout().doLayout(event));
-      }
+      priority = Log.WARN;
       break;
-
     case Level.ERROR_INT:
-      if (!checkLoggable || Log.isLoggable(tag, Log.ERROR)) {
-        Log.e(tag, this.encoder.getLayout().doLayout(event));
-      }
+      priority = Log.ERROR;
       break;
-
     case Level.OFF_INT:
     default:
+      return;
+    }
+
+    String tag = getTag(event);
+    // the message is only laid out once logcat is known to accept it
+    if (checkLoggable && !isLoggable(tag, priority)) {
+      return;
+    }
+    String message = this.encoder.getLayout().doLayout(event);
+    if (maxMessageLength > 0) {
+      logInChunks(priority, tag, message);
+    } else {
+      log(priority, tag, message);
+    }
+  }
+
+  private void log(int priority, String tag, String message) {
+    switch (priority) {
+    case Log.VERBOSE:
+      Log.v(tag, message);
+      break;
+    case Log.DEBUG:
+      Log.d(tag, message);
+      break;
+    case Log.INFO:
+      Log.i(tag, message);
+      break;
+    case Log.WARN:
+      Log.w(tag, message);
+      break;
+    default:
+      Log.e(tag, message);
       break;
     }
   }
 
+  /**
+   * Writes a message as consecutive entries of at most maxMessageLength
+   * bytes, splitting it after the last line break that fits, or within a line
+   * when a single line is too long. Line breaks at chunk boundaries are
+   * dropped since logcat ends each entry with one.
+   */
+  private void logInChunks(int priority, String tag, String message) {
+    int length = message.length();
+    int start = 0;
+    while (start < length) {
+      int bytes = 0;
+      int end = start;
+      int lastLineBreak = -1;
+      while (end < length) {
+        char c = message.charAt(end);
+        int charBytes;
+        if (c < 0x80) {
+          charBytes = 1;
+        } else if (c < 0x800) {
+          charBytes = 2;
+        } else if (Character.isHighSurrogate(c) && end + 1 < length) {
+          charBytes = 4;
+        } else {
+          charBytes = 3;
+        }
+        if (bytes + charBytes > maxMessageLength) {
+          break;
+        }
+        if (c == '\n') {
+          lastLineBreak = end;
+        }
+        bytes += charBytes;
+        end += (charBytes == 4) ? 2 : 1;
+      }
+
+      if (end == length) {
+        log(priority, tag, message.substring(start, end));
+        return;
+      }
+      if (lastLineBreak >= 0) {
+        log(priority, tag, message.substring(start, lastLineBreak));
+        start = lastLineBreak + 1;
+      } else if (end > start) {
+        log(priority, tag, message.substring(start, end));
+        start = end;
+      } else {
+        // maxMessageLength is smaller than a single character
+        log(priority, tag, message.substring(start, start + 1));
+        start++;
+      }
+    }
+  }
+
+  /**
+   * Asks Android whether a message of the given tag and priority would be
+   * logged, caching the answers for all priorities of the tag.
+   */
+  private boolean isLoggable(String tag, int priority) {
+    long now = System.currentTimeMillis();
+    Loggable loggable = loggableByTag.get(tag);
+    if (loggable == null || now >= loggable.expiresAt) {
+      int mask = 0;
+      for (int p = Log.VERBOSE; p <= Log.ERROR; p++) {
+        if (Log.isLoggable(tag, p)) {
+          mask |= 1 << p;
+        }
+      }
+      loggable = new Loggable(mask, now + loggableCacheInterval.getMilliseconds());
+      if (loggableByTag.size() >= MAX_CACHED_TAGS) {
+        loggableByTag.clear();
+      }
+      loggableByTag.put(tag, loggable);
+    }
+    return (loggable.mask & (1 << priority)) != 0;
+  }
+
   /**
    * Gets the pattern-layout encoder for this appender's <i>logcat</i> message
    *
@@ -203,6 +362,8 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
    */
   public void setCheckLoggable(boolean enable) {
     this.checkLoggable = enable;
+    // cached tags are truncated only when checking
+    tagsByLogger.clear();
   }
 
   /**
@@ -217,12 +378,73 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
     return this.checkLoggable;
   }
 
+  /**
+   * Gets the maximum size of a <i>logcat</i> entry
+   *
+   * @return the size in bytes, or 0 if messages are not split
+   */
+  public int getMaxMessageLength() {
+    return maxMessageLength;
+  }
+
+  /**
+   * Sets the maximum size, in UTF-8 bytes, of a <i>logcat</i> entry. Longer
+   * messages are written as several entries with the same tag and priority,
+   * split at line breaks where possible, instead of being truncated by
+   * <i>logcat</i> (which keeps about 4 KB per entry). A value of 4000 suits
+   * most devices. Defaults to 0, which writes every message as one entry.
+   *
+   * @param maxMessageLength the size in bytes, or 0 to disable splitting
+   */
+  public void setMaxMessageLength(int maxMessageLength) {
+    this.maxMessageLength = maxMessageLength;
+  }
+
+  /**
+   * Gets the time during which <code>isLoggable()</code> answers are reused
+   *
+   * @return the duration
+   */
+  public String getLoggableCacheInterval() {
+    return loggableCacheInterval.toString();
+  }
+
+  /**
+   * Sets the time during which <code>isLoggable()</code> answers are reused
+   * before Android is asked again, which bounds how long a change of a tag's
+   * level (e.g., with {@code setprop log.tag.<TAG>}) goes unnoticed. Only
+   * used with {@link #setCheckLoggable(boolean) checkLoggable}. Defaults to
+   * 10 seconds; "0 seconds" disables the cache.
+   *
+   * @param loggableCacheInterval time duration (e.g., "1 minute")
+   */
+  public void setLoggableCacheInterval(String loggableCacheInterval) {
+    this.loggableCacheInterval = Duration.valueOf(loggableCacheInterval);
+    loggableByTag.clear();
+  }
+
   /**
    * Gets the logcat tag string of a logging event
    * @param event logging event to evaluate
    * @return the tag string, truncated if max length exceeded
    */
   protected String getTag(ILoggingEvent event) {
+    String loggerName = event.getLoggerName();
+    if (!tagDependsOnLoggerOnly || loggerName == null) {
+      return computeTag(event);
+    }
+    String tag = tagsByLogger.get(loggerName);
+    if (tag == null) {
+      tag = computeTag(event);
+      if (tagsByLogger.size() >= MAX_CACHED_TAGS) {
+        tagsByLogger.clear();
+      }
+      tagsByLogger.put(loggerName, tag);
+    }
+    return tag;
+  }
+
+  private String computeTag(ILoggingEvent event) {
     // format tag based on encoder layout; truncate if max length
     // exceeded (only necessary for isLoggable(), which throws
     // IllegalArgumentException)
@@ -232,4 +454,14 @@ public class LogcatAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
     }
     return tag;
   }
+
+  private static class Loggable {
+    final int mask;
+    final long expiresAt;
+
+    Loggable(int mask, long expiresAt) {
+      this.mask = mask;
+      this.expiresAt = expiresAt;
+    }
+  }
 }
@@ -15,16 +15,24 @@ package ch.qos.logback.classic.android;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteStatement;
 import ch.qos.logback.classic.db.SQLBuilder;
 import ch.qos.logback.classic.db.names.DBNameResolver;
 import ch.qos.logback.classic.db.names.DefaultDBNameResolver;
+import ch.qos.logback.classic.db.names.TableName;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.StackTraceElementProxy;
@@ -33,6 +41,7 @@ import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.android.CommonPathUtil;
 import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * SQLiteAppender is a logback appender optimized for Android SQLite. It requires no JDBC
@@ -53,6 +62,46 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
   private long lastCleanupTime = 0;
   private SQLiteLogCleaner logCleaner;
 
+  static final int DEFAULT_CLEANUP_CHUNK_SIZE = 500;
+  // free pages released after each deleted chunk in incremental vacuum mode
+  static final int INCREMENTAL_VACUUM_PAGES = 128;
+  private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+  private Duration cleanupInterval;
+  private int cleanupChunkSize = DEFAULT_CLEANUP_CHUNK_SIZE;
+  private long maxRows = 0;
+  private String maxDatabaseSizeAsString;
+  private long maxDatabaseSize = 0;
+  private boolean incrementalVacuum = false;
+  // set when a cleanup chunk was full, so that the next write resumes it
+  private boolean expiredLogsPending = false;
+  private boolean capacityExceeded = false;
+  private int eventsSinceCapacityCheck = 0;
+
+  // statements are compiled once at start and guarded by writeLock
+  private final Object writeLock = new Object();
+  private SQLiteStatement insertStatement;
+  private SQLiteStatement insertPropertiesStatement;
+  private SQLiteStatement insertExceptionStatement;
+
+  static final int DEFAULT_BATCH_SIZE = 1;
+  static final long DEFAULT_BATCH_FLUSH_INTERVAL_MS = 1000;
+  // beyond this many pending batches, appending threads write the batch
+  // themselves instead of waiting for the background writer
+  static final int MAX_PENDING_BATCHES = 8;
+
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private Duration batchFlushInterval = Duration.buildByMilliseconds(DEFAULT_BATCH_FLUSH_INTERVAL_MS);
+  private final Object batchLock = new Object();
+  private List<ILoggingEvent> pendingEvents = new ArrayList<ILoggingEvent>();
+  private boolean flushRequested = false;
+  private ScheduledFuture<?> flushFuture;
+  private final Runnable flushTask = new Runnable() {
+    public void run() {
+      flush();
+    }
+  };
+
   /**
    * Sets the database name resolver, used to customize the names of the table names
    * and columns in the database.
@@ -90,6 +139,153 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
     this.maxHistory = Duration.valueOf(maxHistory);
   }
 
+  /**
+   * Gets the time between two removals of expired logs
+   * @return the cleanup interval (e.g., "1 hour"); empty if it equals maxHistory
+   */
+  public String getCleanupInterval() {
+    return cleanupInterval != null ? cleanupInterval.toString() : "";
+  }
+
+  /**
+   * Sets the time between two removals of expired logs. Defaults to
+   * {@code maxHistory}.
+   *
+   * @param cleanupInterval time duration (e.g., "1 hour")
+   */
+  public void setCleanupInterval(String cleanupInterval) {
+    this.cleanupInterval = Duration.valueOf(cleanupInterval);
+  }
+
+  /**
+   * Gets the maximum number of events deleted per cleanup transaction
+   * @return the chunk size
+   */
+  public int getCleanupChunkSize() {
+    return cleanupChunkSize;
+  }
+
+  /**
+   * Sets the maximum number of events deleted per cleanup transaction. A
+   * cleanup with more events to delete is resumed by the next writes, one
+   * chunk at a time, so that the database is never write-locked for long.
+   * Default is 500.
+   *
+   * @param cleanupChunkSize number of events per cleanup transaction
+   */
+  public void setCleanupChunkSize(int cleanupChunkSize) {
+    if (cleanupChunkSize <= 0) {
+      addWarn("cleanupChunkSize must be positive, keeping " + this.cleanupChunkSize);
+      return;
+    }
+    this.cleanupChunkSize = cleanupChunkSize;
+  }
+
+  /**
+   * Gets the maximum number of events kept in the database
+   * @return the max row count; 0 if unlimited
+   */
+  public long getMaxRows() {
+    return maxRows;
+  }
+
+  /**
+   * Sets the maximum number of events kept in the database. The oldest
+   * events are deleted once the count is exceeded. Checked every
+   * {@code cleanupChunkSize} events. Default is 0 (unlimited).
+   *
+   * @param maxRows max number of events
+   */
+  public void setMaxRows(long maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Gets the maximum size of the data held by the database
+   * @return the max size (e.g., "10MB"); empty if unlimited
+   */
+  public String getMaxDatabaseSize() {
+    return maxDatabaseSizeAsString != null ? maxDatabaseSizeAsString : "";
+  }
+
+  /**
+   * Sets the maximum size of the data held by the database. The oldest
+   * events are deleted while the pages in use exceed this size. The file
+   * itself only shrinks with {@code incrementalVacuum}. Checked every
+   * {@code cleanupChunkSize} events. Unlimited by default.
+   *
+   * @param maxDatabaseSize max size (e.g., "10MB")
+   */
+  public void setMaxDatabaseSize(String maxDatabaseSize) {
+    this.maxDatabaseSizeAsString = maxDatabaseSize;
+    this.maxDatabaseSize = FileSize.valueOf(maxDatabaseSize).getSize();
+  }
+
+  public boolean isIncrementalVacuum() {
+    return incrementalVacuum;
+  }
+
+  /**
+   * When set to true, the database uses incremental auto-vacuum, and the
+   * pages freed by each cleanup chunk are returned to the file system in
+   * small steps. An existing database is rebuilt once to switch modes.
+   * Default is false.
+   *
+   * @param incrementalVacuum true to shrink the database file after cleanups
+   */
+  public void setIncrementalVacuum(boolean incrementalVacuum) {
+    this.incrementalVacuum = incrementalVacuum;
+  }
+
+  /**
+   * Gets the number of events written per transaction
+   * @return the batch size
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the number of events written per transaction. With a value greater
+   * than 1, events are buffered and written by a background thread, in one
+   * transaction per batch, when the batch is full or when the
+   * {@code batchFlushInterval} elapses, whichever comes first. The database
+   * then also uses write-ahead logging. Default is 1, in which case each event
+   * is written in its own transaction by the logging thread.
+   *
+   * @param batchSize number of events per transaction
+   */
+  public void setBatchSize(int batchSize) {
+    if (batchSize < 1) {
+      addWarn("batchSize must be positive, keeping " + this.batchSize);
+      return;
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Gets the maximum time an event waits in the batch buffer
+   * @return the flush interval (e.g., "1 second")
+   */
+  public String getBatchFlushInterval() {
+    return batchFlushInterval.toString();
+  }
+
+  /**
+   * Sets the maximum time an event waits in the batch buffer before being
+   * written to the database. Only used when {@code batchSize} is greater
+   * than 1. Default is 1 second.
+   *
+   * @param batchFlushInterval flush interval in time duration (e.g., "500 milli")
+   */
+  public void setBatchFlushInterval(String batchFlushInterval) {
+    this.batchFlushInterval = Duration.valueOf(batchFlushInterval);
+  }
+
+  private boolean isBatching() {
+    return batchSize > 1;
+  }
+
   /**
    * Gets the absolute path to the SQLite database
    * @return
@@ -163,11 +359,29 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
       insertSQL = SQLBuilder.buildInsertSQL(dbNameResolver);
 
       try {
+        if (incrementalVacuum) {
+          enableIncrementalVacuum();
+        }
+
         this.db.execSQL(SQLBuilder.buildCreateLoggingEventTableSQL(dbNameResolver));
         this.db.execSQL(SQLBuilder.buildCreatePropertyTableSQL(dbNameResolver));
         this.db.execSQL(SQLBuilder.buildCreateExceptionTableSQL(dbNameResolver));
+        this.db.execSQL(SQLBuilder.buildCreateTimestampIndexSQL(dbNameResolver));
+        this.db.execSQL(SQLBuilder.buildCreateLevelIndexSQL(dbNameResolver));
 
         clearExpiredLogs(this.db);
+        // check an existing database against the caps right away
+        capacityExceeded = true;
+        enforceCapacity(this.db, 0);
+
+        insertStatement = db.compileStatement(insertSQL);
+        insertPropertiesStatement = db.compileStatement(insertPropertiesSQL);
+        insertExceptionStatement = db.compileStatement(insertExceptionSQL);
+
+        if (isBatching()) {
+          enableWriteAheadLogging();
+          startBatchFlushing();
+        }
 
         super.start();
 
@@ -178,17 +392,132 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
     }
   }
 
+  private void enableIncrementalVacuum() {
+    if (DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+      this.db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+      // the new mode only takes effect once the database is rebuilt
+      addInfo("Rebuilding database to enable incremental vacuum");
+      this.db.execSQL("VACUUM");
+    }
+  }
+
+  private void enableWriteAheadLogging() {
+    // SQLiteDatabase.enableWriteAheadLogging() is not available before API 11,
+    // and SQLite versions without WAL support answer with the current mode
+    String journalMode = null;
+    Cursor c = this.db.rawQuery("PRAGMA journal_mode=WAL", null);
+    try {
+      if (c.moveToFirst()) {
+        journalMode = c.getString(0);
+      }
+    } finally {
+      c.close();
+    }
+    if (!"wal".equalsIgnoreCase(journalMode)) {
+      addWarn("Cannot enable write-ahead logging, journal mode is " + journalMode);
+    }
+  }
+
+  private void startBatchFlushing() {
+    final long intervalMs = batchFlushInterval.getMilliseconds();
+    if (intervalMs <= 0) {
+      addWarn("batchFlushInterval must be positive, using "
+          + DEFAULT_BATCH_FLUSH_INTERVAL_MS + " milliseconds");
+      batchFlushInterval = Duration.buildByMilliseconds(DEFAULT_BATCH_FLUSH_INTERVAL_MS);
+    }
+    addInfo("Writing events in batches of " + batchSize + ", at least every " + batchFlushInterval);
+    flushFuture = getContext().getScheduledExecutorService().scheduleAtFixedRate(flushTask,
+        batchFlushInterval.getMilliseconds(), batchFlushInterval.getMilliseconds(), TimeUnit.MILLISECONDS);
+  }
+
   /**
    * Removes expired logs from the database
    * @param db
    */
   private void clearExpiredLogs(SQLiteDatabase db) {
-    if (lastCheckExpired(this.maxHistory, this.lastCleanupTime)) {
-      this.lastCleanupTime = System.currentTimeMillis();
+    final Duration interval = this.cleanupInterval != null ? this.cleanupInterval : this.maxHistory;
+    final boolean due = this.maxHistory != null && lastCheckExpired(interval, this.lastCleanupTime);
+    if (due || this.expiredLogsPending) {
+      if (due) {
+        this.lastCleanupTime = System.currentTimeMillis();
+      }
+      this.expiredLogsPending = false;
       this.getLogCleaner().performLogCleanup(db, this.maxHistory);
     }
   }
 
+  /**
+   * Deletes the oldest logs, one chunk at a time, while the database holds
+   * more than {@code maxRows} events or more than {@code maxDatabaseSize}
+   * bytes of data
+   *
+   * @param db the database
+   * @param insertedCount number of events written since the last call
+   */
+  private void enforceCapacity(SQLiteDatabase db, int insertedCount) {
+    if (maxRows <= 0 && maxDatabaseSize <= 0) {
+      return;
+    }
+    eventsSinceCapacityCheck += insertedCount;
+    if (!capacityExceeded && eventsSinceCapacityCheck < cleanupChunkSize) {
+      return;
+    }
+    eventsSinceCapacityCheck = 0;
+
+    long excess = 0;
+    if (maxRows > 0) {
+      excess = DatabaseUtils.longForQuery(db, SQLBuilder.buildCountLogsSQL(dbNameResolver), null) - maxRows;
+    }
+    boolean tooLarge = false;
+    if (excess <= 0 && maxDatabaseSize > 0) {
+      final long usedPages = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null)
+          - DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+      tooLarge = usedPages * DatabaseUtils.longForQuery(db, "PRAGMA page_size", null) > maxDatabaseSize;
+    }
+
+    capacityExceeded = false;
+    if (excess > 0 || tooLarge) {
+      final long limit = excess > 0 ? Math.min(excess, cleanupChunkSize) : cleanupChunkSize;
+      final long deleted = deleteEvents(db, SQLBuilder.buildSelectOldestEventIdsSQL(dbNameResolver, limit));
+      capacityExceeded = deleted > 0 && (excess > cleanupChunkSize || tooLarge);
+    }
+  }
+
+  /**
+   * Deletes, in a single transaction, the events selected by a query along
+   * with their properties and exception lines
+   *
+   * @param db the database
+   * @param selectEventIdsSQL query selecting the IDs of the events to delete
+   * @return the number of deleted events
+   */
+  private long deleteEvents(SQLiteDatabase db, String selectEventIdsSQL) {
+    long count;
+    db.beginTransaction();
+    try {
+      count = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM (" + selectEventIdsSQL + ")", null);
+      if (count > 0) {
+        // the rows pointing to the events go first, since the query selects events
+        db.execSQL(SQLBuilder.buildDeleteByEventIdsSQL(dbNameResolver, TableName.LOGGING_EVENT_PROPERTY, selectEventIdsSQL));
+        db.execSQL(SQLBuilder.buildDeleteByEventIdsSQL(dbNameResolver, TableName.LOGGING_EVENT_EXCEPTION, selectEventIdsSQL));
+        db.execSQL(SQLBuilder.buildDeleteByEventIdsSQL(dbNameResolver, TableName.LOGGING_EVENT, selectEventIdsSQL));
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+    if (count > 0 && incrementalVacuum) {
+      Cursor c = db.rawQuery("PRAGMA incremental_vacuum(" + INCREMENTAL_VACUUM_PAGES + ")", null);
+      try {
+        // each step of the pragma frees one page
+        c.getCount();
+      } finally {
+        c.close();
+      }
+    }
+    return count;
+  }
+
   /**
    * Determines whether it's time to clear expired logs
    * @param expiry max time duration between checks
@@ -214,8 +543,8 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
         @Override
         public void performLogCleanup(SQLiteDatabase db, Duration expiry) {
           final long expiryMs = System.currentTimeMillis() - expiry.getMilliseconds();
-          final String deleteExpiredLogsSQL = SQLBuilder.buildDeleteExpiredLogsSQL(dbNameResolver, expiryMs);
-          db.execSQL(deleteExpiredLogsSQL);
+          final String selectExpiredEventIdsSQL = SQLBuilder.buildSelectExpiredEventIdsSQL(dbNameResolver, expiryMs, cleanupChunkSize);
+          expiredLogsPending = deleteEvents(db, selectExpiredEventIdsSQL) >= cleanupChunkSize;
         }
       };
     }
@@ -246,8 +575,30 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
    */
   @Override
   public void stop() {
-    this.db.close();
+    super.stop();
+    if (flushFuture != null) {
+      flushFuture.cancel(false);
+      flushFuture = null;
+    }
+    synchronized (writeLock) {
+      // write the events still waiting in the batch buffer
+      flush();
+      closeStatements();
+      this.db.close();
+    }
     this.lastCleanupTime = 0;
+    this.expiredLogsPending = false;
+  }
+
+  private void closeStatements() {
+    if (insertStatement != null) {
+      insertStatement.close();
+      insertPropertiesStatement.close();
+      insertExceptionStatement.close();
+      insertStatement = null;
+      insertPropertiesStatement = null;
+      insertExceptionStatement = null;
+    }
   }
 
   /*
@@ -257,24 +608,132 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
   @Override
   public void append(ILoggingEvent eventObject) {
     if (isStarted()) {
+      if (isBatching()) {
+        enqueue(eventObject);
+        return;
+      }
+      synchronized (writeLock) {
+        try {
+          clearExpiredLogs(db);
+          try {
+            db.beginTransaction();
+            long eventId = subAppend(eventObject, insertStatement);
+            if (eventId != -1) {
+              secondarySubAppend(eventObject, eventId);
+              db.setTransactionSuccessful();
+            }
+          } finally {
+            if (db.inTransaction()) {
+              db.endTransaction();
+            }
+          }
+          enforceCapacity(db, 1);
+        } catch (Throwable e) {
+          addError("Cannot append event", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds an event to the batch buffer, and asks the background writer to
+   * flush the buffer once it holds a full batch
+   *
+   * @param event the event to buffer
+   */
+  private void enqueue(ILoggingEvent event) {
+    // the event is written by another thread
+    event.prepareForDeferredProcessing();
+    event.getCallerData();
+
+    List<ILoggingEvent> batch = null;
+    boolean requestFlush = false;
+    synchronized (batchLock) {
+      pendingEvents.add(event);
+      final int pendingCount = pendingEvents.size();
+      if (pendingCount >= batchSize * MAX_PENDING_BATCHES) {
+        batch = takePendingEvents();
+      } else if (pendingCount >= batchSize && !flushRequested) {
+        flushRequested = true;
+        requestFlush = true;
+      }
+    }
+
+    if (batch != null) {
+      writeBatch(batch);
+    } else if (requestFlush) {
+      try {
+        getContext().getScheduledExecutorService().execute(flushTask);
+      } catch (RejectedExecutionException e) {
+        // the context is stopping, stop() will write the pending events
+      }
+    }
+  }
+
+  private List<ILoggingEvent> takePendingEvents() {
+    synchronized (batchLock) {
+      flushRequested = false;
+      if (pendingEvents.isEmpty()) {
+        return null;
+      }
+      List<ILoggingEvent> batch = pendingEvents;
+      pendingEvents = new ArrayList<ILoggingEvent>(batchSize);
+      return batch;
+    }
+  }
+
+  /**
+   * Writes all buffered events to the database
+   */
+  void flush() {
+    List<ILoggingEvent> batch = takePendingEvents();
+    if (batch != null) {
+      writeBatch(batch);
+    }
+  }
+
+  /**
+   * Writes a batch of events to the database in a single transaction. An
+   * event which cannot be written is reported and skipped. The rows already
+   * written for it are deleted, so that, as when the event is written in its
+   * own transaction, none of them are left behind.
+   *
+   * @param batch the events to write
+   */
+  private void writeBatch(List<ILoggingEvent> batch) {
+    synchronized (writeLock) {
+      if (insertStatement == null) {
+        addWarn("Dropping " + batch.size() + " events written after the appender was stopped");
+        return;
+      }
       try {
         clearExpiredLogs(db);
-        SQLiteStatement stmt = db.compileStatement(insertSQL);
         try {
           db.beginTransaction();
-          long eventId = subAppend(eventObject, stmt);
-          if (eventId != -1) {
-            secondarySubAppend(eventObject, eventId);
-            db.setTransactionSuccessful();
+          for (ILoggingEvent event : batch) {
+            long eventId = -1;
+            try {
+              eventId = subAppend(event, insertStatement);
+              if (eventId != -1) {
+                secondarySubAppend(event, eventId);
+              }
+            } catch (Throwable e) {
+              addError("Cannot append event", e);
+              if (eventId != -1) {
+                // drop the rows already written for the event
+                deleteEvents(db, "SELECT " + eventId);
+              }
+            }
           }
+          db.setTransactionSuccessful();
         } finally {
           if (db.inTransaction()) {
             db.endTransaction();
           }
-          stmt.close();
         }
+        enforceCapacity(db, batch.size());
       } catch (Throwable e) {
-        addError("Cannot append event", e);
+        addError("Cannot append " + batch.size() + " events", e);
       }
     }
   }
@@ -289,6 +748,8 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
    */
   private long subAppend(ILoggingEvent event, SQLiteStatement insertStatement) throws SQLException {
 
+    // the statement is reused, drop the previous event's bindings
+    insertStatement.clearBindings();
     bindLoggingEvent(insertStatement, event);
     bindLoggingEventArguments(insertStatement, event.getArgumentArray());
 
@@ -459,16 +920,12 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
    */
   private void insertProperties(Map<String, String> mergedMap, long eventId) throws SQLException {
     if (mergedMap.size() > 0) {
-      SQLiteStatement stmt = db.compileStatement(insertPropertiesSQL);
-      try {
-        for (Entry<String,String> entry : mergedMap.entrySet()) {
-          stmt.bindLong(1, eventId);
-          stmt.bindString(2, entry.getKey());
-          stmt.bindString(3, entry.getValue());
-          stmt.executeInsert();
-        }
-      } finally {
-        stmt.close();
+      SQLiteStatement stmt = insertPropertiesStatement;
+      for (Entry<String,String> entry : mergedMap.entrySet()) {
+        stmt.bindLong(1, eventId);
+        stmt.bindString(2, entry.getKey());
+        stmt.bindString(3, entry.getValue());
+        stmt.executeInsert();
       }
     }
   }
@@ -509,38 +966,34 @@ public class SQLiteAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
 
   private void insertThrowable(IThrowableProxy tp, long eventId) throws SQLException {
 
-    SQLiteStatement stmt = db.compileStatement(insertExceptionSQL);
-    try {
-      short baseIndex = 0;
-      while (tp != null) {
-        StringBuilder buf = new StringBuilder();
-        ThrowableProxyUtil.subjoinFirstLine(buf, tp);
-        insertException(stmt, buf.toString(), baseIndex++, eventId);
-
-        int commonFrames = tp.getCommonFrames();
-        StackTraceElementProxy[] stepArray = tp.getStackTraceElementProxyArray();
-
-        for (int i = 0; i < stepArray.length - commonFrames; i++) {
-          StringBuilder sb = new StringBuilder();
-          sb.append(CoreConstants.TAB);
-          ThrowableProxyUtil.subjoinSTEP(sb, stepArray[i]);
-          insertException(stmt, sb.toString(), baseIndex++, eventId);
-        }
-
-        if (commonFrames > 0) {
-          StringBuilder sb = new StringBuilder();
-          sb.append(CoreConstants.TAB)
-            .append("... ")
-            .append(commonFrames)
-            .append(" common frames omitted");
+    SQLiteStatement stmt = insertExceptionStatement;
+    short baseIndex = 0;
+    while (tp != null) {
+      StringBuilder buf = new StringBuilder();
+      ThrowableProxyUtil.subjoinFirstLine(buf, tp);
+      insertException(stmt, buf.toString(), baseIndex++, eventId);
+
+      int commonFrames = tp.getCommonFrames();
+      StackTraceElementProxy[] stepArray = tp.getStackTraceElementProxyArray();
+
+      for (int i = 0; i < stepArray.length - commonFrames; i++) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(CoreConstants.TAB);
+        ThrowableProxyUtil.subjoinSTEP(sb, stepArray[i]);
+        insertException(stmt, sb.toString(), baseIndex++, eventId);
+      }
 
-          insertException(stmt, sb.toString(), baseIndex++, eventId);
-        }
+      if (commonFrames > 0) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(CoreConstants.TAB)
+          .append("... ")
+          .append(commonFrames)
+          .append(" common frames omitted");
 
-        tp = tp.getCause();
+        insertException(stmt, sb.toString(), baseIndex++, eventId);
       }
-    } finally {
-      stmt.close();
+
+      tp = tp.getCause();
     }
   }
 }
@@ -120,6 +120,67 @@ public class SQLBuilder {
     return sqlBuilder.toString();
   }
 
+  public static String buildCreateTimestampIndexSQL(DBNameResolver dbNameResolver) {
+    return buildCreateLoggingEventIndexSQL(dbNameResolver, ColumnName.TIMESTMP);
+  }
+
+  public static String buildCreateLevelIndexSQL(DBNameResolver dbNameResolver) {
+    return buildCreateLoggingEventIndexSQL(dbNameResolver, ColumnName.LEVEL_STRING);
+  }
+
+  private static String buildCreateLoggingEventIndexSQL(DBNameResolver dbNameResolver, ColumnName columnName) {
+    String tableName = dbNameResolver.getTableName(TableName.LOGGING_EVENT);
+    String indexedColumnName = dbNameResolver.getColumnName(columnName);
+    StringBuilder sqlBuilder = new StringBuilder("CREATE INDEX IF NOT EXISTS ");
+    sqlBuilder.append(tableName).append("_").append(indexedColumnName).append("_idx")
+        .append(" ON ").append(tableName)
+        .append(" (").append(indexedColumnName).append(")");
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Builds a query selecting the IDs of at most {@code limit} events logged
+   * at or before the given time, oldest first
+   */
+  public static String buildSelectExpiredEventIdsSQL(DBNameResolver dbNameResolver, long expiryMs, int limit) {
+    StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+        .append(dbNameResolver.getColumnName(ColumnName.EVENT_ID))
+        .append(" FROM ").append(dbNameResolver.getTableName(TableName.LOGGING_EVENT))
+        .append(" WHERE ").append(dbNameResolver.getColumnName(ColumnName.TIMESTMP))
+        .append(" <= ").append(expiryMs)
+        .append(" ORDER BY ").append(dbNameResolver.getColumnName(ColumnName.TIMESTMP))
+        .append(" LIMIT ").append(limit);
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Builds a query selecting the IDs of the {@code limit} oldest events
+   */
+  public static String buildSelectOldestEventIdsSQL(DBNameResolver dbNameResolver, long limit) {
+    StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+        .append(dbNameResolver.getColumnName(ColumnName.EVENT_ID))
+        .append(" FROM ").append(dbNameResolver.getTableName(TableName.LOGGING_EVENT))
+        .append(" ORDER BY ").append(dbNameResolver.getColumnName(ColumnName.EVENT_ID))
+        .append(" LIMIT ").append(limit);
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Builds a statement deleting the rows of a table which belong to the
+   * events selected by {@code selectEventIdsSQL}
+   */
+  public static String buildDeleteByEventIdsSQL(DBNameResolver dbNameResolver, TableName tableName, String selectEventIdsSQL) {
+    StringBuilder sqlBuilder = new StringBuilder("DELETE FROM ")
+        .append(dbNameResolver.getTableName(tableName))
+        .append(" WHERE ").append(dbNameResolver.getColumnName(ColumnName.EVENT_ID))
+        .append(" IN (").append(selectEventIdsSQL).append(")");
+    return sqlBuilder.toString();
+  }
+
+  public static String buildCountLogsSQL(DBNameResolver dbNameResolver) {
+    return "SELECT COUNT(*) FROM " + dbNameResolver.getTableName(TableName.LOGGING_EVENT);
+  }
+
   public static String buildDeleteExpiredLogsSQL(DBNameResolver dbNameResolver, long expiryMs) {
     StringBuilder sqlBuilder = new StringBuilder("DELETE FROM ")
             .append(dbNameResolver.getTableName(TableName.LOGGING_EVENT))
@@ -19,6 +19,7 @@ import org.xml.sax.Attributes;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.turbo.ReconfigureOnChangeFilter;
 import ch.qos.logback.core.joran.action.Action;
+import ch.qos.logback.core.joran.action.ActionConst;
 import ch.qos.logback.core.joran.spi.InterpretationContext;
 import ch.qos.logback.core.util.ContextUtil;
 import ch.qos.logback.core.util.Duration;
@@ -28,6 +29,7 @@ public class ConfigurationAction extends Action {
   static final String INTERNAL_DEBUG_ATTR = "debug";
   static final String SCAN_ATTR = "scan";
   static final String SCAN_PERIOD_ATTR = "scanPeriod";
+  static final String SCAN_STAGED = "staged";
   static final String DEBUG_SYSTEM_PROPERTY_KEY = "logback.debug";
 
   @Override
@@ -35,7 +37,7 @@ public class ConfigurationAction extends Action {
     // See LBCLASSIC-225 (the system property is looked up first. Thus, it overrides
     // the equivalent property in the config file. This reversal of scope priority is justified
     // by the use case: the admin trying to chase rogue config file
-    String debugAttrib = OptionHelper.getSystemProperty(DEBUG_SYSTEM_PROPERTY_KEY);
+    String debugAttrib = OptionHelper.getSystemProperty(context, DEBUG_SYSTEM_PROPERTY_KEY);
     if (debugAttrib == null) {
       debugAttrib = ic.subst(attributes.getValue(INTERNAL_DEBUG_ATTR));
     }
@@ -48,6 +50,7 @@ public class ConfigurationAction extends Action {
     }
 
     processScanAttrib(ic, attributes);
+    processLazyStartAttrib(ic, attributes);
     ContextUtil contextUtil = new ContextUtil(context);
     contextUtil.addHostNameAsProperty();
 
@@ -74,6 +77,10 @@ public class ConfigurationAction extends Action {
             && !"false".equalsIgnoreCase(scanAttrib)) {
       ReconfigureOnChangeFilter rocf = new ReconfigureOnChangeFilter();
       rocf.setContext(context);
+      if (SCAN_STAGED.equalsIgnoreCase(scanAttrib)) {
+        addInfo("Configuration changes will be staged before they are installed");
+        rocf.setStaged(true);
+      }
       String scanPeriodAttrib = ic.subst(attributes.getValue(SCAN_PERIOD_ATTR));
       if (!OptionHelper.isEmpty(scanPeriodAttrib)) {
         try {
@@ -92,6 +99,19 @@ public class ConfigurationAction extends Action {
     }
   }
 
+  /**
+   * Makes the lazyStart attribute of the configuration element the default
+   * for all appenders.
+   */
+  void processLazyStartAttrib(InterpretationContext ic, Attributes attributes) {
+    String lazyStartAttrib = ic.subst(attributes.getValue(ActionConst.LAZY_START_ATTRIBUTE));
+    if (!OptionHelper.isEmpty(lazyStartAttrib)) {
+      addInfo("Setting default " + ActionConst.LAZY_START_ATTRIBUTE + " of appenders to ["
+              + lazyStartAttrib + "]");
+      ic.getObjectMap().put(ActionConst.LAZY_START_DEFAULT, lazyStartAttrib);
+    }
+  }
+
   @Override
   public void end(InterpretationContext ec, String name) {
     addInfo("End of configuration.");
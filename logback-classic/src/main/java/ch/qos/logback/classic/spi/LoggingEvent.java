@@ -21,7 +21,6 @@ import java.util.Map;
 import org.slf4j.MDC;
 import org.slf4j.Marker;
 import org.slf4j.helpers.FormattingTuple;
-import org.slf4j.helpers.MessageFormatter;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
@@ -292,8 +291,7 @@ public class LoggingEvent implements ILoggingEvent {
       return formattedMessage;
     }
     if (argumentArray != null) {
-      formattedMessage = MessageFormatter.arrayFormat(message, argumentArray)
-              .getMessage();
+      formattedMessage = MessageTemplate.format(message, argumentArray);
     } else {
       formattedMessage = message;
     }
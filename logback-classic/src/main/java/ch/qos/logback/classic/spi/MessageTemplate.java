@@ -0,0 +1,167 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * A message pattern with the positions of its "{}" anchors, as found by
+ * {@link MessageFormatter}. A call site always logs the same pattern, so
+ * patterns are parsed once and kept in a bounded process-wide cache;
+ * formatting then appends literal text and arguments without scanning the
+ * pattern again.
+ *
+ * <p>Formatting gives the same result as
+ * {@link MessageFormatter#arrayFormat(String, Object[])}, including its
+ * handling of escaped anchors. Arguments which need more than a call to
+ * <code>toString()</code> (arrays, a trailing throwable, or objects whose
+ * <code>toString()</code> fails) are left to MessageFormatter.
+ */
+final class MessageTemplate {
+
+  /**
+   * The cache of parsed patterns is emptied once it holds this many entries.
+   */
+  static final int MAX_CACHED_TEMPLATES = 1024;
+
+  private static final String DELIM_STR = "{}";
+  private static final char DELIM_START = '{';
+  private static final char ESCAPE_CHAR = '\\';
+
+  private static final ConcurrentMap<String, MessageTemplate> CACHE =
+      new ConcurrentHashMap<String, MessageTemplate>();
+
+  private final String pattern;
+  // for each anchor, in order: the end of the literal text before it, where
+  // the text after it starts, and whether it is escaped, i.e. stands for a
+  // literal '{' rather than for an argument
+  private final int[] literalEnds;
+  private final int[] nextStarts;
+  private final boolean[] escaped;
+
+  private MessageTemplate(String pattern) {
+    this.pattern = pattern;
+    // anchors cannot overlap, so this finds the same ones as the loop below
+    int count = 0;
+    for (int j = pattern.indexOf(DELIM_STR); j != -1; j = pattern.indexOf(DELIM_STR, j + 1)) {
+      count++;
+    }
+    literalEnds = new int[count];
+    nextStarts = new int[count];
+    escaped = new boolean[count];
+
+    int k = 0;
+    int i = 0;
+    int j;
+    while ((j = pattern.indexOf(DELIM_STR, i)) != -1) {
+      if (j > 0 && pattern.charAt(j - 1) == ESCAPE_CHAR) {
+        literalEnds[k] = j - 1;
+        if (j > 1 && pattern.charAt(j - 2) == ESCAPE_CHAR) {
+          // the escape is itself escaped, one backslash is kept
+          nextStarts[k] = j + 2;
+        } else {
+          escaped[k] = true;
+          nextStarts[k] = j + 1;
+        }
+      } else {
+        literalEnds[k] = j;
+        nextStarts[k] = j + 2;
+      }
+      i = nextStarts[k];
+      k++;
+    }
+  }
+
+  /**
+   * Formats a message as {@link MessageFormatter#arrayFormat(String,
+   * Object[])} does.
+   *
+   * @param pattern the message pattern
+   * @param args the arguments, not null
+   * @return the formatted message
+   */
+  static String format(String pattern, Object[] args) {
+    if (pattern == null) {
+      return null;
+    }
+    if (args.length == 0 || args[args.length - 1] instanceof Throwable) {
+      return MessageFormatter.arrayFormat(pattern, args).getMessage();
+    }
+    String message = forPattern(pattern).format(args);
+    if (message == null) {
+      return MessageFormatter.arrayFormat(pattern, args).getMessage();
+    }
+    return message;
+  }
+
+  static MessageTemplate forPattern(String pattern) {
+    MessageTemplate template = CACHE.get(pattern);
+    if (template == null) {
+      template = new MessageTemplate(pattern);
+      if (CACHE.size() >= MAX_CACHED_TEMPLATES) {
+        CACHE.clear();
+      }
+      CACHE.put(pattern, template);
+    }
+    return template;
+  }
+
+  static int cacheSize() {
+    return CACHE.size();
+  }
+
+  /**
+   * @return the formatted message, or null if an argument needs the
+   * treatment of MessageFormatter
+   */
+  String format(Object[] args) {
+    if (literalEnds.length == 0) {
+      return pattern;
+    }
+    StringBuilder sb = new StringBuilder(pattern.length() + 16 * args.length);
+    int start = 0;
+    int used = 0;
+    for (int k = 0; k < literalEnds.length && used < args.length; k++) {
+      sb.append(pattern, start, literalEnds[k]);
+      if (escaped[k]) {
+        sb.append(DELIM_START);
+      } else if (!appendArgument(sb, args[used++])) {
+        return null;
+      }
+      start = nextStarts[k];
+    }
+    sb.append(pattern, start, pattern.length());
+    return sb.toString();
+  }
+
+  private static boolean appendArgument(StringBuilder sb, Object arg) {
+    if (arg == null) {
+      sb.append("null");
+      return true;
+    }
+    if (arg.getClass().isArray()) {
+      return false;
+    }
+    try {
+      sb.append(arg.toString());
+      return true;
+    } catch (Throwable t) {
+      // MessageFormatter reports any failure of toString(), errors included
+      return false;
+    }
+  }
+}
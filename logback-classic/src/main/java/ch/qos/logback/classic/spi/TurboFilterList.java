@@ -13,6 +13,7 @@
  */
 package ch.qos.logback.classic.spi;
 
+import java.util.Collection;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Marker;
@@ -24,6 +25,13 @@ import ch.qos.logback.core.spi.FilterReply;
 
 /**
  * Implementation of TurboFilterAttachable.
+ *
+ * <p>The list keeps the lowest level any of its filters may accept, as
+ * advertised by {@link TurboFilter#getLowestAcceptedLevel()}, up to date as
+ * filters are added and removed. Loggers use it to skip the chain for
+ * requests without a marker which are disabled by level and which no filter
+ * could enable. Changes made through {@link #subList(int, int)} are not
+ * tracked; call {@link #updateLowestAcceptedLevel()} after them.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
@@ -31,6 +39,32 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
 
   private static final long serialVersionUID = 1L;
 
+  private volatile int lowestAcceptedLevelInt = Level.OFF_INT;
+
+  /**
+   * @return the lowest level of requests without a marker which a filter of
+   * this list may accept, {@link Level#OFF_INT} if none may
+   */
+  public int getLowestAcceptedLevelInt() {
+    return lowestAcceptedLevelInt;
+  }
+
+  /**
+   * Recomputes the lowest level which a filter of this list may accept. To
+   * be called when the configuration of a filter in the list changes.
+   */
+  public void updateLowestAcceptedLevel() {
+    int lowest = Level.OFF_INT;
+    for (TurboFilter tf : this) {
+      Level level = tf.getLowestAcceptedLevel();
+      int levelInt = level == null ? Level.ALL_INT : level.levelInt;
+      if (levelInt < lowest) {
+        lowest = levelInt;
+      }
+    }
+    lowestAcceptedLevelInt = lowest;
+  }
+
   /**
    * Loop through the filters in the chain. As soon as a filter decides on
    * ACCEPT or DENY, then that value is returned. If all of the filters return
@@ -67,6 +101,88 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
     return FilterReply.NEUTRAL;
   }
 
+  @Override
+  public boolean add(TurboFilter tf) {
+    boolean changed = super.add(tf);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public void add(int index, TurboFilter tf) {
+    super.add(index, tf);
+    updateLowestAcceptedLevel();
+  }
+
+  @Override
+  public boolean addIfAbsent(TurboFilter tf) {
+    boolean changed = super.addIfAbsent(tf);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends TurboFilter> c) {
+    boolean changed = super.addAll(c);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public boolean addAll(int index, Collection<? extends TurboFilter> c) {
+    boolean changed = super.addAll(index, c);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public int addAllAbsent(Collection<? extends TurboFilter> c) {
+    int added = super.addAllAbsent(c);
+    updateLowestAcceptedLevel();
+    return added;
+  }
+
+  @Override
+  public TurboFilter set(int index, TurboFilter tf) {
+    TurboFilter previous = super.set(index, tf);
+    updateLowestAcceptedLevel();
+    return previous;
+  }
+
+  @Override
+  public TurboFilter remove(int index) {
+    TurboFilter removed = super.remove(index);
+    updateLowestAcceptedLevel();
+    return removed;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    boolean changed = super.remove(o);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    boolean changed = super.removeAll(c);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    boolean changed = super.retainAll(c);
+    updateLowestAcceptedLevel();
+    return changed;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    updateLowestAcceptedLevel();
+  }
+
   // public boolean remove(TurboFilter turboFilter) {
   // return tfList.remove(turboFilter);
   // }
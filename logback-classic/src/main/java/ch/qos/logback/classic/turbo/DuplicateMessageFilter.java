@@ -40,12 +40,17 @@ public class DuplicateMessageFilter extends TurboFilter {
 
   public int allowedRepetitions = DEFAULT_ALLOWED_REPETITIONS;
   public int cacheSize = DEFAULT_CACHE_SIZE;
+  boolean concurrent = false;
 
-  private LRUMessageCache msgCache;
+  private MessageCache msgCache;
 
   @Override
   public void start() {
-    msgCache = new LRUMessageCache(cacheSize);
+    if (concurrent) {
+      msgCache = new ShardedMessageCache(cacheSize);
+    } else {
+      msgCache = new LRUMessageCache(cacheSize);
+    }
     super.start();
   }
 
@@ -88,4 +93,20 @@ public class DuplicateMessageFilter extends TurboFilter {
     this.cacheSize = cacheSize;
   }
 
+  public boolean isConcurrent() {
+    return concurrent;
+  }
+
+  /**
+   * Whether messages are counted in a cache split into independently locked
+   * shards, rather than in a single cache which every logging request
+   * locks. Which messages are forgotten first is then only approximately
+   * least recently used.
+   *
+   * @param concurrent true for a sharded cache
+   */
+  public void setConcurrent(boolean concurrent) {
+    this.concurrent = concurrent;
+  }
+
 }
@@ -212,6 +212,27 @@ public class DynamicThresholdFilter extends TurboFilter {
     super.start();
   }
 
+  /**
+   * Returns the lowest threshold if requests at or above the threshold are
+   * accepted, so that requests below every threshold skip the MDC lookup.
+   */
+  @Override
+  public Level getLowestAcceptedLevel() {
+    if (onLower == FilterReply.ACCEPT) {
+      return Level.ALL;
+    }
+    if (onHigherOrEqual != FilterReply.ACCEPT) {
+      return Level.OFF;
+    }
+    Level lowest = defaultThreshold;
+    for (Level level : valueLevelMap.values()) {
+      if (level != null && !level.isGreaterOrEqual(lowest)) {
+        lowest = level;
+      }
+    }
+    return lowest;
+  }
+
   /**
    * This method first finds the MDC value for 'key'. It then finds the level
    * threshold associated with this MDC value from the list of MDCValueLevelPair
@@ -20,7 +20,7 @@ import java.util.Map;
  * Clients of this class should only use the  {@link #getMessageCountAndThenIncrement} method. Other methods inherited
  * via LinkedHashMap are not thread safe.
  */
-class LRUMessageCache extends LinkedHashMap<String, Integer> {
+class LRUMessageCache extends LinkedHashMap<String, Integer> implements MessageCache {
 
   private static final long serialVersionUID = 1L;
   final int cacheSize;
@@ -33,7 +33,7 @@ class LRUMessageCache extends LinkedHashMap<String, Integer> {
     this.cacheSize = cacheSize;
   }
 
-  int getMessageCountAndThenIncrement(String msg) {
+  public int getMessageCountAndThenIncrement(String msg) {
     // don't insert null elements
     if (msg == null) {
       return 0;
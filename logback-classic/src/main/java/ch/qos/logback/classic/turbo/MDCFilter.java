@@ -48,6 +48,14 @@ public class MDCFilter extends MatchingFilter {
   String MDCKey;
   String value;
   
+  @Override
+  public Level getLowestAcceptedLevel() {
+    if (onMatch == FilterReply.ACCEPT || onMismatch == FilterReply.ACCEPT) {
+      return Level.ALL;
+    }
+    return Level.OFF;
+  }
+
   @Override
   public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
     if (MDCKey == null) {
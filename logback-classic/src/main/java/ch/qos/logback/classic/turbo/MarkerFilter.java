@@ -37,6 +37,14 @@ public class MarkerFilter extends MatchingFilter {
     }
   }
   
+  /**
+   * Requests without a marker are accepted only if mismatches are.
+   */
+  @Override
+  public Level getLowestAcceptedLevel() {
+    return onMismatch == FilterReply.ACCEPT ? Level.ALL : Level.OFF;
+  }
+
   @Override
   public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
     if(!isStarted()) {
@@ -0,0 +1,29 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+/**
+ * Counts how many times each message was seen by a
+ * {@link DuplicateMessageFilter}. Implementations are safe for concurrent use.
+ */
+interface MessageCache {
+
+  /**
+   * @param msg the message, may be null
+   * @return how many times msg was seen before, 0 for a null message
+   */
+  int getMessageCountAndThenIncrement(String msg);
+
+  void clear();
+}
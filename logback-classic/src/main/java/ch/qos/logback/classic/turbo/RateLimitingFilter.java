@@ -0,0 +1,101 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through at most {@link #setEventsPerSecond(double) eventsPerSecond}
+ * logging requests per key on average, with bursts of up to
+ * {@link #setBurst(int) burst} requests, and denies the others. See
+ * {@link ThrottlingFilterBase} for how requests are keyed and denied
+ * requests reported.
+ *
+ * <p>Each key has a token bucket, kept as a single timestamp: the time at
+ * which the bucket will be full again. Taking a token is a compare-and-set of
+ * that timestamp, so the filter never blocks a logging thread.
+ */
+public class RateLimitingFilter extends ThrottlingFilterBase {
+
+  public static final double DEFAULT_EVENTS_PER_SECOND = 100;
+
+  private double eventsPerSecond = DEFAULT_EVENTS_PER_SECOND;
+  private int burst = 0;
+
+  // the time it takes to earn a token, and how far ahead of the current
+  // time the bucket may be emptied
+  private long nanosPerToken;
+  private long burstNanos;
+
+  @Override
+  public void start() {
+    if (!(eventsPerSecond > 0)) {
+      addError("eventsPerSecond must be positive for [" + getName() + "]");
+      return;
+    }
+    int effectiveBurst = burst > 0 ? burst : (int) Math.max(1, Math.ceil(eventsPerSecond));
+    nanosPerToken = (long) (1000000000L / eventsPerSecond);
+    burstNanos = nanosPerToken * (effectiveBurst - 1);
+    super.start();
+  }
+
+  @Override
+  protected long initialValue() {
+    return System.nanoTime();
+  }
+
+  @Override
+  protected boolean admit(KeyState state) {
+    AtomicLong fullAt = state.getValue();
+    long now = System.nanoTime();
+    while (true) {
+      long current = fullAt.get();
+      long base = current - now < 0 ? now : current;
+      if (base - now > burstNanos) {
+        return false;
+      }
+      if (fullAt.compareAndSet(current, base + nanosPerToken)) {
+        return true;
+      }
+    }
+  }
+
+  public double getEventsPerSecond() {
+    return eventsPerSecond;
+  }
+
+  /**
+   * The sustained number of requests let through per key and second. May
+   * be below 1, e.g. 0.1 for one request every ten seconds.
+   *
+   * @param eventsPerSecond the rate
+   */
+  public void setEventsPerSecond(double eventsPerSecond) {
+    this.eventsPerSecond = eventsPerSecond;
+  }
+
+  public int getBurst() {
+    return burst;
+  }
+
+  /**
+   * The number of requests of a key let through in quick succession after
+   * a quiet period. Defaults to one second's worth of requests.
+   *
+   * @param burst the number of requests
+   */
+  public void setBurst(int burst) {
+    this.burst = burst;
+  }
+}
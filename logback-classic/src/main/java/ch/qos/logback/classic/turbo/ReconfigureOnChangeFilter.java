@@ -16,6 +16,9 @@ package ch.qos.logback.classic.turbo;
 import java.io.File;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.joran.event.SaxEvent;
@@ -27,6 +30,7 @@ import org.slf4j.Marker;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.StagedLoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.spi.FilterReply;
@@ -36,6 +40,13 @@ import static ch.qos.logback.core.CoreConstants.MILLIS_IN_ONE_SECOND;
 /**
  * Reconfigure a LoggerContext when the configuration file changes.
  *
+ * <p>By default, every so many logging requests check whether the
+ * configuration files changed, and a change resets the context before it is
+ * configured anew. In staged mode, enabled with <code>scan="staged"</code>,
+ * the files are checked by a background task instead, the new configuration
+ * is built in a {@link StagedLoggerContext} while logging goes on with the
+ * current one, and is installed only if it was built without errors.
+ *
  * @author Ceki Gulcu
  */
 public class ReconfigureOnChangeFilter extends TurboFilter {
@@ -47,6 +58,7 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
   public final static long DEFAULT_REFRESH_PERIOD = 60 * MILLIS_IN_ONE_SECOND;
 
   long refreshPeriod = DEFAULT_REFRESH_PERIOD;
+  boolean staged = false;
   URL mainConfigurationURL;
   protected volatile long nextCheck;
 
@@ -68,12 +80,37 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
       synchronized (configurationWatchList) {
         updateNextCheck(System.currentTimeMillis());
       }
+      if (staged && !scheduleChangeCheck()) {
+        return;
+      }
       super.start();
     } else {
       addWarn("Empty ConfigurationWatchList in context");
     }
   }
 
+  private ScheduledFuture<?> scheduledChangeCheck;
+
+  private boolean scheduleChangeCheck() {
+    try {
+      scheduledChangeCheck = context.getScheduledExecutorService().scheduleWithFixedDelay(
+          new StagedReconfiguration(), refreshPeriod, refreshPeriod, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (RejectedExecutionException e) {
+      addError("Cannot schedule the scan of configuration files", e);
+      return false;
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (scheduledChangeCheck != null) {
+      scheduledChangeCheck.cancel(false);
+      scheduledChangeCheck = null;
+    }
+    super.stop();
+  }
+
   @Override
   public String toString() {
     return "ReconfigureOnChangeFilter{" +
@@ -93,10 +130,20 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
   private volatile long lastMaskCheck = System.currentTimeMillis();
 
 
+  /**
+   * In staged mode no request needs to go through this filter. Otherwise
+   * every request counts towards the next check for changes.
+   */
+  @Override
+  public Level getLowestAcceptedLevel() {
+    return staged ? Level.OFF : Level.ALL;
+  }
+
   @Override
   public FilterReply decide(Marker marker, Logger logger, Level level,
                             String format, Object[] params, Throwable t) {
-    if (!isStarted()) {
+    // in staged mode, changes are detected in the background
+    if (!isStarted() || staged) {
       return FilterReply.NEUTRAL;
     }
 
@@ -180,14 +227,75 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
     this.refreshPeriod = refreshPeriod;
   }
 
+  public boolean isStaged() {
+    return staged;
+  }
+
+  /**
+   * Whether changes are detected in the background and the new configuration
+   * is built aside before it replaces the current one.
+   *
+   * @param staged true for staged reconfiguration
+   */
+  public void setStaged(boolean staged) {
+    this.staged = staged;
+  }
+
+  /**
+   * The context to reconfigure. A filter configured in a staged context
+   * reconfigures the context the staged configuration was installed in.
+   */
+  LoggerContext getTargetContext() {
+    if (context instanceof StagedLoggerContext) {
+      return ((StagedLoggerContext) context).getTarget();
+    }
+    return (LoggerContext) context;
+  }
+
+  class StagedReconfiguration implements Runnable {
+    public void run() {
+      synchronized (configurationWatchList) {
+        if (!isStarted() || !configurationWatchList.changeDetected()) {
+          return;
+        }
+      }
+      addInfo("Detected change in [" + configurationWatchList.getCopyOfFileWatchList() + "]");
+      // runs on the scheduler thread, which the logging threads never wait for
+      LoggerContext lc = getTargetContext();
+      StagedLoggerContext stagedContext = new StagedLoggerContext(lc);
+      JoranConfigurator jc = new JoranConfigurator();
+      jc.setContext(stagedContext);
+      StatusUtil statusUtil = new StatusUtil(stagedContext);
+      long threshold = System.currentTimeMillis();
+      boolean errorFree;
+      try {
+        jc.doConfigure(mainConfigurationURL);
+        errorFree = statusUtil.isErrorFree(threshold);
+      } catch (JoranException e) {
+        errorFree = false;
+      }
+      if (!errorFree) {
+        stagedContext.discard();
+        synchronized (configurationWatchList) {
+          configurationWatchList.updateLastModified();
+        }
+        addWarn("Errors in the new configuration, keeping the current configuration of context named ["
+            + lc.getName() + "]");
+        return;
+      }
+      stagedContext.install();
+      addInfo("Installed new configuration in context named [" + lc.getName() + "]");
+    }
+  }
+
   class ReconfiguringThread implements Runnable {
     public void run() {
       if (mainConfigurationURL == null) {
         addInfo("Due to missing top level configuration file, skipping reconfiguration");
         return;
       }
-      LoggerContext lc = (LoggerContext) context;
-      addInfo(CoreConstants.RESET_MSG_PREFIX + "named [" + context.getName() + "]");
+      LoggerContext lc = getTargetContext();
+      addInfo(CoreConstants.RESET_MSG_PREFIX + "named [" + lc.getName() + "]");
       if (mainConfigurationURL.toString().endsWith("xml")) {
         performXMLConfiguration(lc);
       }
@@ -195,10 +303,10 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
 
     private void performXMLConfiguration(LoggerContext lc) {
       JoranConfigurator jc = new JoranConfigurator();
-      jc.setContext(context);
-      StatusUtil statusUtil = new StatusUtil(context);
+      jc.setContext(lc);
+      StatusUtil statusUtil = new StatusUtil(lc);
       List<SaxEvent> eventList = jc.recallSafeConfiguration();
-      URL mainURL = ConfigurationWatchListUtil.getMainWatchURL(context);
+      URL mainURL = ConfigurationWatchListUtil.getMainWatchURL(lc);
       lc.reset();
       long threshold = System.currentTimeMillis();
       try {
@@ -213,12 +321,12 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
 
     private void fallbackConfiguration(LoggerContext lc, List<SaxEvent> eventList, URL mainURL) {
       JoranConfigurator joranConfigurator = new JoranConfigurator();
-      joranConfigurator.setContext(context);
+      joranConfigurator.setContext(lc);
       if (eventList != null) {
         addWarn("Falling back to previously registered safe configuration.");
         try {
           lc.reset();
-          JoranConfigurator.informContextOfURLUsedForConfiguration(context, mainURL);
+          JoranConfigurator.informContextOfURLUsedForConfiguration(lc, mainURL);
           joranConfigurator.doConfigure(eventList);
           addInfo("Re-registering previous fallback configuration once more as a fallback configuration point");
           joranConfigurator.registerSafeConfiguration();
@@ -0,0 +1,96 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+/**
+ * Lets through a sample of the logging requests of each key and denies the
+ * others: either one request in {@link #setSampleEvery(int) sampleEvery},
+ * or each request with the given {@link #setProbability(double)
+ * probability}. See {@link ThrottlingFilterBase} for how requests are keyed
+ * and denied requests reported.
+ *
+ * <p>Sampling is deterministic: it depends only on the key and on how many
+ * requests of the key came before, so the same sequence of requests is
+ * always sampled alike. Each key's count is incremented without locking.
+ */
+public class SamplingFilter extends ThrottlingFilterBase {
+
+  private int sampleEvery = 0;
+  private double probability = 0;
+
+  // the probability scaled to the range of non-negative longs
+  private long threshold;
+
+  @Override
+  public void start() {
+    if (sampleEvery > 0 == probability > 0) {
+      addError("Exactly one of sampleEvery and probability must be set for [" + getName() + "]");
+      return;
+    }
+    if (probability > 1) {
+      addError("probability must not exceed 1 for [" + getName() + "]");
+      return;
+    }
+    threshold = (long) (probability * Long.MAX_VALUE);
+    super.start();
+  }
+
+  @Override
+  protected long initialValue() {
+    return 0;
+  }
+
+  @Override
+  protected boolean admit(KeyState state) {
+    long n = state.getValue().getAndIncrement();
+    if (sampleEvery > 0) {
+      return n % sampleEvery == 0;
+    }
+    long hash = mix(n + state.getKey().hashCode() * 0x9E3779B97F4A7C15L);
+    return (hash >>> 1) < threshold;
+  }
+
+  // the SplitMix64 finalizer
+  static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  public int getSampleEvery() {
+    return sampleEvery;
+  }
+
+  /**
+   * Lets through the first request of each key and every n-th after it.
+   *
+   * @param sampleEvery n
+   */
+  public void setSampleEvery(int sampleEvery) {
+    this.sampleEvery = sampleEvery;
+  }
+
+  public double getProbability() {
+    return probability;
+  }
+
+  /**
+   * Lets through each request with the given probability.
+   *
+   * @param probability a number greater than 0 and at most 1
+   */
+  public void setProbability(double probability) {
+    this.probability = probability;
+  }
+}
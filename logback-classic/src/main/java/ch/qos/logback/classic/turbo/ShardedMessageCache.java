@@ -0,0 +1,69 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+/**
+ * A {@link MessageCache} split into independently locked
+ * {@link LRUMessageCache} shards, so that threads counting different
+ * messages seldom wait for each other. Each message is counted by the shard
+ * its hash selects, and each shard evicts its own least recently seen
+ * messages. Eviction is therefore only approximately least recently used
+ * across the whole cache, whose total size stays within cacheSize rounded up
+ * to a multiple of the shard count.
+ */
+class ShardedMessageCache implements MessageCache {
+
+  // a power of two
+  static final int MAX_SHARD_COUNT = 16;
+  // smaller caches do not gain from sharding, and evict more precisely
+  static final int MIN_SHARD_SIZE = 16;
+
+  private final LRUMessageCache[] shards;
+  private final int mask;
+
+  ShardedMessageCache(int cacheSize) {
+    if (cacheSize < 1) {
+      throw new IllegalArgumentException("Cache size cannot be smaller than 1");
+    }
+    int shardCount = 1;
+    while (shardCount < MAX_SHARD_COUNT && cacheSize / (shardCount * 2) >= MIN_SHARD_SIZE) {
+      shardCount *= 2;
+    }
+    int shardSize = (cacheSize + shardCount - 1) / shardCount;
+    shards = new LRUMessageCache[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new LRUMessageCache(shardSize);
+    }
+    mask = shardCount - 1;
+  }
+
+  int getShardCount() {
+    return shards.length;
+  }
+
+  public int getMessageCountAndThenIncrement(String msg) {
+    if (msg == null) {
+      return 0;
+    }
+    int h = msg.hashCode();
+    h ^= (h >>> 16);
+    return shards[h & mask].getMessageCountAndThenIncrement(msg);
+  }
+
+  public void clear() {
+    for (LRUMessageCache shard : shards) {
+      shard.clear();
+    }
+  }
+}
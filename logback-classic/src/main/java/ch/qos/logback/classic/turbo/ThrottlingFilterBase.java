@@ -0,0 +1,309 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.core.spi.FilterReply;
+import ch.qos.logback.core.util.Duration;
+
+/**
+ * Base class of turbo filters which let through only part of the logging
+ * requests of each key. A key is made of the logger name, the level, the
+ * marker name and/or the message pattern of a request, as selected by
+ * {@link #setKeyBy(String) keyBy}; keying by message pattern approximates
+ * keying by call site.
+ *
+ * <p>Each key has a counter, updated without locking by
+ * {@link #admit(KeyState)}. Requests which are not admitted are denied and
+ * counted, and every {@link #setReportInterval(String) reportInterval} the
+ * number of denied requests per key is reported as a status message. Keys
+ * with no denied requests during an interval are forgotten; when reports are
+ * disabled, this still happens every {@value #DEFAULT_REPORT_INTERVAL} ms.
+ *
+ * <p>Requests which the logger would disable anyway, requests of a level
+ * higher than {@link #setMaxLevel(Level) maxLevel}, and requests without a
+ * message (as made by <code>isXxxEnabled()</code>) are let through without
+ * being counted.
+ */
+public abstract class ThrottlingFilterBase extends TurboFilter {
+
+  public static final int DEFAULT_MAX_KEYS = 1000;
+  public static final long DEFAULT_REPORT_INTERVAL = 60 * 1000;
+
+  static final String OTHER_KEYS = "[other]";
+  static final String NO_VALUE = "-";
+
+  private boolean byLogger = true;
+  private boolean byLevel;
+  private boolean byMarker;
+  private boolean byMessage;
+  private String keyBy = "logger";
+  private Level maxLevel;
+  private int maxKeys = DEFAULT_MAX_KEYS;
+  private Duration reportInterval = new Duration(DEFAULT_REPORT_INTERVAL);
+
+  private final ConcurrentMap<String, KeyState> states = new ConcurrentHashMap<String, KeyState>();
+  private final AtomicLong deniedCount = new AtomicLong();
+  private ScheduledFuture<?> scheduledReport;
+
+  /**
+   * Decides whether a request is let through, given the state of its key.
+   * Called concurrently, possibly for the same key.
+   *
+   * @param state the state of the request's key
+   * @return true to let the request through
+   */
+  protected abstract boolean admit(KeyState state);
+
+  /**
+   * @return the value of the counter of a new key
+   */
+  protected abstract long initialValue();
+
+  @Override
+  public void start() {
+    if (context != null) {
+      Runnable report = new Runnable() {
+        public void run() {
+          report();
+        }
+      };
+      // idle keys must be forgotten even if nothing is reported
+      long period = reportInterval.getMilliseconds() > 0
+          ? reportInterval.getMilliseconds() : DEFAULT_REPORT_INTERVAL;
+      try {
+        scheduledReport = context.getScheduledExecutorService().scheduleWithFixedDelay(
+            report, period, period, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        addWarn("Cannot schedule reports of denied requests", e);
+      }
+    }
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    if (scheduledReport != null) {
+      scheduledReport.cancel(false);
+      scheduledReport = null;
+    }
+    states.clear();
+    super.stop();
+  }
+
+  /**
+   * Requests are denied or let through unchanged, never accepted.
+   */
+  @Override
+  public Level getLowestAcceptedLevel() {
+    return Level.OFF;
+  }
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level,
+      String format, Object[] params, Throwable t) {
+    if (!isStarted() || format == null || level == null) {
+      return FilterReply.NEUTRAL;
+    }
+    if (maxLevel != null && level.levelInt > maxLevel.levelInt) {
+      return FilterReply.NEUTRAL;
+    }
+    if (logger != null && level.levelInt < logger.getEffectiveLevel().levelInt) {
+      return FilterReply.NEUTRAL;
+    }
+    KeyState state = getState(buildKey(marker, logger, level, format));
+    if (admit(state)) {
+      return FilterReply.NEUTRAL;
+    }
+    state.denied.incrementAndGet();
+    deniedCount.incrementAndGet();
+    return FilterReply.DENY;
+  }
+
+  String buildKey(Marker marker, Logger logger, Level level, String format) {
+    String key = null;
+    if (byLogger) {
+      key = logger == null ? NO_VALUE : logger.getName();
+    }
+    if (byLevel) {
+      key = addPart(key, level.levelStr);
+    }
+    if (byMarker) {
+      key = addPart(key, marker == null ? NO_VALUE : marker.getName());
+    }
+    if (byMessage) {
+      key = addPart(key, format);
+    }
+    return key;
+  }
+
+  private static String addPart(String key, String part) {
+    return key == null ? part : key + '|' + part;
+  }
+
+  private KeyState getState(String key) {
+    KeyState state = states.get(key);
+    if (state != null) {
+      return state;
+    }
+    if (states.size() >= maxKeys) {
+      key = OTHER_KEYS;
+      state = states.get(key);
+      if (state != null) {
+        return state;
+      }
+    }
+    state = new KeyState(key, initialValue());
+    KeyState existing = states.putIfAbsent(key, state);
+    return existing == null ? state : existing;
+  }
+
+  /**
+   * Reports the requests denied since the previous report, unless reports
+   * are disabled, and forgets the keys which had none.
+   */
+  void report() {
+    boolean reporting = reportInterval.getMilliseconds() > 0;
+    for (Iterator<Map.Entry<String, KeyState>> it = states.entrySet().iterator(); it.hasNext(); ) {
+      KeyState state = it.next().getValue();
+      long denied = state.denied.getAndSet(0);
+      if (denied == 0) {
+        it.remove();
+      } else if (reporting) {
+        addWarn("Denied " + denied + " logging requests of [" + state.key + "] in the last "
+            + reportInterval);
+      }
+    }
+  }
+
+  /**
+   * @return the number of requests denied since this filter was created
+   */
+  public long getDeniedCount() {
+    return deniedCount.get();
+  }
+
+  public String getKeyBy() {
+    return keyBy;
+  }
+
+  /**
+   * The parts of a logging request which make its key, as a comma separated
+   * list of <code>logger</code>, <code>level</code>, <code>marker</code> and
+   * <code>message</code>. The default is <code>logger</code>.
+   *
+   * @param keyBy the parts of the key
+   */
+  public void setKeyBy(String keyBy) {
+    boolean logger = false, level = false, marker = false, message = false;
+    for (String part : keyBy.split(",")) {
+      part = part.trim();
+      if ("logger".equalsIgnoreCase(part)) {
+        logger = true;
+      } else if ("level".equalsIgnoreCase(part)) {
+        level = true;
+      } else if ("marker".equalsIgnoreCase(part)) {
+        marker = true;
+      } else if ("message".equalsIgnoreCase(part)) {
+        message = true;
+      } else {
+        addError("Unknown key part [" + part + "], expected logger, level, marker or message");
+        return;
+      }
+    }
+    this.byLogger = logger;
+    this.byLevel = level;
+    this.byMarker = marker;
+    this.byMessage = message;
+    this.keyBy = keyBy;
+  }
+
+  public Level getMaxLevel() {
+    return maxLevel;
+  }
+
+  /**
+   * Requests of a higher level are always let through. By default, all
+   * levels are throttled.
+   *
+   * @param maxLevel the highest level throttled
+   */
+  public void setMaxLevel(Level maxLevel) {
+    this.maxLevel = maxLevel;
+  }
+
+  public int getMaxKeys() {
+    return maxKeys;
+  }
+
+  /**
+   * The maximum number of keys tracked. Once reached, requests of new keys
+   * share a single counter until idle keys are forgotten.
+   *
+   * @param maxKeys the number of keys
+   */
+  public void setMaxKeys(int maxKeys) {
+    this.maxKeys = maxKeys;
+  }
+
+  public String getReportInterval() {
+    return reportInterval.toString();
+  }
+
+  /**
+   * How often denied requests are reported, 0 for never. Idle keys are
+   * forgotten at the same interval, or every {@value #DEFAULT_REPORT_INTERVAL}
+   * ms if reports are disabled.
+   *
+   * @param reportInterval the interval, e.g. "1 minute"
+   */
+  public void setReportInterval(String reportInterval) {
+    this.reportInterval = Duration.valueOf(reportInterval);
+  }
+
+  /**
+   * The state of a key: a counter whose meaning is up to the subclass, and
+   * the number of requests denied since the last report.
+   */
+  protected static class KeyState {
+    final String key;
+    final AtomicLong value;
+    final AtomicLong denied = new AtomicLong();
+
+    KeyState(String key, long initialValue) {
+      this.key = key;
+      this.value = new AtomicLong(initialValue);
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public AtomicLong getValue() {
+      return value;
+    }
+  }
+}
@@ -17,6 +17,7 @@ import org.slf4j.Marker;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.spi.LifeCycle;
@@ -53,8 +54,31 @@ public abstract class TurboFilter extends ContextAwareBase implements LifeCycle
   public abstract FilterReply decide(Marker marker, Logger logger,
       Level level, String format, Object[] params, Throwable t);
 
+  /**
+   * Returns a static bound on the requests this filter accepts: requests
+   * without a marker below the returned level are never accepted, whatever
+   * the MDC, the message or the logger. The logger skips the whole turbo
+   * filter chain for such requests when they are disabled by level, so the
+   * filter must not need to see them either.
+   *
+   * <p>The default, {@link Level#ALL}, makes no promise. A filter which never
+   * accepts requests without a marker returns {@link Level#OFF}.
+   *
+   * <p>The bound is read when the filter is added to the context or started.
+   * After reconfiguring a filter already in use, call
+   * {@link ch.qos.logback.classic.spi.TurboFilterList#updateLowestAcceptedLevel()}.
+   *
+   * @return the lowest level this filter may accept
+   */
+  public Level getLowestAcceptedLevel() {
+    return Level.ALL;
+  }
+
   public void start() {
     this.start = true;
+    if (context instanceof LoggerContext) {
+      ((LoggerContext) context).getTurboFilterList().updateLowestAcceptedLevel();
+    }
   }
 
   public boolean isStarted() {
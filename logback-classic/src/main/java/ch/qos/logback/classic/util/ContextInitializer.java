@@ -24,6 +24,7 @@ import ch.qos.logback.core.android.CommonPathUtil;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.status.InfoStatus;
 import ch.qos.logback.core.status.StatusManager;
+import ch.qos.logback.core.util.EnvUtil;
 import ch.qos.logback.core.util.Loader;
 import ch.qos.logback.core.util.OptionHelper;
 
@@ -41,6 +42,7 @@ public class ContextInitializer {
   final public static String  AUTOCONFIG_FILE        = "logback.xml";
   final public static String  CONFIG_FILE_PROPERTY   = "logback.configurationFile";
   final public static String  STATUS_LISTENER_CLASS  = "logback.statusListenerClass";
+  final public static String  CONFIG_CACHE_FILE      = "logback.xml.cache";
   final private static String ASSETS_DIR             = CommonPathUtil.getAssetsDirectoryPath();
 
   final ClassLoader classLoader;
@@ -56,7 +58,7 @@ public class ContextInitializer {
    * @return the file; or {@code null} if not found
    */
   private URL findConfigFileFromSystemProperties(boolean updateStatus) {
-    String logbackConfigFile = OptionHelper.getSystemProperty(CONFIG_FILE_PROPERTY);
+    String logbackConfigFile = OptionHelper.getSystemProperty(loggerContext, CONFIG_FILE_PROPERTY);
     if (logbackConfigFile != null) {
       URL result = null;
       try {
@@ -127,6 +129,7 @@ public class ContextInitializer {
 
     JoranConfigurator configurator = new JoranConfigurator();
     configurator.setContext(loggerContext);
+    configurator.setSaxEventCacheFile(findConfigCacheFile());
 
     // search system property
     if (!configured) {
@@ -147,6 +150,23 @@ public class ContextInitializer {
     }
   }
 
+  /**
+   * Finds the file caching the SAX events of the configuration, which lets
+   * later process starts skip XML parsing. Android points java.io.tmpdir to
+   * the application's cache directory.
+   * @return the file; or {@code null} if caching is not available
+   */
+  private File findConfigCacheFile() {
+    if (!EnvUtil.isAndroidOS()) {
+      return null;
+    }
+    String cacheDir = OptionHelper.getSystemProperty(loggerContext, "java.io.tmpdir");
+    if (cacheDir == null || cacheDir.length() == 0) {
+      return null;
+    }
+    return new File(cacheDir, CONFIG_CACHE_FILE);
+  }
+
   /**
    * Adds a status message for the result of the resource search
    */
@@ -22,7 +22,7 @@ import ch.qos.logback.core.util.OptionHelper;
 public class StatusListenerConfigHelper {
 
   static void installIfAsked(LoggerContext loggerContext) {
-    String slClass = OptionHelper.getSystemProperty(
+    String slClass = OptionHelper.getSystemProperty(loggerContext,
         ContextInitializer.STATUS_LISTENER_CLASS);
     if (!OptionHelper.isEmpty(slClass)) {
       addStatusListener(loggerContext, slClass);
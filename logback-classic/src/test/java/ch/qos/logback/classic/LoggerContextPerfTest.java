@@ -74,6 +74,29 @@ public class LoggerContextPerfTest {
     harness.printThroughput("getLogger performance: ", true);
   }
 
+  // loggers generated per class, as found in large applications
+  static int WIDE_TREE_SIZE = 20000;
+
+  @Test
+  public void wideLoggerTree() {
+    long start = System.nanoTime();
+    for (int i = 0; i < WIDE_TREE_SIZE; i++) {
+      loggerContext.getLogger("com.example.generated.Class" + i);
+    }
+    long creation = System.nanoTime() - start;
+
+    Logger packageRoot = loggerContext.getLogger("com.example");
+    start = System.nanoTime();
+    for (int i = 0; i < 100; i++) {
+      packageRoot.setLevel(i % 2 == 0 ? Level.WARN : Level.INFO);
+    }
+    long setLevel = (System.nanoTime() - start) / 100;
+
+    System.out.println("getLogger misses for " + WIDE_TREE_SIZE + " loggers: "
+        + creation / 1000000 + " ms");
+    System.out.println("setLevel on their package root: " + setLevel / 1000 + " us");
+  }
+
   private class GetLoggerRunnable extends RunnableWithCounterAndDone {
 
     final int burstLength = 3;
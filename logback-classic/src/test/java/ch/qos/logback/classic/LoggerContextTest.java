@@ -17,15 +17,27 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.turbo.NOPTurboFilter;
 import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.ErrorStatus;
+import ch.qos.logback.core.status.InfoStatus;
+import ch.qos.logback.core.status.OnConsoleStatusListener;
+import ch.qos.logback.core.status.StatusListener;
 import ch.qos.logback.core.status.StatusManager;
+import ch.qos.logback.core.status.StatusUtil;
 
 public class LoggerContextTest {
   LoggerContext lc;
@@ -247,4 +259,148 @@ public class LoggerContextTest {
 
   }
 
-}
\ No newline at end of file
+  @Test
+  public void manifestPropertiesAreReadAgainAfterReset() {
+    String packageName = lc.getProperty(CoreConstants.PACKAGE_NAME_KEY);
+    assertNotNull(packageName);
+    lc.reset();
+    assertEquals(packageName, lc.getProperty(CoreConstants.PACKAGE_NAME_KEY));
+  }
+
+  @Test
+  public void concurrentGetLoggerCreatesEachLoggerOnce() throws InterruptedException {
+    final int threadCount = 8;
+    final int loggerCount = 500;
+    final Logger[][] results = new Logger[threadCount][loggerCount];
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int index = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < loggerCount; i++) {
+            results[index][i] = lc.getLogger("com.example.p" + (i % 7) + ".C" + i);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int i = 0; i < loggerCount; i++) {
+      for (int t = 1; t < threadCount; t++) {
+        assertTrue(results[0][i] == results[t][i]);
+      }
+    }
+    // root, com, com.example, 7 packages and the loggers
+    assertEquals(1 + 2 + 7 + loggerCount, lc.getLoggerList().size());
+    assertEquals(1 + 2 + 7 + loggerCount, lc.size());
+  }
+
+  @Test
+  public void levelChangeReachesDeepDescendants() {
+    Logger deep = lc.getLogger("a.b.c.d.e.f.g.h");
+    Logger sibling = lc.getLogger("a.b.x");
+    Logger explicit = lc.getLogger("a.b.c.d");
+    explicit.setLevel(Level.ERROR);
+
+    lc.getLogger("a").setLevel(Level.WARN);
+    assertEquals(Level.WARN, sibling.getEffectiveLevel());
+    assertEquals(Level.ERROR, deep.getEffectiveLevel());
+
+    explicit.setLevel(null);
+    assertEquals(Level.WARN, deep.getEffectiveLevel());
+
+    // loggers created later inherit the current level
+    assertEquals(Level.WARN, lc.getLogger("a.b.c.d.e.y").getEffectiveLevel());
+  }
+
+  @Test
+  public void resetRestoresLevelsOfAllLoggers() {
+    Logger a = lc.getLogger("a");
+    Logger deep = lc.getLogger("a.b.c.d.e");
+    a.setLevel(Level.ERROR);
+    deep.setAdditive(false);
+    lc.reset();
+    assertNull(a.getLevel());
+    assertEquals(Level.DEBUG, deep.getEffectiveLevel());
+    assertTrue(deep.isAdditive());
+  }
+
+  @Test(timeout = 10000L)
+  public void installLosesNoEventLoggedMeanwhile() throws InterruptedException {
+    ListAppender<ILoggingEvent> previous = startedListAppender(lc);
+    lc.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(previous);
+    final Logger logger = lc.getLogger("a.b");
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicInteger logged = new AtomicInteger();
+    final CountDownLatch logging = new CountDownLatch(4);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          logging.countDown();
+          while (!done.get()) {
+            logger.info("hello");
+            logged.incrementAndGet();
+          }
+        }
+      });
+      threads[i].start();
+    }
+    logging.await();
+
+    StagedLoggerContext staged = new StagedLoggerContext(lc);
+    ListAppender<ILoggingEvent> next = startedListAppender(staged);
+    staged.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(next);
+    staged.install();
+    assertTrue(previous.isStarted());
+    while (next.list.size() < 100) {
+      Thread.sleep(1);
+    }
+    done.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(logged.get(), previous.list.size() + next.list.size());
+    assertEquals(0, new StatusUtil(lc).matchCount("non started"));
+    while (previous.isStarted()) {
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  public void stagedContextKeepsItsOwnStatuses() {
+    StatusManager sm = lc.getStatusManager();
+    StatusListener listener = new OnConsoleStatusListener();
+    sm.add(listener);
+    StagedLoggerContext staged = new StagedLoggerContext(lc);
+    long threshold = System.currentTimeMillis();
+    sm.add(new ErrorStatus("failure of a live appender", this));
+    staged.getStatusManager().add(new InfoStatus("configured", this));
+
+    assertTrue(new StatusUtil(staged).isErrorFree(threshold));
+    assertTrue(sm.getCopyOfStatusListenerList().contains(listener));
+
+    staged.install();
+    assertTrue(new StatusUtil(lc).containsMatch("configured"));
+    assertSame(sm, staged.getStatusManager());
+    assertFalse(sm.getCopyOfStatusListenerList().contains(listener));
+  }
+
+  @Test
+  public void discardedContextPassesItsStatusesOn() {
+    StagedLoggerContext staged = new StagedLoggerContext(lc);
+    staged.getStatusManager().add(new ErrorStatus("broken configuration", this));
+    staged.discard();
+    assertTrue(new StatusUtil(lc).containsMatch("broken configuration"));
+  }
+
+  private ListAppender<ILoggingEvent> startedListAppender(LoggerContext context) {
+    ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    appender.setContext(context);
+    appender.start();
+    return appender;
+  }
+}
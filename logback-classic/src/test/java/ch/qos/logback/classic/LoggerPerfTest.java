@@ -22,9 +22,12 @@ import org.junit.Test;
 import org.slf4j.helpers.BogoPerf;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.DynamicThresholdFilter;
+import ch.qos.logback.classic.turbo.MarkerFilter;
 import ch.qos.logback.classic.turbo.NOPTurboFilter;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.helpers.NOPAppender;
+import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.util.CoreTestConstants;
 
 @Ignore
@@ -69,6 +72,42 @@ public class LoggerPerfTest {
     return (System.nanoTime() - start) / len;
   }
 
+  // ===========================================================================
+  @Test
+  public void durationOfDisabledLogsWithBoundedFilters() {
+    double avg = computeDurationOfDisabledLogsWithBoundedFilters(NORMAL_RUN_LENGTH);
+    System.out.println("durationOfDisabledLogsWithBoundedFilters=" + avg);
+    // without advertised bounds, each call would walk both filters and read
+    // the MDC
+    long referencePerf = 15;
+
+    BogoPerf.assertDuration(avg, referencePerf, CoreTestConstants.REFERENCE_BIPS);
+  }
+
+  double computeDurationOfDisabledLogsWithBoundedFilters(long len) {
+    DynamicThresholdFilter dtf = new DynamicThresholdFilter();
+    dtf.setKey("userId");
+    dtf.setDefaultThreshold(Level.WARN);
+    dtf.setOnHigherOrEqual(FilterReply.ACCEPT);
+    dtf.setOnLower(FilterReply.NEUTRAL);
+    dtf.start();
+    lc.addTurboFilter(dtf);
+    MarkerFilter mf = new MarkerFilter();
+    mf.setMarker("AUDIT");
+    mf.setOnMatch("ACCEPT");
+    mf.start();
+    lc.addTurboFilter(mf);
+    lbLogger.setLevel(Level.INFO);
+    for (long i = 0; i < len; i++)
+      logger.debug("Toto");
+
+    long start = System.nanoTime();
+    for (long i = 0; i < len; i++)
+      logger.debug("Toto");
+
+    return (System.nanoTime() - start) / len;
+  }
+
   // ===========================================================================
   @Test
   public void durationOfIsDebugEnabled() {
@@ -23,6 +23,10 @@ import org.junit.Test;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.turbo.DynamicThresholdFilter;
+import ch.qos.logback.classic.turbo.MDCValueLevelPair;
 import ch.qos.logback.classic.turbo.MarkerFilter;
 import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.spi.FilterReply;
@@ -164,6 +168,66 @@ public class TurboFilteringInLoggerTest  {
     assertEquals(0, context.getTurboFilterList().size());
   }
 
+
+  @Test
+  public void filtersAreSkippedForRequestsTheyCannotEnable() {
+    CountingFilter filter = new CountingFilter(Level.WARN);
+    filter.start();
+    context.addTurboFilter(filter);
+    logger.setLevel(Level.ERROR);
+
+    logger.debug("x");
+    assertFalse(logger.isInfoEnabled());
+    assertEquals(0, filter.count);
+
+    // the filter may enable these
+    assertTrue(logger.isWarnEnabled());
+    assertTrue(logger.isDebugEnabled(blueMarker));
+    // and may deny enabled requests
+    logger.error("x");
+    assertEquals(3, filter.count);
+  }
+
+  @Test
+  public void lowestAcceptedLevelFollowsTheFilterList() {
+    assertEquals(Level.OFF_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+    CountingFilter warn = new CountingFilter(Level.WARN);
+    CountingFilter info = new CountingFilter(Level.INFO);
+    context.addTurboFilter(warn);
+    context.addTurboFilter(info);
+    assertEquals(Level.INFO_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+    context.getTurboFilterList().remove(info);
+    assertEquals(Level.WARN_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+    addYesFilter();
+    assertEquals(Level.ALL_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+    context.reset();
+    assertEquals(Level.OFF_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+  }
+
+  @Test
+  public void dynamicThresholdStillEnablesLowerLevels() {
+    DynamicThresholdFilter filter = new DynamicThresholdFilter();
+    filter.setKey("user");
+    filter.setOnHigherOrEqual(FilterReply.ACCEPT);
+    filter.setOnLower(FilterReply.NEUTRAL);
+    MDCValueLevelPair pair = new MDCValueLevelPair();
+    pair.setValue("alice");
+    pair.setLevel(Level.DEBUG);
+    filter.addMDCValueLevelPair(pair);
+    filter.start();
+    context.addTurboFilter(filter);
+    logger.setLevel(Level.ERROR);
+
+    assertEquals(Level.DEBUG_INT, context.getTurboFilterList().getLowestAcceptedLevelInt());
+    MDC.put("user", "alice");
+    try {
+      assertTrue(logger.isDebugEnabled());
+      assertFalse(logger.isTraceEnabled());
+    } finally {
+      MDC.remove("user");
+    }
+    assertFalse(logger.isDebugEnabled());
+  }
 }
 
 class YesFilter extends TurboFilter {
@@ -180,4 +244,27 @@ class NoFilter extends TurboFilter {
       String format, Object[] params, Throwable t) {
     return FilterReply.DENY;
   }
-}
\ No newline at end of file
+}
+class CountingFilter extends TurboFilter {
+  final Level lowestAcceptedLevel;
+  int count;
+
+  CountingFilter(Level lowestAcceptedLevel) {
+    this.lowestAcceptedLevel = lowestAcceptedLevel;
+  }
+
+  @Override
+  public Level getLowestAcceptedLevel() {
+    return lowestAcceptedLevel;
+  }
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level,
+      String format, Object[] params, Throwable t) {
+    count++;
+    if (marker != null || level.isGreaterOrEqual(lowestAcceptedLevel)) {
+      return FilterReply.ACCEPT;
+    }
+    return FilterReply.NEUTRAL;
+  }
+}
@@ -181,4 +181,98 @@ public class LogcatAppenderTest {
     context.getLogger(LOGGER_NAME).debug("msg", new NullPointerException());
     assertLogcatContains(Log.DEBUG, NullPointerException.class.getName());
   }
+
+  private LogcatAppender addCheckingLogcatAppenderToRoot(String tagPattern) {
+    root.detachAndStopAllAppenders();
+    logcatAppender.stop();
+    logcatAppender.setCheckLoggable(true);
+    logcatAppender.getTagEncoder().setPattern(tagPattern);
+    logcatAppender.start();
+    root.addAppender(logcatAppender);
+    ShadowLog.reset();
+    return logcatAppender;
+  }
+
+  @Test
+  public void rejectedLevelIsNotLogged() {
+    addCheckingLogcatAppenderToRoot("%logger{0}");
+    ShadowLog.setLoggable("Quiet", Log.WARN);
+
+    Logger logger = context.getLogger("a.b.Quiet");
+    logger.debug("dropped");
+    logger.warn("kept");
+
+    List<ShadowLog.LogItem> logs = ShadowLog.getLogsForTag("Quiet");
+    assertThat(logs.size(), is(1));
+    assertThat(logs.get(0).msg, is("kept"));
+  }
+
+  @Test
+  public void loggableAnswersAreReusedWithinInterval() {
+    addCheckingLogcatAppenderToRoot("%logger{0}");
+    ShadowLog.setLoggable("Cached", Log.WARN);
+    Logger logger = context.getLogger("a.b.Cached");
+    logger.debug("first");
+
+    ShadowLog.setLoggable("Cached", Log.DEBUG);
+    logger.debug("second");
+    assertThat(ShadowLog.getLogsForTag("Cached"), is(nullValue()));
+
+    logcatAppender.setLoggableCacheInterval("0 seconds");
+    logger.debug("third");
+    List<ShadowLog.LogItem> logs = ShadowLog.getLogsForTag("Cached");
+    assertThat(logs.size(), is(1));
+    assertThat(logs.get(0).msg, is("third"));
+  }
+
+  @Test
+  public void eventDependentTagsAreNotCachedPerLogger() throws InterruptedException {
+    addCheckingLogcatAppenderToRoot("T-%thread");
+    final Logger logger = context.getLogger("a.b.Threads");
+    Thread thread = new Thread("other") {
+      public void run() {
+        logger.info("from other");
+      }
+    };
+    Thread.currentThread().setName("main");
+    logger.info("from main");
+    thread.start();
+    thread.join();
+
+    assertThat(ShadowLog.getLogsForTag("T-main").size(), is(1));
+    assertThat(ShadowLog.getLogsForTag("T-other").size(), is(1));
+  }
+
+  @Test
+  public void longMessagesAreSplitAtLineBreaks() {
+    addCheckingLogcatAppenderToRoot("Chunks");
+    logcatAppender.setMaxMessageLength(10);
+
+    context.getLogger("a.b.Chunks").error("line1\nline2\nline3-is-long\nend");
+
+    List<ShadowLog.LogItem> logs = ShadowLog.getLogsForTag("Chunks");
+    assertThat(logs.size(), is(4));
+    assertThat(logs.get(0).msg, is("line1"));
+    assertThat(logs.get(1).msg, is("line2"));
+    assertThat(logs.get(2).msg, is("line3-is-l"));
+    assertThat(logs.get(3).msg, is("ong\nend"));
+    for (ShadowLog.LogItem item : logs) {
+      assertThat(item.type, is(Log.ERROR));
+    }
+  }
+
+  @Test
+  public void chunksDoNotSplitMultiByteCharacters() {
+    addCheckingLogcatAppenderToRoot("Utf8");
+    logcatAppender.setMaxMessageLength(5);
+
+    // 2 bytes each in UTF-8
+    context.getLogger("a.b.Utf8").info("\u00e9\u00e9\u00e9\u00e9\u00e9");
+
+    List<ShadowLog.LogItem> logs = ShadowLog.getLogsForTag("Utf8");
+    assertThat(logs.size(), is(3));
+    assertThat(logs.get(0).msg, is("\u00e9\u00e9"));
+    assertThat(logs.get(1).msg, is("\u00e9\u00e9"));
+    assertThat(logs.get(2).msg, is("\u00e9"));
+  }
 }
@@ -14,6 +14,7 @@
 package ch.qos.logback.classic.android;
 
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 
 import org.junit.After;
@@ -29,9 +30,14 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.status.ErrorStatus;
@@ -41,6 +47,7 @@ import ch.qos.logback.core.util.Duration;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
@@ -232,6 +239,91 @@ public class SQLiteAppenderTest {
     assertThat(appender.getMaxHistoryMs(), is(0L));
   }
 
+  @Test
+  public void schemaIndexesTimestampAndLevel() {
+    appender.start();
+    appender.stop();
+
+    SQLiteDatabase db = SQLiteDatabase.openDatabase(TEST_SQLITE_FILENAME, null, SQLiteDatabase.OPEN_READONLY);
+    Cursor c = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'logging_event';", null);
+    List<String> indexNames = new ArrayList<String>();
+    while (c.moveToNext()) {
+      indexNames.add(c.getString(0));
+    }
+    c.close();
+    db.close();
+    assertThat(indexNames, hasItems("logging_event_timestmp_idx", "logging_event_level_string_idx"));
+  }
+
+  @Test
+  public void maxRowsKeepsNewestEvents() throws InterruptedException {
+    appender.setMaxRows(50);
+    appender.setCleanupChunkSize(10);
+    addAppenderToContext(null);
+    addLogEvents(200, NO_EXPIRY);
+
+    SQLiteDatabase db = SQLiteDatabase.openDatabase(TEST_SQLITE_FILENAME, null, SQLiteDatabase.OPEN_READONLY);
+    Cursor c = db.rawQuery("SELECT formatted_message FROM logging_event ORDER BY event_id;", null);
+    assertThat(c.getCount(), is(50));
+    c.moveToFirst();
+    assertThat(c.getString(0), is("i=150"));
+    c.close();
+    db.close();
+  }
+
+  @Test
+  public void expiredLogsAreDeletedInChunks() {
+    final long expiredTimestamp = System.currentTimeMillis() - 2 * 60 * 60 * 1000;
+    appender.start();
+    for (int i = 0; i < 25; i++) {
+      appender.doAppend(newEventWithProperty(expiredTimestamp));
+    }
+    appender.stop();
+
+    appender = new SQLiteAppender();
+    appender.setFilename(TEST_SQLITE_FILENAME);
+    appender.setContext(context);
+    appender.setMaxHistory("1 hour");
+    appender.setCleanupChunkSize(10);
+    appender.start();
+    assertThat(countRows("logging_event"), is(15));
+
+    appender.doAppend(newEventWithProperty(System.currentTimeMillis()));
+    assertThat(countRows("logging_event"), is(5 + 1));
+    appender.doAppend(newEventWithProperty(System.currentTimeMillis()));
+    assertThat(countRows("logging_event"), is(2));
+    // no property left behind by the deleted events
+    assertThat(countRows("logging_event_property WHERE event_id NOT IN (SELECT event_id FROM logging_event)"), is(0));
+  }
+
+  @Test
+  public void incrementalVacuumSwitchesAutoVacuumMode() {
+    appender.setIncrementalVacuum(true);
+    appender.start();
+    appender.stop();
+
+    SQLiteDatabase db = SQLiteDatabase.openDatabase(TEST_SQLITE_FILENAME, null, SQLiteDatabase.OPEN_READONLY);
+    assertThat(DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null), is(2L));
+    db.close();
+  }
+
+  private LoggingEvent newEventWithProperty(long timestamp) {
+    ch.qos.logback.classic.Logger logger = context.getLogger(SQLiteAppenderTest.class);
+    LoggingEvent event = new LoggingEvent(SQLiteAppenderTest.class.getName(), logger, Level.INFO, "expiring", null, null);
+    event.setTimeStamp(timestamp);
+    event.setMDCPropertyMap(Collections.singletonMap("key", "value"));
+    return event;
+  }
+
+  private int countRows(String tableName) {
+    SQLiteDatabase db = SQLiteDatabase.openDatabase(TEST_SQLITE_FILENAME, null, SQLiteDatabase.OPEN_READONLY);
+    try {
+      return (int) DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + tableName, null);
+    } finally {
+      db.close();
+    }
+  }
+
   private void configureLogbackByString(String xml) throws JoranException {
     JoranConfigurator config = new JoranConfigurator();
     config.setContext(context);
@@ -259,8 +351,10 @@ public class SQLiteAppenderTest {
 
   /** Gets a SQLiteAppender with a no-op log-cleaner mock */
   private void addAppenderToContext(String maxHistory) {
-    appender.setMaxHistory(maxHistory);
-    appender.setLogCleaner(logCleaner);
+    if (maxHistory != null) {
+      appender.setMaxHistory(maxHistory);
+      appender.setLogCleaner(logCleaner);
+    }
     appender.start();
     ch.qos.logback.classic.Logger testRoot = context.getLogger(SQLiteAppenderTest.class);
     testRoot.addAppender(appender);
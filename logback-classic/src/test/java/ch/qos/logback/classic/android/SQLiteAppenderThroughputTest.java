@@ -0,0 +1,170 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.android;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Compares the number of events per second written by SQLiteAppender with
+ * one transaction per event and with batched transactions.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SQLiteAppenderThroughputTest {
+
+  private static final String TEST_SQLITE_FILENAME = CoreTestConstants.OUTPUT_DIR_PREFIX + "SQLiteAppenderThroughputTest/logback.db";
+  private static final int EVENT_COUNT = 2000;
+
+  private LoggerContext context;
+  private SQLiteAppender appender;
+
+  @Before
+  public void setup() {
+    context = new LoggerContext();
+    context.putProperty(CoreConstants.PACKAGE_NAME_KEY, "com.example");
+    appender = new SQLiteAppender();
+    appender.setFilename(TEST_SQLITE_FILENAME);
+    appender.setContext(context);
+  }
+
+  @After
+  public void teardown() {
+    context.stop();
+    new File(TEST_SQLITE_FILENAME).delete();
+    new File(TEST_SQLITE_FILENAME + "-wal").delete();
+    new File(TEST_SQLITE_FILENAME + "-shm").delete();
+  }
+
+  @Test
+  public void unbatchedThroughput() {
+    double eventsPerSecond = logEvents();
+    System.out.println("SQLiteAppender, one transaction per event: " + (long) eventsPerSecond + " events/s");
+    assertThat(getRowCount(), is(EVENT_COUNT));
+  }
+
+  @Test
+  public void batchedThroughput() {
+    appender.setBatchSize(100);
+    double eventsPerSecond = logEvents();
+    System.out.println("SQLiteAppender, batches of 100 events: " + (long) eventsPerSecond + " events/s");
+    assertThat(getRowCount(), is(EVENT_COUNT));
+  }
+
+  @Test
+  public void partialBatchIsWrittenAfterFlushInterval() throws InterruptedException {
+    appender.setBatchSize(100);
+    appender.setBatchFlushInterval("100 milli");
+    appender.start();
+    Logger logger = context.getLogger(SQLiteAppenderThroughputTest.class);
+    logger.addAppender(appender);
+
+    logger.info("only one event");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (getRowCount() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertThat(getRowCount(), is(1));
+    appender.stop();
+  }
+
+  @Test
+  public void failedEventInBatchLeavesNoRows() {
+    appender.setBatchSize(10);
+    appender.start();
+    Logger logger = context.getLogger(SQLiteAppenderThroughputTest.class);
+
+    appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.INFO, "before", null, null));
+    // the event row and the first exception row are inserted before this fails
+    final IThrowableProxy failingProxy = new ThrowableProxy(new Exception("failing")) {
+      @Override
+      public int getCommonFrames() {
+        throw new IllegalStateException("simulated failure");
+      }
+    };
+    appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.ERROR, "failing", null, null) {
+      @Override
+      public IThrowableProxy getThrowableProxy() {
+        return failingProxy;
+      }
+    });
+    appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.INFO, "after", null, null));
+    appender.stop();
+
+    assertThat(getRowCount(), is(2));
+    assertThat(count("SELECT event_id FROM logging_event_exception;"), is(0));
+  }
+
+  @Test
+  public void nonPositiveBatchSizeIsRejected() {
+    appender.setBatchSize(5);
+    appender.setBatchSize(0);
+    assertThat(appender.getBatchSize(), is(5));
+  }
+
+  /**
+   * Logs EVENT_COUNT events, stops the appender so that all of them are
+   * written, and returns the number of events written per second.
+   */
+  private double logEvents() {
+    appender.start();
+    Logger logger = context.getLogger(SQLiteAppenderThroughputTest.class);
+    logger.addAppender(appender);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      logger.info("i={}", i);
+    }
+    appender.stop();
+    long elapsedNanos = System.nanoTime() - start;
+    return EVENT_COUNT * 1e9 / elapsedNanos;
+  }
+
+  private int getRowCount() {
+    return count("SELECT event_id FROM logging_event;");
+  }
+
+  private int count(String query) {
+    SQLiteDatabase db = SQLiteDatabase.openDatabase(TEST_SQLITE_FILENAME, null, SQLiteDatabase.OPEN_READONLY);
+    try {
+      Cursor c = db.rawQuery(query, null);
+      try {
+        return c.getCount();
+      } finally {
+        c.close();
+      }
+    } finally {
+      db.close();
+    }
+  }
+}
@@ -39,6 +39,7 @@ import ch.qos.logback.classic.turbo.NOPTurboFilter;
 import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.ConsoleAppender;
 import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.LazyStartAppender;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.read.ListAppender;
@@ -443,4 +444,48 @@ public class JoranConfiguratorTest {
 
     checker.assertIsErrorFree();
   }
+
+  @Test
+  public void cachedSaxEventsAreReused() throws JoranException {
+    File cacheFile = new File(ClassicTestConstants.OUTPUT_DIR_PREFIX + "logback-" + diff + ".xml.cache");
+    String configFileAsStr = ClassicTestConstants.JORAN_INPUT_PREFIX + "simpleLevel.xml";
+
+    JoranConfigurator jc = new JoranConfigurator();
+    jc.setContext(loggerContext);
+    jc.setSaxEventCacheFile(cacheFile);
+    jc.doConfigure(configFileAsStr);
+    assertTrue(cacheFile.exists());
+
+    LoggerContext secondContext = new LoggerContext();
+    JoranConfigurator secondConfigurator = new JoranConfigurator();
+    secondConfigurator.setContext(secondContext);
+    secondConfigurator.setSaxEventCacheFile(cacheFile);
+    secondConfigurator.doConfigure(configFileAsStr);
+
+    StatusChecker secondChecker = new StatusChecker(secondContext);
+    secondChecker.assertIsErrorFree();
+    secondChecker.assertContainsMatch(Status.INFO, "Using SAX events cached in");
+    assertEquals(Level.INFO, secondContext.getLogger("ch.qos.logback.classic.joran").getLevel());
+    assertNotNull(secondContext.getLogger(Logger.ROOT_LOGGER_NAME).getAppender("LIST"));
+  }
+
+  @Test(timeout = 5000)
+  public void lazyStartDefersAppenderStart() throws JoranException, InterruptedException {
+    configure(ClassicTestConstants.JORAN_INPUT_PREFIX + "lazyStart.xml");
+    checker.assertIsErrorFree();
+
+    LazyStartAppender<ILoggingEvent> lazyStartAppender =
+        (LazyStartAppender<ILoggingEvent>) root.getAppender("LIST");
+    ListAppender<ILoggingEvent> listAppender = (ListAppender<ILoggingEvent>) lazyStartAppender.getAppender();
+    assertFalse(listAppender.isStarted());
+    assertTrue(root.getAppender("EAGER") instanceof ListAppender);
+
+    logger.debug("hello");
+    while (!lazyStartAppender.isAppenderStartCompleted()) {
+      Thread.sleep(10);
+    }
+    assertTrue(listAppender.isStarted());
+    assertEquals(1, listAppender.list.size());
+    assertEquals("hello", listAppender.list.get(0).getMessage());
+  }
 }
@@ -20,6 +20,7 @@ import ch.qos.logback.classic.PatternLayout;
 import ch.qos.logback.classic.html.HTMLLayout;
 import ch.qos.logback.classic.html.XHTMLEntityResolver;
 import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.sift.MDCBasedDiscriminator;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.joran.spi.JoranException;
@@ -372,4 +373,69 @@ public class SMTPAppender_GreenTest {
     assertEquals(1, mma.length);
     assertEquals(line1, mma[0].getSubject());
   }
+
+  @Test
+  public void buffersTriggeredWithinTheWindowAreSentTogether() throws Exception {
+    String subject = "coalesced";
+    buildSMTPAppender(subject, ASYNCHRONOUS);
+    smtpAppender.setLayout(buildPatternLayout("%msg%n"));
+    smtpAppender.setCoalescingWindow("300 milliseconds");
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+    logger.error("error one");
+    logger.error("error two");
+    logger.error("error three");
+
+    MimeMultipart mp = verifyAndExtractMimeMultipart(subject);
+    String body = GreenMailUtil.getBody(mp.getBodyPart(0));
+    assertTrue(body, body.contains("error one"));
+    assertTrue(body, body.contains("error three"));
+    assertEquals(2, smtpAppender.getCoalescedCount());
+  }
+
+  @Test
+  public void buffersAreDroppedWhenTheSendQueueIsFull() throws Exception {
+    String subject = "dropped";
+    buildSMTPAppender(subject, ASYNCHRONOUS);
+    smtpAppender.setLayout(buildPatternLayout("%msg%n"));
+    smtpAppender.setCoalescingWindow("300 milliseconds");
+    smtpAppender.setSendQueueSize(1);
+    MDCBasedDiscriminator discriminator = new MDCBasedDiscriminator();
+    discriminator.setKey("user");
+    discriminator.setDefaultValue("none");
+    discriminator.start();
+    smtpAppender.setDiscriminator(discriminator);
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+    MDC.put("user", "a");
+    logger.error("error of a");
+    MDC.put("user", "b");
+    logger.error("error of b");
+    MDC.clear();
+
+    MimeMultipart mp = verifyAndExtractMimeMultipart(subject);
+    String body = GreenMailUtil.getBody(mp.getBodyPart(0));
+    assertTrue(body, body.contains("error of a"));
+    assertEquals(1, smtpAppender.getDroppedCount());
+  }
+
+  @Test
+  public void queuedBuffersAreSentOnStopOnceExecutorsAreShutDown() throws Exception {
+    String subject = "rejected";
+    buildSMTPAppender(subject, ASYNCHRONOUS);
+    smtpAppender.setLayout(buildPatternLayout("%msg%n"));
+    smtpAppender.setCoalescingWindow("1 minute");
+    smtpAppender.start();
+    logger.addAppender(smtpAppender);
+    loggerContext.getScheduledExecutorService().shutdownNow();
+    logger.error("error one");
+    logger.error("error two");
+    assertEquals(0, greenMailServer.getReceivedMessages().length);
+
+    smtpAppender.stop();
+    MimeMultipart mp = verifyAndExtractMimeMultipart(subject);
+    String body = GreenMailUtil.getBody(mp.getBodyPart(0));
+    assertTrue(body, body.contains("error one"));
+    assertTrue(body, body.contains("error two"));
+  }
 }
@@ -17,6 +17,11 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +36,7 @@ import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.classic.net.mock.MockSyslogServer;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.net.server.ServerSocketUtil;
 import ch.qos.logback.core.net.SyslogConstants;
 import ch.qos.logback.core.recovery.RecoveryCoordinator;
 import ch.qos.logback.core.testUtil.RandomUtil;
@@ -263,6 +269,94 @@ public class SyslogAppenderTest {
     assertEquals(1, mockServer.getMessageList().size());
   }
 
+  @Test
+  public void tcpMessagesAreOctetCounted() throws Exception {
+    ServerSocket serverSocket = ServerSocketUtil.createServerSocket();
+    try {
+      configureTcp(serverSocket.getLocalPort());
+      sa.start();
+      logger.debug("hello");
+      logger.debug("world");
+
+      Socket socket = serverSocket.accept();
+      socket.setSoTimeout(8000);
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      String expectedPrefix = "<\\d{2}>\\w{3} \\d{2} \\d{2}(:\\d{2}){2} [\\w.-]* ";
+      checkRegexMatch(readFrame(in), expectedPrefix + "\\[.*\\] " + loggerName + " hello");
+      checkRegexMatch(readFrame(in), expectedPrefix + "\\[.*\\] " + loggerName + " world");
+      sa.stop();
+      socket.close();
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  @Test
+  public void queuedEventsAreSentInOrder() throws Exception {
+    ServerSocket serverSocket = ServerSocketUtil.createServerSocket();
+    try {
+      configureTcp(serverSocket.getLocalPort());
+      sa.setQueueSize(1000);
+      sa.setBatchSize(10);
+      sa.start();
+      for (int i = 0; i < 100; i++) {
+        logger.debug("i=" + i);
+      }
+
+      Socket socket = serverSocket.accept();
+      socket.setSoTimeout(8000);
+      DataInputStream in = new DataInputStream(socket.getInputStream());
+      for (int i = 0; i < 100; i++) {
+        assertTrue(readFrame(in).endsWith(" i=" + i));
+      }
+      sa.stop();
+      assertEquals(0, sa.getDroppedCount());
+      socket.close();
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  @Test
+  public void stackTraceLinesArePackedIntoOneDatagram() throws InterruptedException {
+    sa.setPackMessages(true);
+    setMockServerAndConfigure(1);
+
+    Exception ex = new Exception("just testing");
+    logger.debug("hello", ex);
+    mockServer.join(8000);
+    assertTrue(mockServer.isFinished());
+
+    String[] lines = mockServer.getMessageList().get(0).split("\n");
+    assertTrue(lines.length > 2);
+    assertTrue(lines[0].endsWith(" hello"));
+    assertTrue(lines[1].contains(ex.getClass().getName()));
+    assertTrue(lines[2].contains("foo " + CoreConstants.TAB + "at ch.qos"));
+  }
+
+  private void configureTcp(int port) {
+    sa.setSyslogHost("localhost");
+    sa.setFacility("MAIL");
+    sa.setPort(port);
+    sa.setTransport("tcp");
+    sa.setSuffixPattern("[%thread] %logger %msg");
+    logger.addAppender(sa);
+  }
+
+  private static String readFrame(DataInputStream in) throws IOException {
+    int length = 0;
+    int b;
+    while ((b = in.read()) != ' ') {
+      if (b < '0' || b > '9') {
+        throw new IOException("Unexpected octet count character " + b);
+      }
+      length = length * 10 + (b - '0');
+    }
+    byte[] frame = new byte[length];
+    in.readFully(frame);
+    return new String(frame);
+  }
+
   class SyslogAppenderFriend extends SyslogAppender {
     public boolean isInitialized() {
       return this.sos != null;
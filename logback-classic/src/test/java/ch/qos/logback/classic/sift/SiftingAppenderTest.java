@@ -32,12 +32,14 @@ import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileHandlePool;
 import ch.qos.logback.core.helpers.NOPAppender;
 import ch.qos.logback.core.joran.spi.JoranException;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.sift.AppenderTracker;
 import ch.qos.logback.core.spi.AbstractComponentTracker;
 import ch.qos.logback.core.spi.ComponentTracker;
+import ch.qos.logback.core.util.CoreTestConstants;
 import ch.qos.logback.core.status.ErrorStatus;
 import ch.qos.logback.core.status.StatusChecker;
 import ch.qos.logback.core.testUtil.RandomUtil;
@@ -290,4 +292,60 @@ public class SiftingAppenderTest {
     statusChecker.assertIsErrorFree();
   }
 
+  @Test
+  public void concurrentModeSiftsEventsFromSeveralThreads() throws JoranException, InterruptedException {
+    configure(SIFT_FOLDER_PREFIX + "concurrent.xml");
+    final int threadCount = 8;
+    final int eventCount = 500;
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final String userid = "user-" + i;
+      threads[i] = new Thread() {
+        public void run() {
+          MDC.put("userid", userid);
+          for (int j = 0; j < eventCount; j++) {
+            logger.debug("event " + j);
+          }
+          MDC.remove("userid");
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    SiftingAppender sa = (SiftingAppender) root.getAppender("SIFT");
+    assertTrue(sa.isConcurrent());
+    AppenderTracker<ILoggingEvent> tracker = sa.getAppenderTracker();
+    assertEquals(threadCount, tracker.getComponentCount());
+    for (int i = 0; i < threadCount; i++) {
+      ListAppender<ILoggingEvent> listAppender = (ListAppender<ILoggingEvent>) tracker.find("user-" + i);
+      assertEquals(eventCount, listAppender.list.size());
+    }
+    statusChecker.assertIsErrorFree();
+  }
+
+  @Test
+  public void maxOpenFilesPropertyShouldBeHonored() throws JoranException {
+    String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + "sift-" + diff;
+    loggerContext.putProperty("outputDir", outputDir);
+    configure(SIFT_FOLDER_PREFIX + "maxOpenFiles.xml");
+    SiftingAppender sa = (SiftingAppender) root.getAppender("SIFT");
+    FileHandlePool pool = sa.getFileHandlePool();
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < 4; i++) {
+        MDC.put("userid", "user" + i);
+        logger.debug("round " + round);
+        assertTrue(pool.getOpenFileCount() <= 2);
+      }
+    }
+    MDC.remove("userid");
+
+    assertEquals(4, (int) pool.getReopenCount());
+    assertEquals(6, (int) pool.getEvictionCount());
+    assertEquals(4, sa.getAppenderTracker().getComponentCount());
+    statusChecker.assertIsErrorFree();
+  }
+
 }
@@ -0,0 +1,77 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Compares formatting typical messages of two to four arguments with
+ * {@link MessageFormatter} and with cached {@link MessageTemplate}s.
+ */
+@Ignore
+public class MessageTemplatePerfTest {
+
+  static final int RUN_LENGTH = 1000 * 1000;
+
+  static final String[] PATTERNS = {
+      "User {} logged in from {}",
+      "Request {} took {} ms, status {}",
+      "Cache {}: {} hits, {} misses, {} evictions"
+  };
+
+  static final Object[][] ARGUMENTS = {
+      {"alice", "10.0.0.1"},
+      {"/index.html", 42L, 200},
+      {"users", 1234, 56, 7}
+  };
+
+  @Test
+  public void compare() {
+    // warm up
+    runMessageFormatter(RUN_LENGTH);
+    runMessageTemplate(RUN_LENGTH);
+
+    double formatter = runMessageFormatter(RUN_LENGTH);
+    double template = runMessageTemplate(RUN_LENGTH);
+    System.out.println("MessageFormatter: " + formatter + " ns per message");
+    System.out.println("MessageTemplate: " + template + " ns per message");
+  }
+
+  double runMessageFormatter(int len) {
+    long length = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < len; i++) {
+      int k = i % PATTERNS.length;
+      length += MessageFormatter.arrayFormat(PATTERNS[k], ARGUMENTS[k]).getMessage().length();
+    }
+    return consume(length, (System.nanoTime() - start) / (double) len);
+  }
+
+  double runMessageTemplate(int len) {
+    long length = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < len; i++) {
+      int k = i % PATTERNS.length;
+      length += MessageTemplate.format(PATTERNS[k], ARGUMENTS[k]).length();
+    }
+    return consume(length, (System.nanoTime() - start) / (double) len);
+  }
+
+  // keeps the JIT from dropping the formatting
+  private static double consume(long length, double result) {
+    return length == 42 ? result + 1 : result;
+  }
+}
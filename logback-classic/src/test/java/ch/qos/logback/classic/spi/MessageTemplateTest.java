@@ -0,0 +1,101 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+public class MessageTemplateTest {
+
+  static final String[] PATTERNS = {
+      "",
+      "no anchors",
+      "{}",
+      "a {} b",
+      "a {} b {} c {} d {}",
+      "{}{}{}",
+      "a \\{} b {}",
+      "a \\\\{} b {}",
+      "\\{}{} and {}",
+      "{} trailing \\",
+      "open { close } {",
+      "{{}}",
+      "{ } {}"
+  };
+
+  static final Object[][] ARGUMENT_ARRAYS = {
+      {},
+      {"x"},
+      {"x", 2},
+      {"x", 2, null, 4.5},
+      {1, 2, 3, 4, 5, 6}
+  };
+
+  @Test
+  public void sameResultsAsMessageFormatter() {
+    for (String pattern : PATTERNS) {
+      for (Object[] args : ARGUMENT_ARRAYS) {
+        assertFormattedAlike(pattern, args);
+        // a second time from the cache
+        assertFormattedAlike(pattern, args);
+      }
+    }
+  }
+
+  @Test
+  public void argumentsHandledByMessageFormatter() {
+    assertFormattedAlike("a {} b {}", new Object[] {new int[] {1, 2}, "y"});
+    assertFormattedAlike("a {} b {}", new Object[] {"x", new Object[] {"y", null}});
+    assertFormattedAlike("a {} b {}", new Object[] {"x", new Exception("e")});
+    assertFormattedAlike("a {} b {}", new Object[] {new FailingToString(), "y"});
+    assertFormattedAlike("a {} b {}", new Object[] {"x", new ErrorInToString()});
+  }
+
+  @Test
+  public void nullPattern() {
+    assertNull(MessageTemplate.format(null, new Object[] {"x"}));
+  }
+
+  @Test
+  public void cacheIsBounded() {
+    for (int i = 0; i < MessageTemplate.MAX_CACHED_TEMPLATES + 10; i++) {
+      MessageTemplate.format("bounded " + i + " {}", new Object[] {i});
+    }
+    assertTrue(MessageTemplate.cacheSize() <= MessageTemplate.MAX_CACHED_TEMPLATES);
+  }
+
+  private void assertFormattedAlike(String pattern, Object[] args) {
+    String expected = MessageFormatter.arrayFormat(pattern, args).getMessage();
+    assertEquals("pattern [" + pattern + "] with " + args.length + " arguments",
+        expected, MessageTemplate.format(pattern, args));
+  }
+
+  static class FailingToString {
+    @Override
+    public String toString() {
+      throw new IllegalStateException("toString");
+    }
+  }
+
+  static class ErrorInToString {
+    @Override
+    public String toString() {
+      throw new NoClassDefFoundError("toString");
+    }
+  }
+}
@@ -15,6 +15,8 @@ package ch.qos.logback.classic.turbo;
 
 import static junit.framework.Assert.*;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
 import ch.qos.logback.core.spi.FilterReply;
@@ -86,4 +88,47 @@ public class DuplicateMessageFilterTest {
         null));
   }
 
+  @Test
+  public void concurrentSmoke() {
+    DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(0);
+    dmf.setConcurrent(true);
+    dmf.start();
+    assertEquals(FilterReply.NEUTRAL, dmf.decide(null, null, null, "x", null,
+        null));
+    assertEquals(FilterReply.NEUTRAL, dmf.decide(null, null, null, "y", null,
+        null));
+    assertEquals(FilterReply.DENY, dmf
+        .decide(null, null, null, "x", null, null));
+    assertEquals(FilterReply.NEUTRAL, dmf.decide(null, null, null, null, null,
+        null));
+  }
+
+  @Test
+  public void concurrentModeLetsThroughAllowedRepetitionsOnly() throws InterruptedException {
+    final DuplicateMessageFilter dmf = new DuplicateMessageFilter();
+    dmf.setAllowedRepetitions(5);
+    dmf.setCacheSize(1000);
+    dmf.setConcurrent(true);
+    dmf.start();
+    final AtomicInteger accepted = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            if (dmf.decide(null, null, null, "repeated", null, null) == FilterReply.NEUTRAL) {
+              accepted.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(6, accepted.get());
+  }
+
 }
@@ -0,0 +1,164 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class RateLimitingFilterTest {
+
+  LoggerContext context = new LoggerContext();
+  Logger a = context.getLogger("a");
+  Logger b = context.getLogger("b");
+  RateLimitingFilter filter = new RateLimitingFilter();
+
+  @Before
+  public void setUp() {
+    filter.setContext(context);
+    // one request every 1000 seconds, i.e. nothing is earned during a test
+    filter.setEventsPerSecond(0.001);
+    filter.setBurst(3);
+  }
+
+  @After
+  public void tearDown() {
+    filter.stop();
+    context.stop();
+  }
+
+  @Test
+  public void burstIsLetThroughThenRequestsAreDenied() {
+    filter.start();
+    for (int i = 0; i < 3; i++) {
+      assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    }
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "y"));
+    assertEquals(2, filter.getDeniedCount());
+  }
+
+  @Test
+  public void loggersAreLimitedSeparately() {
+    filter.setBurst(1);
+    filter.start();
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.NEUTRAL, decide(b, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(b, Level.INFO, "x"));
+  }
+
+  @Test
+  public void keyByLevel() {
+    filter.setBurst(1);
+    filter.setKeyBy("logger, level");
+    filter.start();
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.WARN, "x"));
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "x"));
+  }
+
+  @Test
+  public void levelsAboveMaxLevelAreNotLimited() {
+    filter.setBurst(1);
+    filter.setMaxLevel(Level.INFO);
+    filter.start();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(FilterReply.NEUTRAL, decide(a, Level.ERROR, "x"));
+    }
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "x"));
+  }
+
+  @Test
+  // isXXXEnabled invokes decide with a null format
+  public void nullFormatIsNotCounted() {
+    filter.setBurst(1);
+    filter.start();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, null));
+    }
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+  }
+
+  @Test
+  public void tokensAreEarnedOverTime() throws InterruptedException {
+    filter.setEventsPerSecond(50);
+    filter.setBurst(1);
+    filter.start();
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    Thread.sleep(100);
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+  }
+
+  @Test
+  public void keysBeyondMaxKeysShareACounter() {
+    filter.setBurst(1);
+    filter.setMaxKeys(1);
+    filter.start();
+    assertEquals(FilterReply.NEUTRAL, decide(a, Level.INFO, "x"));
+    assertEquals(FilterReply.NEUTRAL, decide(b, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(context.getLogger("c"), Level.INFO, "x"));
+  }
+
+  @Test
+  public void reportForgetsIdleKeys() {
+    filter.setBurst(1);
+    filter.start();
+    decide(a, Level.INFO, "x");
+    decide(a, Level.INFO, "x");
+    decide(b, Level.INFO, "x");
+    filter.report();
+    // b had no denied requests and starts over with a full bucket
+    assertEquals(FilterReply.NEUTRAL, decide(b, Level.INFO, "x"));
+    assertEquals(FilterReply.DENY, decide(a, Level.INFO, "x"));
+  }
+
+  @Test
+  public void idleKeysAreForgottenWithoutReports() {
+    filter.setBurst(1);
+    filter.setMaxKeys(1);
+    filter.setReportInterval("0 seconds");
+    filter.start();
+    decide(a, Level.INFO, "x");
+    // b shares the counter of keys beyond maxKeys
+    decide(b, Level.INFO, "x");
+    assertEquals(FilterReply.DENY, decide(b, Level.INFO, "x"));
+    int statusCount = context.getStatusManager().getCount();
+    filter.report();
+    filter.report();
+    // both keys were idle, b now gets a counter of its own
+    assertEquals(FilterReply.NEUTRAL, decide(b, Level.INFO, "x"));
+    assertEquals(statusCount, context.getStatusManager().getCount());
+  }
+
+  @Test
+  public void invalidRateIsRejected() {
+    filter.setEventsPerSecond(0);
+    filter.start();
+    assertFalse(filter.isStarted());
+  }
+
+  private FilterReply decide(Logger logger, Level level, String format) {
+    return filter.decide(null, logger, level, format, null, null);
+  }
+}
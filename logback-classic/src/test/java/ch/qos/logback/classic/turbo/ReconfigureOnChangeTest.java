@@ -20,6 +20,7 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.issue.lbclassic135.LoggingRunnable;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.classic.spi.TurboFilterList;
+import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.contention.AbstractMultiThreadedHarness;
 import ch.qos.logback.core.contention.RunnableWithCounterAndDone;
@@ -224,6 +225,63 @@ public class ReconfigureOnChangeTest {
     assertThatFirstFilterIsROCF();
   }
 
+  @Test(timeout = 4000L)
+  public void stagedReconfigurationReplacesAppendersWithoutReset() throws IOException, JoranException, InterruptedException {
+    String path = CoreTestConstants.OUTPUT_DIR_PREFIX + "reconfigureOnChangeConfig_staged-" + diff + ".xml";
+    File file = new File(path);
+    writeToFile(file, stagedConfiguration("ERROR", "A"));
+    configure(file);
+    Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+    Appender<?> previous = root.getAppender("A");
+    assertTrue(previous.isStarted());
+    assertTrue(((ReconfigureOnChangeFilter) getFirstTurboFilter()).isStaged());
+
+    writeToFile(file, stagedConfiguration("INFO", "B"));
+    file.setLastModified(file.lastModified() + 2000);
+    while (root.getAppender("B") == null) {
+      Thread.sleep(20);
+    }
+
+    assertEquals(Level.INFO, root.getLevel());
+    assertNull(root.getAppender("A"));
+    // the previous appender is stopped after a grace period
+    while (previous.isStarted()) {
+      Thread.sleep(20);
+    }
+    assertThatFirstFilterIsROCF();
+    assertEquals(1, loggerContext.getTurboFilterList().size());
+    assertEquals(0, checker.matchCount(CoreConstants.RESET_MSG_PREFIX));
+  }
+
+  @Test(timeout = 4000L)
+  public void stagedReconfigurationKeepsConfigurationWithErrors() throws IOException, JoranException, InterruptedException {
+    String path = CoreTestConstants.OUTPUT_DIR_PREFIX + "reconfigureOnChangeConfig_stagedErrors-" + diff + ".xml";
+    File file = new File(path);
+    writeToFile(file, stagedConfiguration("ERROR", "A"));
+    configure(file);
+    Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+    Appender<?> previous = root.getAppender("A");
+
+    writeToFile(file, "<configuration scan=\"staged\" scanPeriod=\"50 millisecond\">\n" +
+            "  <root level=\"INFO\"></configuration>");
+    file.setLastModified(file.lastModified() + 2000);
+    while (!checker.containsMatch(Status.WARN, "Errors in the new configuration")) {
+      Thread.sleep(20);
+    }
+
+    assertEquals(Level.ERROR, root.getLevel());
+    assertSame(previous, root.getAppender("A"));
+    assertTrue(previous.isStarted());
+    assertTrue(getFirstTurboFilter().isStarted());
+  }
+
+  String stagedConfiguration(String level, String appenderName) {
+    return "<configuration scan=\"staged\" scanPeriod=\"50 millisecond\">\n" +
+            "  <appender name=\"" + appenderName + "\" class=\"ch.qos.logback.core.read.ListAppender\"/>\n" +
+            "  <root level=\"" + level + "\"><appender-ref ref=\"" + appenderName + "\"/></root>\n" +
+            "</configuration>";
+  }
+
   // check for deadlocks
   @Test(timeout = 4000L)
   public void scan_LOGBACK_474() throws JoranException, IOException,
@@ -0,0 +1,125 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class SamplingFilterTest {
+
+  LoggerContext context = new LoggerContext();
+  Logger a = context.getLogger("a");
+  Logger b = context.getLogger("b");
+  SamplingFilter filter = new SamplingFilter();
+
+  @Before
+  public void setUp() {
+    filter.setContext(context);
+  }
+
+  @After
+  public void tearDown() {
+    filter.stop();
+    context.stop();
+  }
+
+  @Test
+  public void oneInN() {
+    filter.setSampleEvery(3);
+    filter.start();
+    for (int i = 0; i < 9; i++) {
+      FilterReply expected = i % 3 == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+      assertEquals(expected, decide(a, "x"));
+    }
+    assertEquals(6, filter.getDeniedCount());
+  }
+
+  @Test
+  public void loggersAreSampledSeparately() {
+    filter.setSampleEvery(2);
+    filter.start();
+    assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+    assertEquals(FilterReply.NEUTRAL, decide(b, "x"));
+    assertEquals(FilterReply.DENY, decide(a, "x"));
+    assertEquals(FilterReply.DENY, decide(b, "x"));
+  }
+
+  @Test
+  public void probabilityIsApproximated() {
+    filter.setProbability(0.25);
+    filter.start();
+    int total = 10000;
+    int admitted = 0;
+    for (int i = 0; i < total; i++) {
+      if (decide(a, "x") == FilterReply.NEUTRAL) {
+        admitted++;
+      }
+    }
+    assertTrue("admitted " + admitted, admitted > total / 5 && admitted < total * 3 / 10);
+  }
+
+  @Test
+  public void probabilisticSamplingIsDeterministic() {
+    filter.setProbability(0.5);
+    filter.start();
+    FilterReply[] first = new FilterReply[100];
+    for (int i = 0; i < first.length; i++) {
+      first[i] = decide(a, "x");
+    }
+    filter.stop();
+    filter.start();
+    for (int i = 0; i < first.length; i++) {
+      assertEquals(first[i], decide(a, "x"));
+    }
+  }
+
+  @Test
+  // isXXXEnabled invokes decide with a null format
+  public void nullFormatIsNotCounted() {
+    filter.setSampleEvery(2);
+    filter.start();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(FilterReply.NEUTRAL, decide(a, null));
+    }
+    assertEquals(FilterReply.NEUTRAL, decide(a, "x"));
+  }
+
+  @Test
+  public void samplingMustBeConfigured() {
+    filter.start();
+    assertFalse(filter.isStarted());
+  }
+
+  @Test
+  public void onlyOneSamplingModeIsAllowed() {
+    filter.setSampleEvery(2);
+    filter.setProbability(0.5);
+    filter.start();
+    assertFalse(filter.isStarted());
+  }
+
+  private FilterReply decide(Logger logger, String format) {
+    return filter.decide(null, logger, Level.INFO, format, null, null);
+  }
+}
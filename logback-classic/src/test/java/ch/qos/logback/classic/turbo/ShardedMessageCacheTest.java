@@ -0,0 +1,42 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.turbo;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ShardedMessageCacheTest {
+
+  @Test
+  public void smallCachesAreNotSharded() {
+    Assert.assertEquals(1, new ShardedMessageCache(1).getShardCount());
+    Assert.assertEquals(1, new ShardedMessageCache(31).getShardCount());
+    Assert.assertEquals(2, new ShardedMessageCache(32).getShardCount());
+    Assert.assertEquals(ShardedMessageCache.MAX_SHARD_COUNT, new ShardedMessageCache(100000).getShardCount());
+  }
+
+  @Test
+  public void messagesAreCountedAcrossShards() {
+    ShardedMessageCache cache = new ShardedMessageCache(1000);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(0, cache.getMessageCountAndThenIncrement("m" + i));
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(1, cache.getMessageCountAndThenIncrement("m" + i));
+    }
+    cache.clear();
+    Assert.assertEquals(0, cache.getMessageCountAndThenIncrement("m0"));
+  }
+}
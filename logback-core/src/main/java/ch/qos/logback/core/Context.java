@@ -15,6 +15,7 @@ package ch.qos.logback.core;
 
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import ch.qos.logback.core.spi.LifeCycle;
 import ch.qos.logback.core.spi.PropertyContainer;
@@ -113,6 +114,15 @@ public interface Context extends PropertyContainer {
    */
   ExecutorService getExecutorService();
 
+  /**
+   * Every context has a ScheduledExecutorService which can be used to run
+   * tasks at a given time, e.g. time based rollovers, independently of
+   * logging activity.
+   *
+   * @return the scheduled executor for this context.
+   */
+  ScheduledExecutorService getScheduledExecutorService();
+
   /**
    * Register a component that participates in the context's life cycle.
    * <p>
@@ -18,6 +18,7 @@ import static ch.qos.logback.core.CoreConstants.CONTEXT_NAME_KEY;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import ch.qos.logback.core.spi.LifeCycle;
 import ch.qos.logback.core.spi.LogbackLock;
@@ -39,6 +40,7 @@ public class ContextBase implements Context, LifeCycle {
   LogbackLock configurationLock = new LogbackLock();
 
   private volatile ExecutorService executorService;
+  private volatile ScheduledExecutorService scheduledExecutorService;
   private LifeCycleManager lifeCycleManager;
   private boolean started;
 
@@ -125,6 +127,27 @@ public class ContextBase implements Context, LifeCycle {
     objectMap.clear();
   }
 
+  /**
+   * Replaces the properties, objects and managed components of this context
+   * with those of another context, typically one in which a new configuration
+   * was built. Components managed so far are stopped, as on {@link #reset()}.
+   * Properties and objects present in both contexts remain visible throughout.
+   *
+   * @param other the context whose state is taken over
+   */
+  protected void takeOverState(ContextBase other) {
+    LifeCycleManager previousLifeCycleManager;
+    synchronized (this) {
+      previousLifeCycleManager = getLifeCycleManager();
+      lifeCycleManager = other.getLifeCycleManager();
+    }
+    previousLifeCycleManager.reset();
+    propertyMap.putAll(other.propertyMap);
+    propertyMap.keySet().retainAll(other.propertyMap.keySet());
+    objectMap.putAll(other.objectMap);
+    objectMap.keySet().retainAll(other.objectMap.keySet());
+  }
+
   /**
    * The context name can be set only if it is not already set, or if the
    * current name is the default context name, namely "default", or if the
@@ -163,11 +186,26 @@ public class ContextBase implements Context, LifeCycle {
     return executorService;
   }
 
+  public ScheduledExecutorService getScheduledExecutorService() {
+    if (scheduledExecutorService == null) {
+      synchronized (this) {
+        if (scheduledExecutorService == null) {
+          scheduledExecutorService = ExecutorServiceUtil.newScheduledExecutorService();
+        }
+      }
+    }
+    return scheduledExecutorService;
+  }
+
   private synchronized void stopExecutorService() {
     if (executorService != null) {
       ExecutorServiceUtil.shutdown(executorService);
       executorService = null;
     }
+    if (scheduledExecutorService != null) {
+      ExecutorServiceUtil.shutdown(scheduledExecutorService);
+      scheduledExecutorService = null;
+    }
   }
 
   public void register(LifeCycle component) {
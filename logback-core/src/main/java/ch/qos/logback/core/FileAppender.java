@@ -15,6 +15,7 @@ package ch.qos.logback.core;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
@@ -47,6 +48,7 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
   private boolean prudent = false;
   private boolean initialized = false;
   private boolean lazyInit = false;
+  private FileHandlePool fileHandlePool;
 
   /**
    * The <b>File</b> property takes a string value which should be the name of
@@ -167,15 +169,58 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
         }
       }
 
+      if (fileHandlePool != null) {
+        setOutputStream(fileHandlePool.newStream(file, append));
+        return true;
+      }
       ResilientFileOutputStream resilientFos = new ResilientFileOutputStream(
           file, append);
       resilientFos.setContext(context);
-      setOutputStream(resilientFos);
+      setOutputStream(wrapFileOutputStream(resilientFos));
       successful = true;
     }
     return successful;
   }
 
+  /**
+   * Allows subclasses to decorate the stream opened by {@link #openFile}
+   * before the encoder is attached to it. The default implementation returns
+   * the stream unchanged.
+   *
+   * @param resilientFos the freshly opened file output stream
+   * @return the stream the encoder should write to
+   */
+  protected OutputStream wrapFileOutputStream(ResilientFileOutputStream resilientFos) {
+    return resilientFos;
+  }
+
+  public FileHandlePool getFileHandlePool() {
+    return fileHandlePool;
+  }
+
+  /**
+   * Lets a pool shared with other appenders decide when the file is open. If
+   * this appender has already opened its file, the file is closed and opened
+   * again, in append mode, by the pool. The streams of a pool are not wrapped
+   * by {@link #wrapFileOutputStream}. A pool cannot be used in prudent mode,
+   * which locks the file while it writes.
+   *
+   * @param fileHandlePool the pool
+   */
+  public void setFileHandlePool(FileHandlePool fileHandlePool) {
+    if (prudent) {
+      addWarn("Prudent mode keeps the file open, ignoring file handle pool");
+      return;
+    }
+    synchronized (lock) {
+      this.fileHandlePool = fileHandlePool;
+      if (isStarted() && (initialized || !lazyInit)) {
+        File file = new File(getAbsoluteFilePath(getFile()));
+        setOutputStream(fileHandlePool.newStream(file, true));
+      }
+    }
+  }
+
   /**
    * @see #setPrudent(boolean)
    *
@@ -0,0 +1,149 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Limits the number of files kept open by a group of {@link FileAppender}s,
+ * typically the appenders built by a SiftingAppender. Each appender using
+ * the pool writes to a stream which opens its file on demand. When more than
+ * {@link #getMaxOpenFiles() maxOpenFiles} files are open, the file written to
+ * least recently is closed; it is reopened in append mode when next written
+ * to.
+ *
+ * <p>Writing to a file which is already open does not lock the pool.
+ */
+public class FileHandlePool extends ContextAwareBase {
+
+  private final int maxOpenFiles;
+
+  private final ConcurrentMap<PooledFileOutputStream, Boolean> openStreams =
+      new ConcurrentHashMap<PooledFileOutputStream, Boolean>();
+  private final Object evictionLock = new Object();
+
+  private final AtomicLong openCount = new AtomicLong();
+  private final AtomicLong reopenCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  public FileHandlePool(int maxOpenFiles) {
+    if (maxOpenFiles < 1) {
+      throw new IllegalArgumentException("maxOpenFiles must be positive");
+    }
+    this.maxOpenFiles = maxOpenFiles;
+  }
+
+  public int getMaxOpenFiles() {
+    return maxOpenFiles;
+  }
+
+  /**
+   * Creates a stream writing to the given file through this pool. The file
+   * is not opened before the first write.
+   *
+   * @param file the file to write to
+   * @param append whether the first opening appends to or truncates the file;
+   * later openings always append
+   * @return the stream
+   */
+  public OutputStream newStream(File file, boolean append) {
+    return new PooledFileOutputStream(this, file, append);
+  }
+
+  /**
+   * @return the number of files currently open
+   */
+  public int getOpenFileCount() {
+    return openStreams.size();
+  }
+
+  /**
+   * @return how many times files were opened, including reopenings
+   */
+  public long getOpenCount() {
+    return openCount.get();
+  }
+
+  /**
+   * @return how many times a file was opened again after the pool closed it
+   */
+  public long getReopenCount() {
+    return reopenCount.get();
+  }
+
+  /**
+   * @return how many times the pool closed a file to stay within maxOpenFiles
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * Called after a stream opened its file, outside the stream's lock. Closes
+   * the least recently used files in excess of maxOpenFiles.
+   */
+  void opened(PooledFileOutputStream stream, boolean reopened) {
+    openCount.incrementAndGet();
+    if (reopened) {
+      reopenCount.incrementAndGet();
+    }
+    openStreams.put(stream, Boolean.TRUE);
+    while (openStreams.size() > maxOpenFiles) {
+      PooledFileOutputStream victim = removeLeastRecentlyUsed(stream);
+      if (victim == null) {
+        return;
+      }
+      // closed without holding evictionLock, the owner of the victim may be
+      // waiting for it while holding the victim's lock
+      if (victim.closeHandle()) {
+        evictionCount.incrementAndGet();
+      }
+    }
+  }
+
+  void closed(PooledFileOutputStream stream) {
+    openStreams.remove(stream);
+  }
+
+  private PooledFileOutputStream removeLeastRecentlyUsed(PooledFileOutputStream exempt) {
+    synchronized (evictionLock) {
+      PooledFileOutputStream victim = null;
+      for (PooledFileOutputStream candidate : openStreams.keySet()) {
+        if (candidate == exempt) {
+          continue;
+        }
+        if (victim == null || candidate.lastUsed - victim.lastUsed < 0) {
+          victim = candidate;
+        }
+      }
+      if (victim != null) {
+        openStreams.remove(victim);
+      }
+      return victim;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "FileHandlePool{maxOpenFiles=" + maxOpenFiles + ", open=" + getOpenFileCount()
+        + ", opens=" + getOpenCount() + ", reopens=" + getReopenCount()
+        + ", evictions=" + getEvictionCount() + "}";
+  }
+}
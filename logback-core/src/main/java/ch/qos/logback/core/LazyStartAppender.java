@@ -0,0 +1,260 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.core.spi.DeferredProcessingAware;
+import ch.qos.logback.core.spi.LifeCycle;
+
+/**
+ * Starts another appender off the logging thread, so that appenders which
+ * open files, databases or sockets do not hold up application startup.
+ *
+ * <p>The wrapped appender is started on the context's executor, either on the
+ * first event reaching this appender (the default) or, with
+ * {@link #setStartOnFirstEvent(boolean) startOnFirstEvent} set to false, as
+ * soon as this appender is started. Events arriving while the wrapped
+ * appender starts are kept in a buffer of {@link #setBufferSize(int)
+ * bufferSize} events and handed over in order once it has started. When the
+ * buffer is full, the logging thread waits for the start to complete.
+ *
+ * <p>Buffered events are prepared for deferred processing, as with
+ * {@link AsyncAppenderBase}. Their caller data is not computed, so it is not
+ * available for events logged while the wrapped appender was starting.
+ *
+ * <p>The configurator wraps an appender in a LazyStartAppender of the same
+ * name when its <code>lazyStart</code> attribute is set.
+ */
+public class LazyStartAppender<E> extends UnsynchronizedAppenderBase<E> {
+
+  public static final int DEFAULT_BUFFER_SIZE = 256;
+
+  /**
+   * How long {@link #stop()} waits for a pending start of the wrapped
+   * appender, in milliseconds.
+   */
+  static final long STOP_TIMEOUT = 10000;
+
+  private final Appender<E> appender;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private boolean startOnFirstEvent = true;
+
+  private final Object lock = new Object();
+  private List<E> buffer;
+  private boolean appenderStartRequested;
+  private Future<?> startFuture;
+  // set while buffered events are handed over, with lock held
+  private boolean replaying = false;
+  // written under lock, read without it on the fast path
+  private volatile boolean appenderStartCompleted = false;
+
+  public LazyStartAppender(Appender<E> appender) {
+    this.appender = appender;
+    this.name = appender.getName();
+  }
+
+  /**
+   * @return the appender started by this appender
+   */
+  public Appender<E> getAppender() {
+    return appender;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * The maximum number of events kept while the wrapped appender starts.
+   *
+   * @param bufferSize the number of events
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public boolean isStartOnFirstEvent() {
+    return startOnFirstEvent;
+  }
+
+  /**
+   * Whether the wrapped appender is started when the first event reaches this
+   * appender, or right away in the background.
+   *
+   * @param startOnFirstEvent true to wait for the first event
+   */
+  public void setStartOnFirstEvent(boolean startOnFirstEvent) {
+    this.startOnFirstEvent = startOnFirstEvent;
+  }
+
+  /**
+   * @return true once the wrapped appender's start method has returned
+   */
+  public boolean isAppenderStartCompleted() {
+    return appenderStartCompleted;
+  }
+
+  @Override
+  public void start() {
+    if (bufferSize < 1) {
+      addError("Invalid buffer size [" + bufferSize + "]");
+      return;
+    }
+    synchronized (lock) {
+      buffer = new ArrayList<E>(Math.min(bufferSize, DEFAULT_BUFFER_SIZE));
+      appenderStartCompleted = false;
+      appenderStartRequested = false;
+      startFuture = null;
+    }
+    super.start();
+    if (!startOnFirstEvent) {
+      synchronized (lock) {
+        requestAppenderStart();
+      }
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+    super.stop();
+    boolean startRequested;
+    Future<?> future;
+    synchronized (lock) {
+      startRequested = appenderStartRequested;
+      future = startFuture;
+    }
+    if (future != null) {
+      // let the wrapped appender write out the buffered events
+      try {
+        future.get(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Exception e) {
+        addWarn("Appender [" + name + "] did not start within " + STOP_TIMEOUT + " ms", e);
+      }
+    }
+    if (startRequested) {
+      if (appender instanceof LifeCycle) {
+        ((LifeCycle) appender).stop();
+      }
+    }
+  }
+
+  @Override
+  protected void append(E eventObject) {
+    if (!appenderStartCompleted) {
+      synchronized (lock) {
+        requestAppenderStart();
+        if (!appenderStartCompleted) {
+          // while replaying, only the replaying thread can get here, logging
+          // back into this appender; waiting would deadlock
+          if (buffer.size() < bufferSize || replaying) {
+            preprocess(eventObject);
+            buffer.add(eventObject);
+            return;
+          }
+          if (!awaitAppenderStart()) {
+            return;
+          }
+        }
+      }
+    }
+    appender.doAppend(eventObject);
+  }
+
+  /**
+   * Prepares an event for being handed to the wrapped appender later, possibly
+   * on another thread.
+   *
+   * @param eventObject the event to be buffered
+   */
+  protected void preprocess(E eventObject) {
+    if (eventObject instanceof DeferredProcessingAware) {
+      ((DeferredProcessingAware) eventObject).prepareForDeferredProcessing();
+    }
+  }
+
+  // must be called with lock held
+  private void requestAppenderStart() {
+    if (appenderStartRequested) {
+      return;
+    }
+    appenderStartRequested = true;
+    Runnable task = new Runnable() {
+      public void run() {
+        startAppender();
+      }
+    };
+    try {
+      startFuture = getContext().getExecutorService().submit(task);
+    } catch (RejectedExecutionException e) {
+      // the context is shutting down, there is no thread to defer to
+      addInfo("Starting appender [" + name + "] on the calling thread");
+      if (appender instanceof LifeCycle) {
+        ((LifeCycle) appender).start();
+      }
+      appenderStartCompleted = true;
+    }
+  }
+
+  // must be called with lock held
+  private boolean awaitAppenderStart() {
+    try {
+      while (!appenderStartCompleted) {
+        lock.wait();
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void startAppender() {
+    long start = System.currentTimeMillis();
+    if (appender instanceof LifeCycle) {
+      try {
+        ((LifeCycle) appender).start();
+      } catch (RuntimeException e) {
+        addError("Failed to start appender [" + name + "]", e);
+      }
+    }
+    synchronized (lock) {
+      // events are handed over with the lock held so that events logged
+      // meanwhile cannot overtake buffered ones. The wrapped appender may log
+      // back into this appender, adding to the buffer during the loop.
+      replaying = true;
+      try {
+        for (int i = 0; i < buffer.size(); i++) {
+          appender.doAppend(buffer.get(i));
+        }
+      } finally {
+        replaying = false;
+      }
+      buffer.clear();
+      appenderStartCompleted = true;
+      lock.notifyAll();
+    }
+    addInfo("Started appender [" + name + "] in "
+        + (System.currentTimeMillis() - start) + " ms");
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A file output stream whose file is opened on demand and may be closed at
+ * any time by its {@link FileHandlePool}.
+ */
+class PooledFileOutputStream extends OutputStream {
+
+  private final FileHandlePool pool;
+  private final File file;
+  private boolean append;
+
+  // guarded by this
+  private FileOutputStream out;
+  private boolean everOpened;
+  private boolean closed;
+
+  // compared by the pool to find the least recently used file
+  volatile long lastUsed = System.nanoTime();
+
+  PooledFileOutputStream(FileHandlePool pool, File file, boolean append) {
+    this.pool = pool;
+    this.file = file;
+    this.append = append;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    boolean opened;
+    boolean reopened;
+    synchronized (this) {
+      reopened = everOpened;
+      opened = open();
+      out.write(b);
+    }
+    used(opened, reopened);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    boolean opened;
+    boolean reopened;
+    synchronized (this) {
+      reopened = everOpened;
+      opened = open();
+      out.write(b, off, len);
+    }
+    used(opened, reopened);
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      if (out != null) {
+        try {
+          out.close();
+        } finally {
+          out = null;
+        }
+      }
+    }
+    pool.closed(this);
+  }
+
+  // must be called with this lock held
+  private boolean open() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (out != null) {
+      return false;
+    }
+    out = new FileOutputStream(file, append);
+    // a file closed by the pool is later appended to
+    append = true;
+    everOpened = true;
+    return true;
+  }
+
+  private void used(boolean opened, boolean reopened) {
+    lastUsed = System.nanoTime();
+    if (opened) {
+      pool.opened(this, reopened);
+    }
+  }
+
+  /**
+   * Closes the file until the next write.
+   *
+   * @return true if the file was open
+   */
+  boolean closeHandle() {
+    synchronized (this) {
+      if (out == null) {
+        return false;
+      }
+      try {
+        out.close();
+      } catch (IOException e) {
+        pool.addWarn("Failed to close [" + file + "]", e);
+      } finally {
+        out = null;
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PooledFileOutputStream[" + file + "]";
+  }
+}
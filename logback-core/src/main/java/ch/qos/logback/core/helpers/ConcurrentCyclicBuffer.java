@@ -0,0 +1,164 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cyclic buffer of the latest <code>maxSize</code> elements which may be
+ * written and read concurrently without locking.
+ *
+ * <p>Each element added takes the next sequence number, and is stored with
+ * it in slot <code>sequence % maxSize</code>. Writers never wait for readers
+ * or for each other. Readers compute which sequence numbers are in the
+ * buffer and only return elements whose slot still carries the expected
+ * sequence number, so an element overwritten or not yet completely written
+ * while being read is skipped rather than returned out of order.
+ *
+ * <p>Unlike {@link CyclicBuffer}, elements cannot be removed one by one.
+ */
+public class ConcurrentCyclicBuffer<E> {
+
+  private final int maxSize;
+  private final AtomicReferenceArray<Slot<E>> slots;
+  // the sequence number of the next element added
+  private final AtomicLong tail = new AtomicLong();
+  // elements with a lower sequence number were cleared; never greater than
+  // tail, so readers read head before tail
+  private volatile long head = 0;
+
+  /**
+   * @param maxSize the maximum number of elements in the buffer, a positive
+   * integer
+   */
+  public ConcurrentCyclicBuffer(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("The maxSize argument (" + maxSize
+          + ") is not a positive integer.");
+    }
+    this.maxSize = maxSize;
+    this.slots = new AtomicReferenceArray<Slot<E>>(maxSize);
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Adds an element as the last element of the buffer, replacing the oldest
+   * one if the buffer is full.
+   *
+   * @param element the element
+   */
+  public void add(E element) {
+    long sequence = tail.getAndIncrement();
+    int index = (int) (sequence % maxSize);
+    Slot<E> slot = new Slot<E>(sequence, element);
+    while (true) {
+      Slot<E> current = slots.get(index);
+      if (current != null && current.sequence > sequence) {
+        // a writer which lapped this one got there first
+        return;
+      }
+      if (slots.compareAndSet(index, current, slot)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the number of elements in the buffer, counting elements which are
+   * being added
+   */
+  public int length() {
+    long start = head;
+    long end = tail.get();
+    return (int) Math.min(end - start, maxSize);
+  }
+
+  /**
+   * Returns the <i>i</i>th oldest element in the buffer.
+   *
+   * @param i the index of the element, 0 for the oldest
+   * @return the element, or null if there is no such element or it is being
+   * added or replaced
+   */
+  public E get(int i) {
+    long cleared = head;
+    long end = tail.get();
+    long start = Math.max(cleared, end - maxSize);
+    long sequence = start + i;
+    if (i < 0 || sequence >= end) {
+      return null;
+    }
+    return elementAt(sequence);
+  }
+
+  /**
+   * Returns the elements in the buffer, oldest first, as of the time of the
+   * call. Elements which are being added or replaced are left out.
+   *
+   * @return a copy of the elements
+   */
+  public List<E> asList() {
+    long cleared = head;
+    long end = tail.get();
+    long start = Math.max(cleared, end - maxSize);
+    List<E> list = new ArrayList<E>((int) (end - start));
+    for (long sequence = start; sequence < end; sequence++) {
+      Slot<E> slot = slots.get((int) (sequence % maxSize));
+      if (slot != null && slot.sequence == sequence) {
+        list.add(slot.element);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Removes all elements. Elements added concurrently may or may not be
+   * removed.
+   */
+  public void clear() {
+    long end = tail.get();
+    head = end;
+    for (int i = 0; i < maxSize; i++) {
+      Slot<E> slot = slots.get(i);
+      if (slot != null && slot.sequence < end) {
+        // let the element be garbage collected, unless it was just replaced
+        slots.compareAndSet(i, slot, null);
+      }
+    }
+  }
+
+  private E elementAt(long sequence) {
+    Slot<E> slot = slots.get((int) (sequence % maxSize));
+    if (slot != null && slot.sequence == sequence) {
+      return slot.element;
+    }
+    return null;
+  }
+
+  private static final class Slot<E> {
+    final long sequence;
+    final E element;
+
+    Slot(long sequence, E element) {
+      this.sequence = sequence;
+      this.element = element;
+    }
+  }
+}
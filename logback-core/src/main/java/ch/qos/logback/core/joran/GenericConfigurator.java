@@ -15,6 +15,7 @@ package ch.qos.logback.core.joran;
 
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.joran.event.SaxEvent;
+import ch.qos.logback.core.joran.event.SaxEventCache;
 import ch.qos.logback.core.joran.event.SaxEventRecorder;
 import ch.qos.logback.core.joran.spi.*;
 import ch.qos.logback.core.joran.util.ConfigurationWatchListUtil;
@@ -22,12 +23,15 @@ import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.status.StatusUtil;
 import org.xml.sax.InputSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.List;
 
 import static ch.qos.logback.core.CoreConstants.SAFE_JORAN_CONFIGURATION;
@@ -35,6 +39,23 @@ import static ch.qos.logback.core.CoreConstants.SAFE_JORAN_CONFIGURATION;
 public abstract class GenericConfigurator extends ContextAwareBase {
 
   protected Interpreter interpreter;
+  private SaxEventCache saxEventCache;
+
+  /**
+   * Sets the file in which the SAX events recorded from configuration files
+   * are cached. When the contents of a configuration file match the cached
+   * events, XML parsing is skipped. Caching is disabled by default.
+   *
+   * @param cacheFile the cache file; or {@code null} to disable caching
+   */
+  public void setSaxEventCacheFile(File cacheFile) {
+    if (cacheFile == null) {
+      saxEventCache = null;
+    } else {
+      saxEventCache = new SaxEventCache(cacheFile);
+      saxEventCache.setContext(context);
+    }
+  }
 
   /**
    * Configures logback with the configuration XML read from a file,
@@ -115,7 +136,11 @@ public abstract class GenericConfigurator extends ContextAwareBase {
    */
   public final void doConfigure(InputStream inputStream) throws JoranException {
     try {
-      doConfigure(new InputSource(inputStream));
+      if (saxEventCache != null) {
+        doConfigureWithCache(inputStream);
+      } else {
+        doConfigure(new InputSource(inputStream), null);
+      }
     } finally {
       try {
         inputStream.close();
@@ -152,13 +177,60 @@ public abstract class GenericConfigurator extends ContextAwareBase {
     addDefaultNestedComponentRegistryRules(interpretationContext.getDefaultNestedComponentRegistry());
   }
 
+  /**
+   * Configures logback with the SAX events cached for the configuration XML
+   * read from an input stream, or parses the XML and caches its events if
+   * the cache does not match the XML.
+   *
+   * @param inputStream stream to contents of configuration XML
+   * @throws JoranException configuration error occurred
+   */
+  private void doConfigureWithCache(InputStream inputStream) throws JoranException {
+    byte[] configuration;
+    try {
+      configuration = readFully(inputStream);
+    } catch (IOException ioe) {
+      String errMsg = "Could not read the configuration";
+      addError(errMsg, ioe);
+      throw new JoranException(errMsg, ioe);
+    }
+
+    byte[] cacheKey = SaxEventCache.computeKey(configuration);
+    List<SaxEvent> cachedEvents = saxEventCache.read(cacheKey);
+    if (cachedEvents == null) {
+      doConfigure(new InputSource(new ByteArrayInputStream(configuration)), cacheKey);
+      return;
+    }
+
+    if (!ConfigurationWatchListUtil.wasConfigurationWatchListReset(context)) {
+      informContextOfURLUsedForConfiguration(getContext(), null);
+    }
+    addInfo("Using SAX events cached in [" + saxEventCache.getFile() + "]");
+    doConfigure(cachedEvents);
+    // the events were cached after being parsed without errors
+    addInfo("Registering current configuration as safe fallback point");
+    registerSafeConfiguration();
+  }
+
+  private static byte[] readFully(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    while ((n = inputStream.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+
   /**
    * Configures logback with the configuration XML read from an input source.
    *
    * @param inputSource the input source, containing the configuration XML
+   * @param cacheKey key under which the recorded events are cached; or
+   * {@code null} if they should not be cached
    * @throws JoranException
    */
-  private final void doConfigure(final InputSource inputSource)
+  private final void doConfigure(final InputSource inputSource, byte[] cacheKey)
           throws JoranException {
 
     long threshold = System.currentTimeMillis();
@@ -167,12 +239,17 @@ public abstract class GenericConfigurator extends ContextAwareBase {
     }
     SaxEventRecorder recorder = new SaxEventRecorder(context);
     recorder.recordEvents(inputSource);
+    // playing the events may insert included events into the list
+    List<SaxEvent> recordedEvents = new ArrayList<SaxEvent>(recorder.getSaxEventList());
     doConfigure(recorder.getSaxEventList());
     // no exceptions a this level
     StatusUtil statusUtil = new StatusUtil(context);
     if (statusUtil.noXMLParsingErrorsOccurred(threshold)) {
       addInfo("Registering current configuration as safe fallback point");
       registerSafeConfiguration();
+      if (cacheKey != null) {
+        saxEventCache.write(cacheKey, recordedEvents);
+      }
     }
   }
 
@@ -31,6 +31,8 @@ public abstract class ActionConst {
   public static final String PATTERN_ATTRIBUTE = "pattern";
   public static final String VALUE_ATTR = "value";
   public static final String ACTION_CLASS_ATTRIBUTE = "actionClass";
+  public static final String LAZY_START_ATTRIBUTE = "lazyStart";
+  public static final String LAZY_START_BACKGROUND = "background";
 
   public static final String INHERITED = "INHERITED";
   public static final String NULL = "NULL";
@@ -38,4 +40,5 @@ public abstract class ActionConst {
 
   public static final String APPENDER_BAG = "APPENDER_BAG";
   public static final String FILTER_CHAIN_BAG = "FILTER_CHAIN_BAG";
+  public static final String LAZY_START_DEFAULT = "LAZY_START_DEFAULT";
 }
@@ -18,6 +18,7 @@ import java.util.HashMap;
 import org.xml.sax.Attributes;
 
 import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.LazyStartAppender;
 import ch.qos.logback.core.joran.spi.ActionException;
 import ch.qos.logback.core.joran.spi.InterpretationContext;
 import ch.qos.logback.core.spi.LifeCycle;
@@ -26,6 +27,7 @@ import ch.qos.logback.core.util.OptionHelper;
 public class AppenderAction<E> extends Action {
   Appender<E> appender;
   private boolean inError = false;
+  private String lazyStart;
 
   /**
    * Instantiates an appender of the given class and sets its name.
@@ -39,6 +41,10 @@ public class AppenderAction<E> extends Action {
     // We are just beginning, reset variables
     appender = null;
     inError = false;
+    lazyStart = ec.subst(attributes.getValue(ActionConst.LAZY_START_ATTRIBUTE));
+    if (OptionHelper.isEmpty(lazyStart)) {
+      lazyStart = (String) ec.getObjectMap().get(ActionConst.LAZY_START_DEFAULT);
+    }
 
     String className = attributes.getValue(CLASS_ATTRIBUTE);
     if (OptionHelper.isEmpty(className)) {
@@ -99,7 +105,9 @@ public class AppenderAction<E> extends Action {
       return;
     }
 
-    if (appender instanceof LifeCycle) {
+    if (isLazyStart()) {
+      startLazily(ec);
+    } else if (appender instanceof LifeCycle) {
       ((LifeCycle) appender).start();
     }
 
@@ -112,4 +120,36 @@ public class AppenderAction<E> extends Action {
       ec.popObject();
     }
   }
+
+  private boolean isLazyStart() {
+    if (OptionHelper.isEmpty(lazyStart) || "false".equalsIgnoreCase(lazyStart)) {
+      return false;
+    }
+    if ("true".equalsIgnoreCase(lazyStart)
+        || ActionConst.LAZY_START_BACKGROUND.equalsIgnoreCase(lazyStart)) {
+      return true;
+    }
+    addWarn("Unknown " + ActionConst.LAZY_START_ATTRIBUTE + " value [" + lazyStart
+        + "] for appender [" + appender.getName() + "], starting it right away");
+    return false;
+  }
+
+  /**
+   * Replaces the appender in the appender bag by a {@link LazyStartAppender}
+   * which starts it later on, off the configuring thread.
+   */
+  @SuppressWarnings("unchecked")
+  private void startLazily(InterpretationContext ec) {
+    LazyStartAppender<E> lazyStartAppender = new LazyStartAppender<E>(appender);
+    lazyStartAppender.setContext(context);
+    lazyStartAppender.setStartOnFirstEvent(
+        !ActionConst.LAZY_START_BACKGROUND.equalsIgnoreCase(lazyStart));
+    lazyStartAppender.start();
+
+    HashMap<String, Appender<E>> appenderBag = (HashMap<String, Appender<E>>) ec.getObjectMap().get(
+        ActionConst.APPENDER_BAG);
+    appenderBag.put(appender.getName(), lazyStartAppender);
+    addInfo("Appender [" + appender.getName() + "] will be started "
+        + (lazyStartAppender.isStartOnFirstEvent() ? "on its first event" : "in the background"));
+  }
 }
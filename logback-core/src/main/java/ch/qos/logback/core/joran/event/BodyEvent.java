@@ -37,6 +37,10 @@ public class BodyEvent extends SaxEvent {
     return text;
   }
 
+  String getRawText() {
+    return text;
+  }
+
   @Override
   public String toString() {
     return "BodyEvent(" + getText() + ")" + locator.getLineNumber() + ","
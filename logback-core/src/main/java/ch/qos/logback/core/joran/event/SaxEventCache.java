@@ -0,0 +1,312 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.joran.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.LocatorImpl;
+
+import ch.qos.logback.core.joran.spi.ElementPath;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Stores the {@link SaxEvent} list recorded from a configuration file in a
+ * compact binary file, so that the next configuration from the same file can
+ * skip XML parsing. Entries are keyed by a digest of the configuration
+ * file's contents; a cache written for different contents is ignored.
+ *
+ * <p>Only the recorded events are cached. Variable substitution, conditional
+ * processing and inclusions still take place when the events are played, so
+ * a cached configuration behaves exactly like a freshly parsed one.
+ */
+public class SaxEventCache extends ContextAwareBase {
+
+  static final int MAGIC = 0x4c425345; // "LBSE"
+  static final int VERSION = 1;
+
+  private static final byte START = 'S';
+  private static final byte BODY = 'B';
+  private static final byte END = 'E';
+
+  // string table markers, other values are indexes of strings read earlier
+  private static final int NULL_STRING = -1;
+  private static final int NEW_STRING = -2;
+
+  private final File file;
+
+  public SaxEventCache(File file) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Computes the key under which the events recorded from a configuration
+   * file are cached.
+   *
+   * @param configuration the contents of the configuration file
+   * @return the SHA-1 digest of the contents
+   */
+  public static byte[] computeKey(byte[] configuration) {
+    try {
+      return MessageDigest.getInstance("SHA-1").digest(configuration);
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-1
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads the cached events.
+   *
+   * @param key the key of the current configuration file contents
+   * @return the cached events, or null if the cache is missing, was written
+   * for other contents, or cannot be read
+   */
+  public List<SaxEvent> read(byte[] key) {
+    if (!file.isFile()) {
+      return null;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        addInfo("Ignoring configuration cache [" + file + "] written by another version");
+        return null;
+      }
+      byte[] cachedKey = new byte[in.readUnsignedByte()];
+      in.readFully(cachedKey);
+      if (!Arrays.equals(key, cachedKey)) {
+        addInfo("Configuration cache [" + file + "] is out of date");
+        return null;
+      }
+      return readEvents(in);
+    } catch (IOException e) {
+      addWarn("Could not read configuration cache [" + file + "]", e);
+      return null;
+    } catch (RuntimeException e) {
+      addWarn("Corrupt configuration cache [" + file + "]", e);
+      return null;
+    } finally {
+      close(in);
+    }
+  }
+
+  /**
+   * Replaces the cached events. The cache is written to a temporary file
+   * first, so that readers never see a partially written cache.
+   *
+   * @param key the key of the configuration file contents
+   * @param events the events recorded from the configuration file
+   */
+  public void write(byte[] key, List<SaxEvent> events) {
+    File tmpFile = new File(file.getPath() + ".tmp");
+    DataOutputStream out = null;
+    try {
+      File parent = file.getAbsoluteFile().getParentFile();
+      if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+        addWarn("Could not create directory for configuration cache [" + file + "]");
+        return;
+      }
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeByte(key.length);
+      out.write(key);
+      writeEvents(out, events);
+      out.close();
+      out = null;
+      if (file.exists() && !file.delete()) {
+        addWarn("Could not replace configuration cache [" + file + "]");
+        return;
+      }
+      if (!tmpFile.renameTo(file)) {
+        addWarn("Could not rename [" + tmpFile + "] to [" + file + "]");
+      }
+    } catch (IOException e) {
+      addWarn("Could not write configuration cache [" + file + "]", e);
+    } finally {
+      close(out);
+      tmpFile.delete();
+    }
+  }
+
+  private void writeEvents(DataOutputStream out, List<SaxEvent> events) throws IOException {
+    Map<String, Integer> stringTable = new HashMap<String, Integer>();
+    out.writeInt(events.size());
+    for (SaxEvent event : events) {
+      if (event instanceof StartEvent) {
+        StartEvent startEvent = (StartEvent) event;
+        out.writeByte(START);
+        writeNames(out, stringTable, event);
+        List<String> parts = startEvent.elementPath.getCopyOfPartList();
+        out.writeInt(parts.size());
+        for (String part : parts) {
+          writeString(out, stringTable, part);
+        }
+        Attributes atts = startEvent.attributes;
+        out.writeInt(atts.getLength());
+        for (int i = 0; i < atts.getLength(); i++) {
+          writeString(out, stringTable, atts.getURI(i));
+          writeString(out, stringTable, atts.getLocalName(i));
+          writeString(out, stringTable, atts.getQName(i));
+          writeString(out, stringTable, atts.getType(i));
+          writeString(out, stringTable, atts.getValue(i));
+        }
+      } else if (event instanceof BodyEvent) {
+        out.writeByte(BODY);
+        // the raw text, getText() trims it
+        writeString(out, stringTable, ((BodyEvent) event).getRawText());
+      } else if (event instanceof EndEvent) {
+        out.writeByte(END);
+        writeNames(out, stringTable, event);
+      } else {
+        throw new IOException("Cannot cache event of type " + event.getClass().getName());
+      }
+      writeLocator(out, stringTable, event.locator);
+    }
+  }
+
+  private List<SaxEvent> readEvents(DataInputStream in) throws IOException {
+    List<String> stringTable = new ArrayList<String>();
+    int count = in.readInt();
+    List<SaxEvent> events = new ArrayList<SaxEvent>(count);
+    for (int i = 0; i < count; i++) {
+      byte type = in.readByte();
+      switch (type) {
+        case START: {
+          String namespaceURI = readString(in, stringTable);
+          String localName = readString(in, stringTable);
+          String qName = readString(in, stringTable);
+          int partCount = in.readInt();
+          List<String> parts = new ArrayList<String>(partCount);
+          for (int j = 0; j < partCount; j++) {
+            parts.add(readString(in, stringTable));
+          }
+          int attributeCount = in.readInt();
+          AttributesImpl atts = new AttributesImpl();
+          for (int j = 0; j < attributeCount; j++) {
+            atts.addAttribute(readString(in, stringTable), readString(in, stringTable),
+                readString(in, stringTable), readString(in, stringTable), readString(in, stringTable));
+          }
+          events.add(new StartEvent(new ElementPath(parts), namespaceURI, localName, qName,
+              atts, readLocator(in, stringTable)));
+          break;
+        }
+        case BODY: {
+          String text = readString(in, stringTable);
+          events.add(new BodyEvent(text, readLocator(in, stringTable)));
+          break;
+        }
+        case END: {
+          String namespaceURI = readString(in, stringTable);
+          String localName = readString(in, stringTable);
+          String qName = readString(in, stringTable);
+          events.add(new EndEvent(namespaceURI, localName, qName, readLocator(in, stringTable)));
+          break;
+        }
+        default:
+          throw new IOException("Unknown event type " + type);
+      }
+    }
+    return events;
+  }
+
+  private void writeNames(DataOutputStream out, Map<String, Integer> stringTable, SaxEvent event)
+      throws IOException {
+    writeString(out, stringTable, event.namespaceURI);
+    writeString(out, stringTable, event.localName);
+    writeString(out, stringTable, event.qName);
+  }
+
+  private void writeLocator(DataOutputStream out, Map<String, Integer> stringTable, Locator locator)
+      throws IOException {
+    writeString(out, stringTable, locator.getPublicId());
+    writeString(out, stringTable, locator.getSystemId());
+    out.writeInt(locator.getLineNumber());
+    out.writeInt(locator.getColumnNumber());
+  }
+
+  private Locator readLocator(DataInputStream in, List<String> stringTable) throws IOException {
+    LocatorImpl locator = new LocatorImpl();
+    locator.setPublicId(readString(in, stringTable));
+    locator.setSystemId(readString(in, stringTable));
+    locator.setLineNumber(in.readInt());
+    locator.setColumnNumber(in.readInt());
+    return locator;
+  }
+
+  private void writeString(DataOutputStream out, Map<String, Integer> stringTable, String s)
+      throws IOException {
+    if (s == null) {
+      out.writeInt(NULL_STRING);
+      return;
+    }
+    Integer index = stringTable.get(s);
+    if (index != null) {
+      out.writeInt(index);
+      return;
+    }
+    stringTable.put(s, stringTable.size());
+    byte[] bytes = s.getBytes("UTF-8");
+    out.writeInt(NEW_STRING);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private String readString(DataInputStream in, List<String> stringTable) throws IOException {
+    int marker = in.readInt();
+    if (marker == NULL_STRING) {
+      return null;
+    }
+    if (marker == NEW_STRING) {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      String s = new String(bytes, "UTF-8");
+      stringTable.add(s);
+      return s;
+    }
+    return stringTable.get(marker);
+  }
+
+  private static void close(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+}
@@ -81,6 +81,17 @@ public class ConfigurationWatchList extends ContextAwareBase {
     //return (lastModified != fileToScan.lastModified() && lastModified != SENTINEL);
   }
 
+  /**
+   * Records the current modification time of the watched files, so that
+   * {@link #changeDetected()} only reports later changes.
+   */
+  public void updateLastModified() {
+    int len = fileWatchList.size();
+    for (int i = 0; i < len; i++) {
+      lastModifiedList.set(i, fileWatchList.get(i).lastModified());
+    }
+  }
+
   @SuppressWarnings("deprecation")
   File convertToFile(URL url) {
     String protocol = url.getProtocol();
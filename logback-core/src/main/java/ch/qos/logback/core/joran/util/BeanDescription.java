@@ -0,0 +1,135 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.joran.util;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ch.qos.logback.core.util.AggregationType;
+
+/**
+ * The setters, adders and aggregation types of a class, as needed by
+ * {@link PropertySetter}. Introspecting a class is costly compared to the
+ * configuration work done with the result, and the same classes are
+ * configured over and over again (every appender created by a
+ * SiftingAppender, every reconfiguration). Descriptions are therefore
+ * computed once per class and shared by the whole process.
+ *
+ * <p>Instances are immutable apart from the aggregation type memo, which is
+ * safe for concurrent use.
+ */
+public class BeanDescription {
+
+  private static final ConcurrentMap<Class<?>, BeanDescription> CACHE =
+      new ConcurrentHashMap<Class<?>, BeanDescription>();
+
+  private final Class<?> beanClass;
+  private final PropertyDescriptor[] propertyDescriptors;
+  private final MethodDescriptor[] methodDescriptors;
+  private final Map<String, PropertyDescriptor> propertiesByName;
+  private final Map<String, Method> methodsByName;
+  private final ConcurrentMap<String, AggregationType> aggregationTypes =
+      new ConcurrentHashMap<String, AggregationType>();
+
+  BeanDescription(Class<?> beanClass) {
+    this.beanClass = beanClass;
+    this.propertyDescriptors = Introspector.getPropertyDescriptors(beanClass);
+    this.methodDescriptors = Introspector.getMethodDescriptors(beanClass);
+
+    propertiesByName = new HashMap<String, PropertyDescriptor>(propertyDescriptors.length * 2);
+    for (PropertyDescriptor pd : propertyDescriptors) {
+      propertiesByName.put(pd.getName(), pd);
+    }
+    methodsByName = new HashMap<String, Method>(methodDescriptors.length * 2);
+    for (MethodDescriptor md : methodDescriptors) {
+      // keep the first method of a given name, as a linear search would
+      if (!methodsByName.containsKey(md.getName())) {
+        methodsByName.put(md.getName(), md.getMethod());
+      }
+    }
+  }
+
+  /**
+   * Returns the description of the given class, introspecting the class on
+   * first use.
+   *
+   * @param beanClass the class to describe
+   * @return the shared description of beanClass
+   * @throws IntrospectionException if the class cannot be introspected
+   */
+  public static BeanDescription forClass(Class<?> beanClass) {
+    BeanDescription description = CACHE.get(beanClass);
+    if (description == null) {
+      try {
+        description = new BeanDescription(beanClass);
+      } catch (RuntimeException e) {
+        throw new IntrospectionException(e);
+      } catch (LinkageError e) {
+        // getMethods() fails if a method signature refers to a missing class
+        throw new IntrospectionException(e.toString());
+      }
+      BeanDescription existing = CACHE.putIfAbsent(beanClass, description);
+      if (existing != null) {
+        description = existing;
+      }
+    }
+    return description;
+  }
+
+  /**
+   * Removes all cached descriptions.
+   */
+  public static void clearCache() {
+    CACHE.clear();
+  }
+
+  public Class<?> getBeanClass() {
+    return beanClass;
+  }
+
+  public PropertyDescriptor[] getPropertyDescriptors() {
+    return propertyDescriptors;
+  }
+
+  public MethodDescriptor[] getMethodDescriptors() {
+    return methodDescriptors;
+  }
+
+  /**
+   * @param name the decapitalized property name
+   * @return the property of that name, or null if there is none
+   */
+  public PropertyDescriptor getPropertyDescriptor(String name) {
+    return propertiesByName.get(name);
+  }
+
+  /**
+   * @param name the method name
+   * @return the first public method of that name, or null if there is none
+   */
+  public Method getMethod(String name) {
+    return methodsByName.get(name);
+  }
+
+  AggregationType getAggregationType(String name) {
+    return aggregationTypes.get(name);
+  }
+
+  void putAggregationType(String name, AggregationType aggregationType) {
+    aggregationTypes.put(name, aggregationType);
+  }
+}
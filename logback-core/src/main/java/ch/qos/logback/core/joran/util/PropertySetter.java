@@ -51,6 +51,7 @@ public class PropertySetter extends ContextAwareBase {
   protected Class<?> objClass;
   protected PropertyDescriptor[] propertyDescriptors;
   protected MethodDescriptor[] methodDescriptors;
+  private BeanDescription beanDescription;
 
   /**
    * Create a new PropertySetter for the specified Object. This is done in
@@ -65,13 +66,14 @@ public class PropertySetter extends ContextAwareBase {
   }
 
   /**
-   * Uses JavaBeans {@link Introspector} to computer setters of object to be
-   * configured.
+   * Looks up the setters of object to be configured. Classes are introspected
+   * only once per process, see {@link BeanDescription}.
    */
   protected void introspect() {
     try {
-      propertyDescriptors = Introspector.getPropertyDescriptors(this.objClass);
-      methodDescriptors = Introspector.getMethodDescriptors(this.objClass);
+      beanDescription = BeanDescription.forClass(this.objClass);
+      propertyDescriptors = beanDescription.getPropertyDescriptors();
+      methodDescriptors = beanDescription.getMethodDescriptors();
     } catch (IntrospectionException ex) {
       addError("Failed to introspect " + obj + ": " + ex.getMessage());
       propertyDescriptors = new PropertyDescriptor[0];
@@ -167,6 +169,21 @@ public class PropertySetter extends ContextAwareBase {
   }
 
   public AggregationType computeAggregationType(String name) {
+    if (beanDescription == null && propertyDescriptors == null) {
+      introspect();
+    }
+    if (beanDescription == null) {
+      return computeAggregationTypeUncached(name);
+    }
+    AggregationType type = beanDescription.getAggregationType(name);
+    if (type == null) {
+      type = computeAggregationTypeUncached(name);
+      beanDescription.putAggregationType(name, type);
+    }
+    return type;
+  }
+
+  private AggregationType computeAggregationTypeUncached(String name) {
     // findAdderMethod() capitalizes name's 1st letter before search
     Method addMethod = findAdderMethod(name);
 
@@ -386,6 +403,9 @@ public class PropertySetter extends ContextAwareBase {
     if (methodDescriptors == null) {
       introspect();
     }
+    if (beanDescription != null) {
+      return beanDescription.getMethod(methodName);
+    }
 
     for (int i = 0; i < methodDescriptors.length; i++) {
       if (methodName.equals(methodDescriptors[i].getName())) {
@@ -400,6 +420,9 @@ public class PropertySetter extends ContextAwareBase {
     if (propertyDescriptors == null) {
       introspect();
     }
+    if (beanDescription != null) {
+      return beanDescription.getPropertyDescriptor(name);
+    }
 
     for (int i = 0; i < propertyDescriptors.length; i++) {
       // System.out.println("Comparing " + name + " against "
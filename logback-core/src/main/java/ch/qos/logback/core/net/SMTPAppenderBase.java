@@ -18,10 +18,13 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.mail.Message;
 import javax.mail.MessagingException;
 import javax.mail.Multipart;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
 import javax.mail.Transport;
 import javax.mail.internet.AddressException;
@@ -41,6 +44,7 @@ import ch.qos.logback.core.sift.DefaultDiscriminator;
 import ch.qos.logback.core.sift.Discriminator;
 import ch.qos.logback.core.spi.CyclicBufferTracker;
 import ch.qos.logback.core.util.ContentTypeUtil;
+import ch.qos.logback.core.util.Duration;
 import ch.qos.logback.core.util.OptionHelper;
 
 // Contributors:
@@ -50,6 +54,16 @@ import ch.qos.logback.core.util.OptionHelper;
  * An abstract class that provides support for sending events to an email
  * address.
  * <p>
+ * With asynchronous sending, triggered buffers wait in a send queue of at
+ * most {@link #setSendQueueSize(int) sendQueueSize} messages and are sent one
+ * at a time, so that an error storm cannot flood the executor with sends.
+ * Buffers triggered when the queue is full are dropped. With a
+ * {@link #setCoalescingWindow(String) coalescingWindow}, buffers of the same
+ * discriminator key triggered within the window are merged into a single
+ * message. The numbers of merged and dropped buffers are reported as status
+ * messages. Unless {@link #setReuseConnection(boolean) reuseConnection} is
+ * false, successive messages are sent over the same SMTP connection.
+ * <p>
  * See http://logback.qos.ch/manual/appenders.html#SMTPAppender for further
  * documentation.
  *
@@ -82,6 +96,29 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
   boolean asynchronousSending = true;
 
+  public static final int DEFAULT_SEND_QUEUE_SIZE = 16;
+  // a merged buffer keeps at most this many times the events of one buffer
+  static final int MAX_COALESCED_BUFFERS = 4;
+
+  private int sendQueueSize = DEFAULT_SEND_QUEUE_SIZE;
+  private Duration coalescingWindow = new Duration(0);
+  private boolean reuseConnection = true;
+
+  // guarded by this appender's lock
+  private final List<PendingMessage<E>> sendQueue = new ArrayList<PendingMessage<E>>();
+  private boolean drainPending = false;
+  // serializes drains, as sendBuffer reuses the same MimeMessage; never
+  // acquired while holding this appender's lock
+  private final Object drainLock = new Object();
+  private long coalescedCount = 0;
+  private long droppedCount = 0;
+  private long reportedCoalescedCount = 0;
+  private long reportedDroppedCount = 0;
+
+  private Session session;
+  private final Object transportLock = new Object();
+  private Transport transport;
+
   private String charsetEncoding = "UTF-8";
 
   protected MimeMessage mimeMsg;
@@ -112,7 +149,7 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
       cbTracker = new CyclicBufferTracker<E>();
     }
 
-    Session session = buildSessionFromProperties();
+    session = buildSessionFromProperties();
 
     if (session == null) {
       addError("Failed to obtain javax.mail.Session. Cannot start.");
@@ -198,8 +235,7 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
         if (asynchronousSending) {
           // perform actual sending asynchronously
-          SenderRunnable senderRunnable = new SenderRunnable(cbClone, eventObject);
-          context.getExecutorService().execute(senderRunnable);
+          enqueue(key, cbClone, eventObject);
         } else {
           // synchronous sending
           sendBuffer(cbClone, eventObject);
@@ -267,8 +303,136 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     return true;
   }
 
-  synchronized public void stop() {
-    this.started = false;
+  public void stop() {
+    synchronized (this) {
+      this.started = false;
+    }
+    // send what is queued without waiting for coalescing windows; the drain
+    // lock must not be taken while holding this appender's lock
+    drainSendQueue();
+  }
+
+  /**
+   * Queues a triggered buffer for asynchronous sending, merging it into a
+   * queued buffer of the same key if within the coalescing window.
+   * Must be called with this appender's lock held.
+   */
+  private void enqueue(String key, CyclicBuffer<E> cb, E eventObject) {
+    long window = coalescingWindow.getMilliseconds();
+    if (window > 0) {
+      for (PendingMessage<E> pending : sendQueue) {
+        if (key == null ? pending.key == null : key.equals(pending.key)) {
+          pending.merge(cb, eventObject);
+          coalescedCount++;
+          return;
+        }
+      }
+    }
+    if (sendQueue.size() >= sendQueueSize) {
+      if (droppedCount++ == 0) {
+        addWarn("Send queue of SMTPAppender [" + name + "] is full, dropping triggered buffers");
+      }
+      return;
+    }
+    sendQueue.add(new PendingMessage<E>(key, cb, eventObject, System.currentTimeMillis() + window));
+    if (!drainPending) {
+      drainPending = scheduleDrain(window);
+      if (!drainPending) {
+        addWarn("Could not schedule sending for SMTPAppender [" + name
+                + "], queued buffers will be sent when it is stopped");
+      }
+    }
+  }
+
+  /**
+   * Schedules a drain of the send queue, returning false if the context's
+   * executors no longer accept tasks.
+   */
+  private boolean scheduleDrain(long delay) {
+    Runnable drainTask = new Runnable() {
+      public void run() {
+        drainSendQueue();
+      }
+    };
+    try {
+      if (delay > 0) {
+        context.getScheduledExecutorService().schedule(drainTask, delay, TimeUnit.MILLISECONDS);
+      } else {
+        context.getExecutorService().execute(drainTask);
+      }
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Sends the queued messages whose coalescing window has elapsed, one at a
+   * time and without holding this appender's lock while sending.
+   */
+  private void drainSendQueue() {
+    synchronized (drainLock) {
+      drainSendQueueLocked();
+    }
+  }
+
+  private void drainSendQueueLocked() {
+    boolean waitForWindows = true;
+    while (true) {
+      PendingMessage<E> next;
+      synchronized (this) {
+        if (sendQueue.isEmpty()) {
+          drainPending = false;
+          reportCounts();
+          if (!started) {
+            closeTransport();
+          }
+          return;
+        }
+        next = sendQueue.get(0);
+        long wait = next.sendTime - System.currentTimeMillis();
+        if (wait > 0 && started && waitForWindows) {
+          if (scheduleDrain(wait)) {
+            return;
+          }
+          // the context is shutting down, send without waiting for the window
+          waitForWindows = false;
+        }
+        sendQueue.remove(0);
+      }
+      sendBuffer(next.buffer, next.lastEvent);
+    }
+  }
+
+  // must be called with this appender's lock held
+  private void reportCounts() {
+    if (coalescedCount == reportedCoalescedCount && droppedCount == reportedDroppedCount) {
+      return;
+    }
+    String msg = "SMTPAppender [" + name + "] merged " + (coalescedCount - reportedCoalescedCount)
+        + " and dropped " + (droppedCount - reportedDroppedCount) + " triggered buffers";
+    if (droppedCount > reportedDroppedCount) {
+      addWarn(msg);
+    } else {
+      addInfo(msg);
+    }
+    reportedCoalescedCount = coalescedCount;
+    reportedDroppedCount = droppedCount;
+  }
+
+  /**
+   * @return the number of triggered buffers merged into a queued message
+   */
+  public synchronized long getCoalescedCount() {
+    return coalescedCount;
+  }
+
+  /**
+   * @return the number of triggered buffers dropped because the send queue
+   * was full
+   */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
   }
 
   InternetAddress getAddress(String addressStr) {
@@ -381,12 +545,56 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
 
       mimeMsg.setSentDate(new Date());
       addInfo("About to send out SMTP message \"" + subjectStr + "\" to " + Arrays.toString(toAddressArray));
-      Transport.send(mimeMsg);
+      transmit(mimeMsg);
     } catch (Exception e) {
       addError("Error occurred while sending e-mail notification.", e);
     }
   }
 
+  private void transmit(MimeMessage msg) throws MessagingException {
+    if (!reuseConnection) {
+      Transport.send(msg);
+      return;
+    }
+    synchronized (transportLock) {
+      msg.saveChanges();
+      try {
+        connectedTransport().sendMessage(msg, msg.getAllRecipients());
+      } catch (SendFailedException e) {
+        throw e;
+      } catch (MessagingException e) {
+        // the server may have closed an idle connection, retry once
+        closeTransport();
+        connectedTransport().sendMessage(msg, msg.getAllRecipients());
+      }
+    }
+  }
+
+  // must be called with transportLock held
+  private Transport connectedTransport() throws MessagingException {
+    if (transport == null) {
+      transport = session.getTransport("smtp");
+    }
+    if (!transport.isConnected()) {
+      transport.connect();
+    }
+    return transport;
+  }
+
+  private void closeTransport() {
+    synchronized (transportLock) {
+      if (transport == null) {
+        return;
+      }
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        // ignore
+      }
+      transport = null;
+    }
+  }
+
   abstract protected void fillBuffer(CyclicBuffer<E> cb, StringBuffer sbuf);
 
   /**
@@ -542,6 +750,49 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     this.asynchronousSending = asynchronousSending;
   }
 
+  public int getSendQueueSize() {
+    return sendQueueSize;
+  }
+
+  /**
+   * The maximum number of messages waiting to be sent asynchronously. The
+   * default is 16.
+   *
+   * @param sendQueueSize the number of messages
+   */
+  public void setSendQueueSize(int sendQueueSize) {
+    this.sendQueueSize = sendQueueSize;
+  }
+
+  public String getCoalescingWindow() {
+    return coalescingWindow.toString();
+  }
+
+  /**
+   * How long a message waits in the send queue for further buffers of the
+   * same discriminator key to be merged into it. The default, 0, sends each
+   * triggered buffer in a message of its own.
+   *
+   * @param coalescingWindow the window, e.g. "30 seconds"
+   */
+  public void setCoalescingWindow(String coalescingWindow) {
+    this.coalescingWindow = Duration.valueOf(coalescingWindow);
+  }
+
+  public boolean isReuseConnection() {
+    return reuseConnection;
+  }
+
+  /**
+   * Whether successive messages are sent over the same SMTP connection, which
+   * is opened on first use and reopened when the server has closed it.
+   *
+   * @param reuseConnection false to open a new connection per message
+   */
+  public void setReuseConnection(boolean reuseConnection) {
+    this.reuseConnection = reuseConnection;
+  }
+
   public void addTo(String to) {
     if (to == null || to.length() == 0) {
       throw new IllegalArgumentException("Null or empty <to> property");
@@ -642,18 +893,36 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
     this.layout = layout;
   }
 
-  class SenderRunnable implements Runnable {
-
-    final CyclicBuffer<E> cyclicBuffer;
-    final E e;
-
-    SenderRunnable(CyclicBuffer<E> cyclicBuffer, E e) {
-      this.cyclicBuffer = cyclicBuffer;
-      this.e = e;
+  /**
+   * A buffer waiting in the send queue, with the event which triggered it
+   * last.
+   */
+  static class PendingMessage<E> {
+
+    final String key;
+    final long sendTime;
+    CyclicBuffer<E> buffer;
+    E lastEvent;
+
+    PendingMessage(String key, CyclicBuffer<E> buffer, E lastEvent, long sendTime) {
+      this.key = key;
+      this.buffer = buffer;
+      this.lastEvent = lastEvent;
+      this.sendTime = sendTime;
     }
 
-    public void run() {
-      sendBuffer(cyclicBuffer, e);
+    void merge(CyclicBuffer<E> other, E event) {
+      int maxSize = Math.min(buffer.length() + other.length(),
+          MAX_COALESCED_BUFFERS * Math.max(buffer.getMaxSize(), other.getMaxSize()));
+      CyclicBuffer<E> merged = new CyclicBuffer<E>(Math.max(1, maxSize));
+      for (E e : buffer.asList()) {
+        merged.add(e);
+      }
+      for (E e : other.asList()) {
+        merged.add(e);
+      }
+      buffer = merged;
+      lastEvent = event;
     }
   }
 }
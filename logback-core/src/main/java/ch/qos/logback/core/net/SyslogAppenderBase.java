@@ -13,37 +13,78 @@
  */
 package ch.qos.logback.core.net;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.Layout;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 
 /**
  * Base class for SyslogAppender.
  *
+ * <p>Messages are sent over UDP by default, one datagram per message. With
+ * {@link #setTransport(String) transport} set to <code>tcp</code>, they are
+ * sent over a TCP connection with octet-counting framing (RFC 6587).
+ *
+ * <p>With a {@link #setQueueSize(int) queueSize} greater than zero, logging
+ * threads only lay out the event and add it to a lock-free queue. The queue
+ * is drained on the context's executor, at most
+ * {@link #setBatchSize(int) batchSize} events at a time, and over TCP each
+ * batch goes out in a single write. Events arriving while the queue is full
+ * are dropped. With {@link #setPackMessages(boolean) packMessages} set, UDP
+ * messages sent together are packed into as few datagrams as
+ * {@link #setMaxMessageSize(int) maxMessageSize} allows, separated by line
+ * feeds; only enable this if the receiver splits datagrams at line feeds.
+ *
  * @author Ceki G&uuml;lc&uuml;
  *
  * @param <E> type of log event object
  */
-public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
+public abstract class SyslogAppenderBase<E> extends UnsynchronizedAppenderBase<E> {
 
   final static String SYSLOG_LAYOUT_URL = CoreConstants.CODES_URL
       + "#syslog_layout";
   final static int MAX_MESSAGE_SIZE_LIMIT = 65000;
 
+  public static final String UDP_TRANSPORT = "udp";
+  public static final String TCP_TRANSPORT = "tcp";
+  public static final int DEFAULT_BATCH_SIZE = 128;
+
   Layout<E> layout;
   String facilityStr;
   String syslogHost;
   protected String suffixPattern;
   protected SyslogOutputStream sos;
+  SyslogTcpOutputStream tcpStream;
   int port = SyslogConstants.SYSLOG_PORT;
-  boolean initialized = false;
+  volatile boolean initialized = false;
   private boolean lazyInit = false;
   int maxMessageSize;
+  private String transport = UDP_TRANSPORT;
+  private int queueSize = 0;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private boolean packMessages = false;
+
+  // guards the streams, and keeps batches in order
+  private final Object sendLock = new Object();
+  private final Queue<List<byte[]>> queue = new ConcurrentLinkedQueue<List<byte[]>>();
+  private final AtomicInteger queuedCount = new AtomicInteger();
+  private final AtomicBoolean drainScheduled = new AtomicBoolean();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private long reportedDroppedCount = 0;
+  private boolean sendFailing = false;
 
   public void start() {
     int errorCount = 0;
@@ -51,12 +92,23 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
       addError("The Facility option is mandatory");
       errorCount++;
     }
+    if (!UDP_TRANSPORT.equalsIgnoreCase(transport) && !TCP_TRANSPORT.equalsIgnoreCase(transport)) {
+      addError("Unknown transport [" + transport + "], expected " + UDP_TRANSPORT + " or " + TCP_TRANSPORT);
+      errorCount++;
+    }
+    if (queueSize < 0 || batchSize < 1) {
+      addError("Invalid queueSize [" + queueSize + "] or batchSize [" + batchSize + "]");
+      errorCount++;
+    }
 
-    if (!lazyInit) {
+    if (!lazyInit && errorCount == 0) {
       // this connect() does not retry (unlike the one in SocketAppenderBase)
       // so account for the error if no connection established
-      if (!connect()) {
-        errorCount++;
+      synchronized (sendLock) {
+        initialized = false;
+        if (!connect()) {
+          errorCount++;
+        }
       }
     }
 
@@ -73,17 +125,26 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
 
   abstract public int getSeverityForEvent(Object eventObject);
 
+  // must be called with sendLock held
   private boolean connect() {
     try {
-      sos = new SyslogOutputStream(syslogHost, port);
-
-      final int systemDatagramSize = sos.getSendBufferSize();
-      if (maxMessageSize == 0) {
-        maxMessageSize = Math.min(systemDatagramSize, MAX_MESSAGE_SIZE_LIMIT);
-        addInfo("Defaulting maxMessageSize to [" + maxMessageSize + "]");
-      } else if (maxMessageSize > systemDatagramSize) {
-        addWarn("maxMessageSize of [" + maxMessageSize + "] is larger than the system defined datagram size of [" + systemDatagramSize + "].");
-        addWarn("This may result in dropped logs.");
+      if (isTcp()) {
+        tcpStream = new SyslogTcpOutputStream(syslogHost, port);
+        if (maxMessageSize == 0) {
+          maxMessageSize = MAX_MESSAGE_SIZE_LIMIT;
+          addInfo("Defaulting maxMessageSize to [" + maxMessageSize + "]");
+        }
+      } else {
+        sos = new SyslogOutputStream(syslogHost, port);
+
+        final int systemDatagramSize = sos.getSendBufferSize();
+        if (maxMessageSize == 0) {
+          maxMessageSize = Math.min(systemDatagramSize, MAX_MESSAGE_SIZE_LIMIT);
+          addInfo("Defaulting maxMessageSize to [" + maxMessageSize + "]");
+        } else if (maxMessageSize > systemDatagramSize) {
+          addWarn("maxMessageSize of [" + maxMessageSize + "] is larger than the system defined datagram size of [" + systemDatagramSize + "].");
+          addWarn("This may result in dropped logs.");
+        }
       }
     } catch (UnknownHostException e) {
       addError("Could not create SyslogWriter", e);
@@ -92,9 +153,19 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
           "Failed to bind to a random datagram socket. Will try to reconnect later.",
           e);
     }
+    // written last, so that threads seeing it set also see the streams
+    initialized = true;
 
-    // SyslogOutputStream must be non-null to be connected
-    return sos != null;
+    // the output stream must be non-null to be connected
+    return isConnected();
+  }
+
+  private boolean isTcp() {
+    return TCP_TRANSPORT.equalsIgnoreCase(transport);
+  }
+
+  private boolean isConnected() {
+    return sos != null || tcpStream != null;
   }
 
   @Override
@@ -104,33 +175,219 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
     }
 
     if (!initialized && lazyInit) {
-      initialized = true;
-      connect();
+      synchronized (sendLock) {
+        if (!initialized) {
+          connect();
+        }
+      }
+    }
+    if (!isConnected()) {
+      return;
     }
-    if (sos == null) {
+
+    List<byte[]> messages = layoutMessages(eventObject);
+    if (messages.isEmpty()) {
+      return;
+    }
+    if (queueSize > 0) {
+      enqueue(messages);
+    } else {
+      synchronized (sendLock) {
+        send(messages);
+      }
+    }
+  }
+
+  /**
+   * Lays out an event into the messages sent for it: the event itself
+   * followed by whatever {@link #postProcess(Object, OutputStream)} writes,
+   * each flush ending a message.
+   */
+  private List<byte[]> layoutMessages(E eventObject) {
+    MessageCollector collector = new MessageCollector();
+    String msg = layout.doLayout(eventObject);
+    if (msg == null) {
+      return collector.messages;
+    }
+    if (msg.length() > maxMessageSize) {
+      msg = msg.substring(0, maxMessageSize);
+    }
+    collector.write(msg.getBytes());
+    collector.flush();
+    postProcess(eventObject, collector);
+    collector.flush();
+    return collector.messages;
+  }
+
+  private void enqueue(List<byte[]> messages) {
+    if (queuedCount.incrementAndGet() > queueSize) {
+      queuedCount.decrementAndGet();
+      if (droppedCount.getAndIncrement() == 0) {
+        addWarn("Send queue of SyslogAppender [" + name + "] is full, dropping events");
+      }
       return;
     }
+    queue.offer(messages);
+    if (drainScheduled.compareAndSet(false, true)) {
+      executeDrain();
+    }
+  }
+
+  private void executeDrain() {
+    Runnable drainTask = new Runnable() {
+      public void run() {
+        drainQueue();
+      }
+    };
+    try {
+      getContext().getExecutorService().execute(drainTask);
+    } catch (RejectedExecutionException e) {
+      // the context is shutting down, send the queued events on this thread
+      drainTask.run();
+    }
+  }
+
+  private void drainQueue() {
+    while (true) {
+      while (sendBatch()) {
+        // keep sending while events arrive
+      }
+      drainScheduled.set(false);
+      // an event queued after the last batch may have seen the flag still set
+      if (queue.isEmpty() || !drainScheduled.compareAndSet(false, true)) {
+        break;
+      }
+    }
+    synchronized (sendLock) {
+      reportDroppedCount();
+    }
+  }
+
+  /**
+   * Sends up to batchSize queued events at once.
+   *
+   * @return false if the queue was empty
+   */
+  private boolean sendBatch() {
+    synchronized (sendLock) {
+      List<byte[]> batch = new ArrayList<byte[]>();
+      int count = 0;
+      List<byte[]> messages;
+      while (count < batchSize && (messages = queue.poll()) != null) {
+        batch.addAll(messages);
+        count++;
+      }
+      if (count == 0) {
+        return false;
+      }
+      queuedCount.addAndGet(-count);
+      send(batch);
+      return true;
+    }
+  }
 
+  // must be called with sendLock held
+  private void send(List<byte[]> messages) {
     try {
-      String msg = layout.doLayout(eventObject);
-      if(msg == null) {
-        return;
+      if (tcpStream != null) {
+        for (byte[] message : messages) {
+          tcpStream.writeMessage(message);
+        }
+        tcpStream.flush();
+      } else if (sos != null) {
+        if (packMessages) {
+          sendPacked(messages);
+        } else {
+          for (byte[] message : messages) {
+            sos.write(message);
+            sos.flush();
+          }
+        }
       }
-      if (msg.length() > maxMessageSize) {
-        msg = msg.substring(0, maxMessageSize);
+      if (sendFailing) {
+        sendFailing = false;
+        addInfo("Resumed sending to " + syslogHost);
       }
-      sos.write(msg.getBytes());
-      sos.flush();
-      postProcess(eventObject, sos);
     } catch (IOException ioe) {
-      addError("Failed to send diagram to " + syslogHost, ioe);
+      // reported once, until sending succeeds again
+      if (!sendFailing) {
+        sendFailing = true;
+        addError("Failed to send diagram to " + syslogHost, ioe);
+      }
+    }
+  }
+
+  private void sendPacked(List<byte[]> messages) throws IOException {
+    int size = 0;
+    for (byte[] message : messages) {
+      if (size > 0 && size + 1 + message.length > maxMessageSize) {
+        sos.flush();
+        size = 0;
+      }
+      if (size > 0) {
+        sos.write('\n');
+        size++;
+      }
+      sos.write(message);
+      size += message.length;
     }
+    sos.flush();
+  }
+
+  // must be called with sendLock held
+  private void reportDroppedCount() {
+    long dropped = droppedCount.get();
+    if (dropped > reportedDroppedCount) {
+      addWarn("SyslogAppender [" + name + "] dropped " + (dropped - reportedDroppedCount) + " events");
+      reportedDroppedCount = dropped;
+    }
+  }
+
+  /**
+   * @return the number of events dropped because the send queue was full
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
   }
 
   protected void postProcess(Object event, OutputStream sw) {
 
   }
 
+  /**
+   * Collects the messages of one event. The bytes written between two
+   * flushes form one message.
+   */
+  static class MessageCollector extends OutputStream {
+
+    final List<byte[]> messages = new ArrayList<byte[]>(1);
+    private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+      current.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      current.write(b, off, len);
+    }
+
+    @Override
+    public void write(byte[] b) {
+      current.write(b, 0, b.length);
+    }
+
+    @Override
+    public void flush() {
+      // as with datagrams, an empty message is not sent
+      if (current.size() > 0) {
+        messages.add(current.toByteArray());
+        current.reset();
+      }
+    }
+  }
+
   /**
    * Returns the integer value corresponding to the named syslog facility.
    *
@@ -307,10 +564,94 @@ public abstract class SyslogAppenderBase<E> extends AppenderBase<E> {
     lazyInit = enable;
   }
 
+  /**
+   * Returns the value of the <b>Transport</b> option.
+   * @return udp or tcp
+   */
+  public String getTransport() {
+    return transport;
+  }
+
+  /**
+   * The <b>Transport</b> option selects how messages reach the syslog
+   * server: <code>udp</code> (the default) sends one datagram per message,
+   * <code>tcp</code> sends messages over a TCP connection, each preceded by
+   * its length (octet counting, RFC 6587).
+   * @param transport udp or tcp
+   */
+  public void setTransport(String transport) {
+    if (transport != null) {
+      transport = transport.trim();
+    }
+    this.transport = transport;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  /**
+   * The maximum number of events waiting to be sent. With a value of 0 (the
+   * default), events are sent on the logging thread. Otherwise they are sent
+   * in batches on the context's executor, and events arriving while the queue
+   * is full are dropped.
+   * @param queueSize the number of events
+   */
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * The maximum number of queued events sent together. Over TCP, a batch is
+   * sent in a single write.
+   * @param batchSize the number of events
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public boolean isPackMessages() {
+    return packMessages;
+  }
+
+  /**
+   * Whether messages sent together over UDP are packed into one datagram,
+   * separated by line feeds, up to {@link #setMaxMessageSize(int)
+   * maxMessageSize} bytes. The receiver must split datagrams at line feeds.
+   * Messages are sent together when they belong to the same event, such as
+   * stack trace lines, or to the same batch.
+   * @param packMessages true to pack messages
+   */
+  public void setPackMessages(boolean packMessages) {
+    this.packMessages = packMessages;
+  }
+
   @Override
   public void stop() {
-    sos.close();
+    if (!isStarted()) {
+      return;
+    }
     super.stop();
+    // send what is queued, then release the streams
+    while (sendBatch()) {
+      // until the queue is empty
+    }
+    synchronized (sendLock) {
+      reportDroppedCount();
+      if (sos != null) {
+        sos.close();
+      }
+      if (tcpStream != null) {
+        tcpStream.close();
+      }
+      sos = null;
+      tcpStream = null;
+      initialized = false;
+    }
   }
 
 /**
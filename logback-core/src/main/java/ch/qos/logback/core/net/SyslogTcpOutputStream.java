@@ -0,0 +1,205 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+
+import ch.qos.logback.core.recovery.RecoveryCoordinator;
+
+/**
+ * SyslogTcpOutputStream sends syslog messages over a TCP connection, framed
+ * by octet counting as described in RFC 6587: every message is preceded by
+ * its length in bytes and a space.
+ *
+ * <p>As with {@link SyslogOutputStream}, the bytes written between two calls
+ * to {@link #flush()} form one message. {@link #writeMessage(byte[])} frames a
+ * complete message into the send buffer without flushing it, so that a batch
+ * of messages goes out in a single write on the socket.
+ *
+ * <p>The connection is opened on the first write. After an I/O failure the
+ * connection is dropped together with the messages buffered on it, and
+ * reopened on a later write, backing off between attempts.
+ */
+public class SyslogTcpOutputStream extends OutputStream {
+
+  static final int BUFFER_SIZE = 8192;
+  static final int DEFAULT_CONNECTION_TIMEOUT = 5000;
+
+  private final InetAddress address;
+  private final int port;
+  private int connectionTimeout = DEFAULT_CONNECTION_TIMEOUT;
+
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private Socket socket;
+  private OutputStream out;
+  private RecoveryCoordinator recoveryCoordinator;
+  private boolean closed = false;
+
+  public SyslogTcpOutputStream(String syslogHost, int port) throws UnknownHostException {
+    this.address = InetAddress.getByName(syslogHost);
+    this.port = port;
+  }
+
+  /**
+   * Frames a message and adds it to the send buffer. The message is sent
+   * when the buffer fills up or on the next {@link #flush()}.
+   *
+   * @param message the message, without any trailer
+   * @throws IOException if the connection cannot be opened or fails
+   */
+  public void writeMessage(byte[] message) throws IOException {
+    writeMessage(message, 0, message.length);
+  }
+
+  private void writeMessage(byte[] message, int offset, int len) throws IOException {
+    OutputStream os = getConnectedStream();
+    try {
+      writeOctetCount(os, len);
+      os.write(message, offset, len);
+    } catch (IOException e) {
+      disconnect();
+      throw e;
+    }
+  }
+
+  private static void writeOctetCount(OutputStream os, int len) throws IOException {
+    String count = Integer.toString(len);
+    for (int i = 0; i < count.length(); i++) {
+      os.write(count.charAt(i));
+    }
+    os.write(' ');
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    pending.write(b);
+  }
+
+  @Override
+  public void write(byte[] byteArray, int offset, int len) throws IOException {
+    pending.write(byteArray, offset, len);
+  }
+
+  /**
+   * Sends the bytes written since the last flush as one message, together
+   * with the messages buffered by {@link #writeMessage(byte[])}.
+   */
+  @Override
+  public void flush() throws IOException {
+    if (pending.size() > 0) {
+      byte[] message = pending.toByteArray();
+      pending.reset();
+      writeMessage(message);
+    }
+    if (out == null) {
+      return;
+    }
+    try {
+      out.flush();
+    } catch (IOException e) {
+      disconnect();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    pending.reset();
+    if (out != null) {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        // the connection is closed below regardless
+      }
+    }
+    disconnect();
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public int getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  /**
+   * @param connectionTimeout the time to wait for a connection to be
+   * established, in milliseconds
+   */
+  public void setConnectionTimeout(int connectionTimeout) {
+    this.connectionTimeout = connectionTimeout;
+  }
+
+  /**
+   * @return true if a connection is currently open
+   */
+  public boolean isConnected() {
+    return out != null;
+  }
+
+  private OutputStream getConnectedStream() throws IOException {
+    if (out != null) {
+      return out;
+    }
+    if (closed) {
+      throw new IOException("Stream to " + address + ":" + port + " is closed");
+    }
+    if (recoveryCoordinator != null && recoveryCoordinator.isTooSoon()) {
+      throw new IOException("Not connected to " + address + ":" + port);
+    }
+    Socket newSocket = new Socket();
+    try {
+      newSocket.connect(new InetSocketAddress(address, port), connectionTimeout);
+      out = new BufferedOutputStream(newSocket.getOutputStream(), BUFFER_SIZE);
+    } catch (IOException e) {
+      closeQuietly(newSocket);
+      if (recoveryCoordinator == null) {
+        recoveryCoordinator = new RecoveryCoordinator();
+      }
+      throw e;
+    }
+    socket = newSocket;
+    recoveryCoordinator = null;
+    return out;
+  }
+
+  private void disconnect() {
+    if (socket == null) {
+      return;
+    }
+    closeQuietly(socket);
+    socket = null;
+    out = null;
+    if (!closed) {
+      recoveryCoordinator = new RecoveryCoordinator();
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // nothing more can be done
+    }
+  }
+}
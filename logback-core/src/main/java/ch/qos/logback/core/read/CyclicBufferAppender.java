@@ -13,23 +13,28 @@
  */
 package ch.qos.logback.core.read;
 
-import ch.qos.logback.core.AppenderBase;
-import ch.qos.logback.core.helpers.CyclicBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.helpers.ConcurrentCyclicBuffer;
 
 /**
  * CyclicBufferAppender stores events in a cyclic buffer of user-specified size. As the
  * name suggests, if the size of the buffer is N, only the latest N events are available.
  *
+ * <p>The buffer is a {@link ConcurrentCyclicBuffer}: logging threads append
+ * without locking, and reading the buffer never blocks them.
  *
  * @author Ceki Gulcu
  */
-public class CyclicBufferAppender<E> extends AppenderBase<E> {
+public class CyclicBufferAppender<E> extends UnsynchronizedAppenderBase<E> {
 
-  CyclicBuffer<E> cb;
+  volatile ConcurrentCyclicBuffer<E> cb;
   int maxSize = 512;
 
   public void start() {
-    cb = new CyclicBuffer<E>(maxSize);
+    cb = new ConcurrentCyclicBuffer<E>(maxSize);
     super.start();
   }
 
@@ -40,30 +45,51 @@ public class CyclicBufferAppender<E> extends AppenderBase<E> {
 
   @Override
   protected void append(E eventObject) {
-    if (!isStarted()) {
+    ConcurrentCyclicBuffer<E> buffer = cb;
+    if (buffer == null) {
       return;
     }
-    cb.add(eventObject);
+    buffer.add(eventObject);
   }
 
   public int getLength() {
-    if (isStarted()) {
-      return cb.length();
+    ConcurrentCyclicBuffer<E> buffer = cb;
+    if (buffer != null) {
+      return buffer.length();
     } else {
       return 0;
     }
   }
 
   public E get(int i) {
-    if (isStarted()) {
-      return cb.get(i);
+    ConcurrentCyclicBuffer<E> buffer = cb;
+    if (buffer != null) {
+      return buffer.get(i);
     } else {
       return null;
     }
   }
 
+  /**
+   * Returns the buffered events, oldest first, without blocking the threads
+   * appending to the buffer.
+   *
+   * @return a copy of the buffered events
+   */
+  public List<E> asList() {
+    ConcurrentCyclicBuffer<E> buffer = cb;
+    if (buffer != null) {
+      return buffer.asList();
+    } else {
+      return Collections.emptyList();
+    }
+  }
+
   public void reset() {
-    cb.clear();
+    ConcurrentCyclicBuffer<E> buffer = cb;
+    if (buffer != null) {
+      buffer.clear();
+    }
   }
 
   /**
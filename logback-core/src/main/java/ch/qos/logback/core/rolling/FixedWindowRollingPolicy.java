@@ -13,11 +13,21 @@
  */
 package ch.qos.logback.core.rolling;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.rolling.helper.*;
+import ch.qos.logback.core.util.CloseUtil;
 
 /**
  * When rolling over, <code>FixedWindowRollingPolicy</code> renames files
@@ -37,7 +47,15 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   RenameUtil util = new RenameUtil();
   Compressor compressor;
 
+  boolean ringIndexed = false;
+  String manifestFileName;
+  // index of the most recent archive, only used in ring indexed mode
+  int lastIndex;
+  // number of archives in the ring, from lastIndex backwards
+  int archiveCount;
+
   public static final String ZIP_ENTRY_DATE_PATTERN = "yyyy-MM-dd_HHmm";
+  public static final String MANIFEST_SUFFIX = ".manifest";
 
   /**
    * It's almost always a bad idea to have a large window size, say over 20.
@@ -101,6 +119,14 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
     }
     compressor = new Compressor(compressionMode);
     compressor.setContext(this.context);
+
+    if (ringIndexed) {
+      if (manifestFileName == null) {
+        manifestFileName = getActiveFileName() + MANIFEST_SUFFIX;
+      }
+      recoverRing();
+      addInfo("Ring indexed mode, archive order is kept in [" + manifestFileName + "]");
+    }
     super.start();
   }
 
@@ -125,6 +151,11 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
     // closed.
     // If maxIndex <= 0, then there is no file renaming to be done.
     if (maxIndex >= 0) {
+      if (ringIndexed) {
+        ringRollover();
+        return;
+      }
+
       // Delete the oldest file, to keep Windows happy.
       File file = new File(fileNamePattern.convertInt(maxIndex));
 
@@ -145,19 +176,144 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
       }
 
       // move active file name to min
-      switch (compressionMode) {
-      case NONE:
-        util.rename(getActiveFileName(), fileNamePattern
-            .convertInt(minIndex));
-        break;
-      case GZ:
-        compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), null);
-        break;
-      case ZIP:
-        compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), zipEntryFileNamePattern.convert(new Date()));
-        break;
+      archiveActiveFile(minIndex);
+    }
+  }
+
+  /**
+   * In ring indexed mode, archives are not shifted. Instead, the active file
+   * replaces the oldest archive which is the one following the most recent
+   * archive in the window. Thus a rollover costs one delete and one rename
+   * (or compression) regardless of the window size. The manifest file lists
+   * the archives from the most recent to the oldest.
+   */
+  private void ringRollover() throws RolloverFailure {
+    int index = (lastIndex < minIndex || lastIndex >= maxIndex) ? minIndex : lastIndex + 1;
+
+    // a missing archive makes delete() return false, no need to check first
+    new File(fileNamePattern.convertInt(index)).delete();
+    archiveActiveFile(index);
+    lastIndex = index;
+    if (archiveCount < maxIndex - minIndex + 1) {
+      archiveCount++;
+    }
+    writeManifest();
+  }
+
+  private void archiveActiveFile(int index) throws RolloverFailure {
+    String target = fileNamePattern.convertInt(index);
+    switch (compressionMode) {
+    case NONE:
+      util.rename(getActiveFileName(), target);
+      break;
+    case GZ:
+      if (isParentCompressingOnWrite()) {
+        util.rename(getActiveFileName(), target);
+      } else {
+        compressor.compress(getActiveFileName(), target, null);
+      }
+      break;
+    case ZIP:
+      compressor.compress(getActiveFileName(), target, zipEntryFileNamePattern.convert(new Date()));
+      break;
+    }
+  }
+
+  /**
+   * Finds the index of the most recent archive and the number of archives,
+   * first by looking at the manifest and, failing that, at the archives
+   * themselves. This is the only place where the window is scanned; later
+   * rollovers derive the manifest from lastIndex and archiveCount.
+   */
+  void recoverRing() {
+    List<String> entries = readManifestEntries();
+    if (!entries.isEmpty()) {
+      String mostRecent = entries.get(0);
+      for (int i = minIndex; i <= maxIndex; i++) {
+        if (mostRecent.equals(fileNamePattern.convertInt(i))) {
+          lastIndex = i;
+          archiveCount = Math.min(entries.size(), maxIndex - minIndex + 1);
+          return;
+        }
+      }
+      addWarn("Manifest entry [" + mostRecent + "] is not part of the window, ignoring manifest");
+    }
+
+    int index = maxIndex;
+    int count = 0;
+    long newest = Long.MIN_VALUE;
+    for (int i = minIndex; i <= maxIndex; i++) {
+      File file = new File(fileNamePattern.convertInt(i));
+      if (file.exists()) {
+        count++;
+        if (file.lastModified() > newest) {
+          newest = file.lastModified();
+          index = i;
+        }
       }
     }
+    lastIndex = index;
+    archiveCount = count;
+  }
+
+  private List<String> readManifestEntries() {
+    List<String> entries = new ArrayList<String>();
+    File manifest = new File(manifestFileName);
+    if (!manifest.exists()) {
+      return entries;
+    }
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), "UTF-8"));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() > 0) {
+          entries.add(line);
+        }
+      }
+    } catch (IOException e) {
+      addWarn("Failed to read manifest [" + manifestFileName + "]", e);
+      entries.clear();
+    } finally {
+      CloseUtil.closeQuietly(reader);
+    }
+    return entries;
+  }
+
+  /**
+   * Lists the archives from the most recent to the oldest. The manifest is
+   * written to a temporary file first, so that a crash cannot leave it
+   * truncated.
+   */
+  private void writeManifest() {
+    int windowSize = maxIndex - minIndex + 1;
+    StringBuilder sb = new StringBuilder();
+    for (int k = 0; k < archiveCount; k++) {
+      int i = lastIndex - k;
+      if (i < minIndex) {
+        i += windowSize;
+      }
+      sb.append(fileNamePattern.convertInt(i)).append(CoreConstants.LINE_SEPARATOR);
+    }
+
+    File manifest = new File(manifestFileName);
+    File tmpFile = new File(manifestFileName + ".tmp");
+    Writer writer = null;
+    try {
+      writer = new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8");
+      writer.write(sb.toString());
+      writer.close();
+      writer = null;
+      // renameTo does not replace an existing file on all platforms
+      if (!tmpFile.renameTo(manifest) && !(manifest.delete() && tmpFile.renameTo(manifest))) {
+        addWarn("Failed to rename [" + tmpFile + "] to [" + manifestFileName + "]");
+      }
+    } catch (IOException e) {
+      addWarn("Failed to write manifest [" + manifestFileName + "]", e);
+    } finally {
+      CloseUtil.closeQuietly(writer);
+      tmpFile.delete();
+    }
   }
 
   /**
@@ -182,4 +338,35 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   public void setMinIndex(int minIndex) {
     this.minIndex = minIndex;
   }
+
+  public boolean isRingIndexed() {
+    return ringIndexed;
+  }
+
+  /**
+   * When set to true, archives keep the index they were given at rollover
+   * instead of being renamed one by one on every rollover. The index of an
+   * archive then no longer tells its age; the order is recorded in the
+   * manifest file instead. Default is false.
+   *
+   * @param ringIndexed true to enable ring indexed mode
+   */
+  public void setRingIndexed(boolean ringIndexed) {
+    this.ringIndexed = ringIndexed;
+  }
+
+  public String getManifestFile() {
+    return manifestFileName;
+  }
+
+  /**
+   * Sets the file listing the archives from the most recent to the oldest in
+   * ring indexed mode. Defaults to the active file name followed by
+   * {@value #MANIFEST_SUFFIX}.
+   *
+   * @param manifestFile path of the manifest file
+   */
+  public void setManifestFile(String manifestFile) {
+    this.manifestFileName = manifestFile;
+  }
 }
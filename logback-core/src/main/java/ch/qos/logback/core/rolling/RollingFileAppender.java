@@ -14,11 +14,15 @@
 package ch.qos.logback.core.rolling;
 
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import ch.qos.logback.core.rolling.helper.BlockGZIPOutputStream;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.util.FileSize;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import static ch.qos.logback.core.CoreConstants.CODES_URL;
 
@@ -38,6 +42,12 @@ public class RollingFileAppender<E> extends FileAppender<E> {
   TriggeringPolicy<E> triggeringPolicy;
   RollingPolicy rollingPolicy;
 
+  boolean compressOnWrite = false;
+  String compressionBlockSizeAsString = Integer.toString(BlockGZIPOutputStream.DEFAULT_BLOCK_SIZE);
+  int compressionBlockSize = BlockGZIPOutputStream.DEFAULT_BLOCK_SIZE;
+  // true when rollovers are run on schedule rather than by logging events
+  boolean rolloverOnSchedule = false;
+
   static private String RFA_NO_TP_URL = CODES_URL + "#rfa_no_tp";
   static private String RFA_NO_RP_URL = CODES_URL + "#rfa_no_rp";
   static private String COLLISION_URL = CODES_URL + "#rfa_collision";
@@ -75,12 +85,21 @@ public class RollingFileAppender<E> extends FileAppender<E> {
         addWarn("Setting \"File\" property to null on account of prudent mode");
         setFile(null);
       }
-      if (rollingPolicy.getCompressionMode() != CompressionMode.NONE) {
+      if (rollingPolicy.getCompressionMode() != CompressionMode.NONE || compressOnWrite) {
         addError("Compression is not supported in prudent mode. Aborting");
         return;
       }
     }
 
+    if (compressOnWrite && rollingPolicy.getCompressionMode() != CompressionMode.GZ) {
+      addWarn("CompressOnWrite requires a fileNamePattern ending with .gz");
+      addWarn("Falling back to compression at rollover time, if any");
+      compressOnWrite = false;
+    }
+
+    rolloverOnSchedule = (triggeringPolicy instanceof TimeBasedRollingPolicy)
+        && ((TimeBasedRollingPolicy<?>) triggeringPolicy).isScheduledRollover();
+
     currentlyActiveFile = new File(getFile());
     addInfo("Active log file name: " + getFile());
     super.start();
@@ -122,6 +141,18 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     return rollingPolicy.getActiveFileName();
   }
 
+  /**
+   * In compress-on-write mode, wraps the active file's stream so that events
+   * are gzip compressed as they are written.
+   */
+  @Override
+  protected OutputStream wrapFileOutputStream(ResilientFileOutputStream resilientFos) {
+    if (!compressOnWrite) {
+      return resilientFos;
+    }
+    return new BlockGZIPOutputStream(resilientFos, compressionBlockSize);
+  }
+
   /**
    * Implemented by delegating most of the rollover work to a rolling policy.
    */
@@ -166,10 +197,13 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     // only correct behavior for time driven triggers.
 
     // We need to synchronize on triggeringPolicy so that only one rollover
-    // occurs at a time
-    synchronized (triggeringPolicy) {
-      if (triggeringPolicy.isTriggeringEvent(currentlyActiveFile, event)) {
-        rollover();
+    // occurs at a time. Scheduled rollovers need no check here: rollover()
+    // takes the lock of this appender, which excludes concurrent writes.
+    if (!rolloverOnSchedule) {
+      synchronized (triggeringPolicy) {
+        if (triggeringPolicy.isTriggeringEvent(currentlyActiveFile, event)) {
+          rollover();
+        }
       }
     }
 
@@ -206,4 +240,48 @@ public class RollingFileAppender<E> extends FileAppender<E> {
       rollingPolicy = (RollingPolicy) policy;
     }
   }
+
+  public boolean isCompressOnWrite() {
+    return compressOnWrite;
+  }
+
+  /**
+   * When set to true, the active log file is written as a gzip stream made of
+   * independently compressed blocks instead of plain text. Rollover then only
+   * needs to rename the active file, instead of reading it back in order to
+   * compress it. Requires a fileNamePattern ending with <code>.gz</code>. The
+   * active file should also be named with a <code>.gz</code> suffix since its
+   * contents are compressed. Default is false.
+   *
+   * <p>Events are buffered until a block fills up (see
+   * {@link #setCompressionBlockSize(String)}) so the immediateFlush setting of
+   * the encoder has no effect in this mode. Size based triggering policies
+   * measure the compressed size of the active file.
+   *
+   * @param compressOnWrite true to compress events as they are written
+   */
+  public void setCompressOnWrite(boolean compressOnWrite) {
+    this.compressOnWrite = compressOnWrite;
+  }
+
+  public String getCompressionBlockSize() {
+    return compressionBlockSizeAsString;
+  }
+
+  /**
+   * Sets the amount of uncompressed data gathered before a block is
+   * compressed and written to disk in compress-on-write mode. Default is 64KB.
+   *
+   * @param compressionBlockSize the block size, e.g. "64KB"
+   */
+  public void setCompressionBlockSize(String compressionBlockSize) {
+    FileSize size = FileSize.valueOf(compressionBlockSize);
+    if (size.getSize() <= 0 || size.getSize() > Integer.MAX_VALUE) {
+      addWarn("Invalid compression block size [" + compressionBlockSize + "], keeping "
+              + compressionBlockSizeAsString);
+      return;
+    }
+    this.compressionBlockSizeAsString = compressionBlockSize;
+    this.compressionBlockSize = (int) size.getSize();
+  }
 }
@@ -86,6 +86,10 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
     this.parent = appender;
   }
 
+  protected FileAppender<?> getParent() {
+    return parent;
+  }
+
   public boolean isParentPrudent() {
     return parent.isPrudent();
   }
@@ -93,4 +97,13 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
   public String getParentsRawFileProperty() {
     return parent.rawFileProperty();
   }
+
+  /**
+   * @return true if the parent appender already writes compressed output, in
+   * which case rolling over only requires renaming the active file
+   */
+  public boolean isParentCompressingOnWrite() {
+    return (parent instanceof RollingFileAppender)
+        && ((RollingFileAppender<?>) parent).isCompressOnWrite();
+  }
 }
@@ -15,8 +15,10 @@ package ch.qos.logback.core.rolling;
 
 import java.io.File;
 import java.util.Date;
+import java.util.regex.Pattern;
 
 import ch.qos.logback.core.joran.spi.NoAutoStart;
+import ch.qos.logback.core.rolling.helper.ArchiveIndex;
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
@@ -30,6 +32,7 @@ public class SizeAndTimeBasedFNATP<E> extends
   int currentPeriodsCounter = 0;
   FileSize maxFileSize;
   String maxFileSizeAsString;
+  ArchiveIndex archiveIndex;
 
   @Override
   public void start() {
@@ -37,37 +40,48 @@ public class SizeAndTimeBasedFNATP<E> extends
     // in super.start()
     super.start();
 
+    if (ArchiveIndex.isApplicable(tbrp.fileNamePattern)) {
+      archiveIndex = new ArchiveIndex(tbrp.fileNamePattern);
+      archiveIndex.setContext(context);
+    }
+
     archiveRemover = createArchiveRemover();
     archiveRemover.setContext(context);
 
     // we need to get the correct value of currentPeriodsCounter.
     // usually the value is 0, unless the appender or the application
     // is stopped and restarted within the same period
-    String regex = tbrp.fileNamePattern.toRegexForFixedDate(dateInCurrentPeriod);
-    String stemRegex = FileFilterUtil.afterLastSlash(regex);
-
-
-    computeCurrentPeriodsHighestCounterValue(stemRegex);
+    Pattern stemPattern = tbrp.fileNamePattern.toStemPatternForFixedDate(dateInCurrentPeriod);
+    computeCurrentPeriodsHighestCounterValue(stemPattern);
 
     started = true;
   }
 
   protected ArchiveRemover createArchiveRemover() {
-    return new SizeAndTimeBasedArchiveRemover(tbrp.fileNamePattern, rc);
+    return new SizeAndTimeBasedArchiveRemover(tbrp.fileNamePattern, rc, archiveIndex);
   }
 
-  void computeCurrentPeriodsHighestCounterValue(final String stemRegex) {
-    File file = new File(getCurrentPeriodsFileNameWithoutCompressionSuffix());
-    File parentDir = file.getParentFile();
-
-    File[] matchingFileArray = FileFilterUtil
-            .filesInFolderMatchingStemRegex(parentDir, stemRegex);
-
-    if (matchingFileArray == null || matchingFileArray.length == 0) {
-      currentPeriodsCounter = 0;
-      return;
+  void computeCurrentPeriodsHighestCounterValue(final Pattern stemPattern) {
+    if (archiveIndex != null) {
+      int highestCounter = archiveIndex.getHighestCounter(dateInCurrentPeriod);
+      if (highestCounter < 0) {
+        currentPeriodsCounter = 0;
+        return;
+      }
+      currentPeriodsCounter = highestCounter;
+    } else {
+      File file = new File(getCurrentPeriodsFileNameWithoutCompressionSuffix());
+      File parentDir = file.getParentFile();
+
+      File[] matchingFileArray = FileFilterUtil
+              .filesInFolderMatchingStemRegex(parentDir, stemPattern);
+
+      if (matchingFileArray == null || matchingFileArray.length == 0) {
+        currentPeriodsCounter = 0;
+        return;
+      }
+      currentPeriodsCounter = FileFilterUtil.findHighestCounter(matchingFileArray, stemPattern);
     }
-    currentPeriodsCounter = FileFilterUtil.findHighestCounter(matchingFileArray, stemRegex);
 
     // if parent raw file property is not null, then the next
     // counter is max  found counter+1
@@ -91,6 +105,7 @@ public class SizeAndTimeBasedFNATP<E> extends
       Date dateInElapsedPeriod = dateInCurrentPeriod;
       elapsedPeriodsFileName = tbrp.fileNamePatternWCS
               .convertMultipleArguments(dateInElapsedPeriod, currentPeriodsCounter);
+      indexArchive(dateInElapsedPeriod, currentPeriodsCounter);
       currentPeriodsCounter = 0;
       setDateInCurrentPeriod(time);
       computeNextCheck();
@@ -108,6 +123,7 @@ public class SizeAndTimeBasedFNATP<E> extends
     if (activeFile.length() >= maxFileSize.getSize()) {
       elapsedPeriodsFileName = tbrp.fileNamePatternWCS
               .convertMultipleArguments(dateInCurrentPeriod, currentPeriodsCounter);
+      indexArchive(dateInCurrentPeriod, currentPeriodsCounter);
       currentPeriodsCounter++;
       return true;
     }
@@ -115,9 +131,20 @@ public class SizeAndTimeBasedFNATP<E> extends
     return false;
   }
 
+  // the archive is registered before the rollover takes place; should the
+  // rollover fail, the cleanup notices the missing file and rebuilds the index
+  private void indexArchive(Date date, int counter) {
+    if (archiveIndex != null) {
+      archiveIndex.add(getFileNameIncludingCompressionSuffix(date, counter));
+    }
+  }
+
+  public ArchiveIndex getArchiveIndex() {
+    return archiveIndex;
+  }
+
   private String getFileNameIncludingCompressionSuffix(Date date, int counter) {
-    return tbrp.fileNamePattern.convertMultipleArguments(
-            dateInCurrentPeriod, counter);
+    return tbrp.fileNamePattern.convertMultipleArguments(date, counter);
   }
 
 
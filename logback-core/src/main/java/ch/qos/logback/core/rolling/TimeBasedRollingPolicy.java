@@ -17,6 +17,8 @@ import java.io.File;
 import java.util.Date;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -37,6 +39,12 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     TriggeringPolicy<E> {
   static final String FNP_NOT_SET = "The FileNamePattern option must be set before using TimeBasedRollingPolicy. ";
   static final int INFINITE_HISTORY = 0;
+  static final String GZ_SUFFIX = ".gz";
+  // upper bound on the time the rollover task sleeps, so that wall clock
+  // changes and device sleep delay a scheduled rollover by at most this much
+  static final long MAX_ROLLOVER_SCHEDULING_DELAY = 60 * 1000;
+  // delay between checks while the parent appender is not started
+  static final long PARENT_START_RETRY_DELAY = 1000;
 
   // WCS: without compression suffix
   FileNamePattern fileNamePatternWCS;
@@ -52,6 +60,10 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
 
   boolean cleanHistoryOnStart = false;
 
+  boolean scheduledRollover = false;
+  private final Runnable rolloverTask = new ScheduledRolloverTask();
+  private ScheduledFuture<?> scheduledRolloverFuture;
+
   public void start() {
     // set the LR for our utility object
     renameUtil.setContext(this.context);
@@ -101,17 +113,93 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
       }
     }
 
+    if (scheduledRollover && !canRolloverOnSchedule()) {
+      scheduledRollover = false;
+    }
+
     super.start();
+
+    if (scheduledRollover) {
+      addInfo("Rollovers will be run by the context's scheduler");
+      scheduleRollover();
+    }
+  }
+
+  private boolean canRolloverOnSchedule() {
+    if (!(getParent() instanceof RollingFileAppender)) {
+      addWarn("ScheduledRollover requires a RollingFileAppender as parent");
+      return false;
+    }
+    if (!(timeBasedFileNamingAndTriggeringPolicy instanceof DefaultTimeBasedFileNamingAndTriggeringPolicy)) {
+      addWarn("ScheduledRollover is not supported by " + timeBasedFileNamingAndTriggeringPolicy);
+      addWarn("Falling back to rollovers triggered by logging events");
+      return false;
+    }
+    return true;
   }
 
   @Override
   public void stop() {
     if(!isStarted())
       return;
+    cancelScheduledRollover();
     waitForAsynchronousJobToStop();
     super.stop();
   }
 
+  private synchronized void scheduleRollover() {
+    if (!isStarted()) {
+      return;
+    }
+    long delay = ((TimeBasedFileNamingAndTriggeringPolicyBase<E>) timeBasedFileNamingAndTriggeringPolicy).nextCheck
+        - timeBasedFileNamingAndTriggeringPolicy.getCurrentTime();
+    delay = Math.max(0, Math.min(delay, MAX_ROLLOVER_SCHEDULING_DELAY));
+    if (!getParent().isStarted()) {
+      delay = Math.max(delay, PARENT_START_RETRY_DELAY);
+    }
+    try {
+      scheduledRolloverFuture = context.getScheduledExecutorService()
+          .schedule(rolloverTask, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // the context is being stopped
+      scheduledRolloverFuture = null;
+    }
+  }
+
+  private synchronized void cancelScheduledRollover() {
+    if (scheduledRolloverFuture != null) {
+      scheduledRolloverFuture.cancel(false);
+      scheduledRolloverFuture = null;
+    }
+  }
+
+  /**
+   * Runs, at the end of each period, the rollover which would otherwise be
+   * triggered by the first logging event of the next period.
+   */
+  private class ScheduledRolloverTask implements Runnable {
+    public void run() {
+      try {
+        RollingFileAppender<?> appender = (RollingFileAppender<?>) getParent();
+        if (appender.isStarted()) {
+          // RollingFileAppender.subAppend skips the rollover check in this
+          // mode and takes no lock of this policy. Concurrent writes are kept
+          // out by the appender's own lock, which rollover() holds while it
+          // swaps files.
+          synchronized (TimeBasedRollingPolicy.this) {
+            if (timeBasedFileNamingAndTriggeringPolicy.isTriggeringEvent(null, null)) {
+              appender.rollover();
+            }
+          }
+        }
+      } catch (RuntimeException e) {
+        addError("Scheduled rollover failed", e);
+      } finally {
+        scheduleRollover();
+      }
+    }
+  }
+
 
   private void waitForAsynchronousJobToStop() {
     if(future != null) {
@@ -152,6 +240,11 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
       if (getParentsRawFileProperty() != null) {
         renameUtil.rename(getParentsRawFileProperty(), elapsedPeriodsFileName);
       } // else { nothing to do if CompressionMode == NONE and parentsRawFileProperty == null }
+    } else if (isParentCompressingOnWrite()) {
+      // the active file already holds gzip data, there is nothing to compress
+      if (getParentsRawFileProperty() != null) {
+        renameUtil.rename(getParentsRawFileProperty(), elapsedPeriodsFileName + GZ_SUFFIX);
+      } // else { the active file was written under its final name }
     } else {
       if (getParentsRawFileProperty() == null) {
         future = asyncCompress(elapsedPeriodsFileName, elapsedPeriodsFileName, elapsedPeriodStem);
@@ -203,6 +296,9 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     String parentsRawFileProperty = getParentsRawFileProperty();
     if (parentsRawFileProperty != null) {
       return parentsRawFileProperty;
+    } else if (isParentCompressingOnWrite()) {
+      return timeBasedFileNamingAndTriggeringPolicy
+          .getCurrentPeriodsFileNameWithoutCompressionSuffix() + GZ_SUFFIX;
     } else {
       return timeBasedFileNamingAndTriggeringPolicy
           .getCurrentPeriodsFileNameWithoutCompressionSuffix();
@@ -210,6 +306,9 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
   }
 
   public boolean isTriggeringEvent(File activeFile, final E event) {
+    if (scheduledRollover) {
+      return false;
+    }
     return timeBasedFileNamingAndTriggeringPolicy.isTriggeringEvent(activeFile, event);
   }
 
@@ -246,6 +345,23 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     this.cleanHistoryOnStart = cleanHistoryOnStart;
   }
 
+  public boolean isScheduledRollover() {
+    return scheduledRollover;
+  }
+
+  /**
+   * When set to true, rollovers are run in the background by the context's
+   * scheduled executor at the end of each period, instead of by the first
+   * logging event of the next period. Logging threads then never evaluate
+   * the triggering policy and the active file is closed on time even if the
+   * appender is idle. Only supported with the default time based triggering
+   * policy. Default is false.
+   *
+   * @param scheduledRollover true to roll over on schedule
+   */
+  public void setScheduledRollover(boolean scheduledRollover) {
+    this.scheduledRollover = scheduledRollover;
+  }
 
   @Override
   public String toString() {
@@ -0,0 +1,277 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ch.qos.logback.core.pattern.Converter;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * An in-memory index of the archives matching a {@link FileNamePattern},
+ * grouped by period and sorted by counter. The index is built lazily by
+ * listing the archive folder once, and is then kept up to date by the rolling
+ * policy as archives are created and removed, so that counter recovery and
+ * cleanup no longer need to list the folder and match every file name.
+ *
+ * <p>Periods are identified by the formatted value of the primary date token.
+ * The index can only be used for patterns where all tokens are located in the
+ * file name, i.e. patterns whose folder part is constant, see
+ * {@link #isApplicable(FileNamePattern)}.
+ *
+ * <p>If an inconsistency is detected, e.g. an indexed archive no longer
+ * exists, callers should {@link #invalidate()} the index so that it is
+ * rebuilt on next access.
+ */
+public class ArchiveIndex extends ContextAwareBase {
+
+  static final int NO_COUNTER = 0;
+
+  final FileNamePattern fileNamePattern;
+  final DateTokenConverter<Object> primaryDateTokenConverter;
+  final File folder;
+  final Pattern stemPattern;
+  int dateGroup = -1;
+  int counterGroup = -1;
+
+  private TreeMap<String, TreeMap<Integer, File>> archivesByPeriod;
+  private int rebuildCount = 0;
+
+  @SuppressWarnings("unchecked")
+  public ArchiveIndex(FileNamePattern fileNamePattern) {
+    if (!isApplicable(fileNamePattern)) {
+      throw new IllegalArgumentException("FileNamePattern [" + fileNamePattern
+              + "] has tokens in its folder part");
+    }
+    this.fileNamePattern = fileNamePattern;
+    this.primaryDateTokenConverter = fileNamePattern.getPrimaryDateTokenConverter();
+
+    StringBuilder folderName = new StringBuilder();
+    StringBuilder stemRegex = new StringBuilder();
+    boolean inStem = (lastSlashSegment(fileNamePattern) == -1);
+    int group = 0;
+    for (int i = 0; i < fileNamePattern.converters.length; i++) {
+      String literal = fileNamePattern.literals[i];
+      Converter<Object> c = fileNamePattern.converters[i];
+      if (literal != null) {
+        if (!inStem && i == lastSlashSegment(fileNamePattern)) {
+          int slash = literal.lastIndexOf('/');
+          folderName.append(literal, 0, slash + 1);
+          stemRegex.append(Pattern.quote(literal.substring(slash + 1)));
+          inStem = true;
+        } else if (!inStem) {
+          folderName.append(literal);
+        } else if (literal.length() > 0) {
+          stemRegex.append(Pattern.quote(literal));
+        }
+      } else if (c == primaryDateTokenConverter) {
+        String dateRegex = primaryDateTokenConverter.toRegex();
+        stemRegex.append('(').append(dateRegex).append(')');
+        dateGroup = ++group;
+        // date regexes may have groups of their own, e.g. for time zones
+        group += groupCount(dateRegex);
+      } else if (c instanceof DateTokenConverter) {
+        String dateRegex = ((DateTokenConverter<Object>) c).toRegex();
+        stemRegex.append("(?:").append(dateRegex).append(')');
+        group += groupCount(dateRegex);
+      } else if (c instanceof IntegerTokenConverter) {
+        stemRegex.append("(\\d+)");
+        counterGroup = ++group;
+      }
+    }
+    this.folder = new File(folderName.toString()).getAbsoluteFile();
+    this.stemPattern = Pattern.compile(stemRegex.toString());
+  }
+
+  private static int groupCount(String regex) {
+    return Pattern.compile(regex).matcher("").groupCount();
+  }
+
+  /**
+   * @param fileNamePattern the pattern to check
+   * @return true if the pattern has a primary date token and no token located
+   * in its folder part
+   */
+  public static boolean isApplicable(FileNamePattern fileNamePattern) {
+    if (fileNamePattern.getPrimaryDateTokenConverter() == null) {
+      return false;
+    }
+    boolean seenToken = false;
+    for (int i = 0; i < fileNamePattern.converters.length; i++) {
+      String literal = fileNamePattern.literals[i];
+      if (literal == null) {
+        seenToken = true;
+        Converter<Object> c = fileNamePattern.converters[i];
+        if (c instanceof DateTokenConverter
+                && ((DateTokenConverter<?>) c).getDatePattern().indexOf('/') != -1) {
+          return false;
+        }
+      } else if (seenToken && literal.indexOf('/') != -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int lastSlashSegment(FileNamePattern fileNamePattern) {
+    int result = -1;
+    for (int i = 0; i < fileNamePattern.literals.length; i++) {
+      String literal = fileNamePattern.literals[i];
+      if (literal != null && literal.indexOf('/') != -1) {
+        result = i;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param dateInPeriod any date within the period of interest
+   * @return the highest counter among the archives of the period, or -1 if
+   * there are none
+   */
+  public synchronized int getHighestCounter(Date dateInPeriod) {
+    TreeMap<Integer, File> archives = getIndex().get(periodOf(dateInPeriod));
+    if (archives == null || archives.isEmpty()) {
+      return -1;
+    }
+    return archives.lastKey();
+  }
+
+  /**
+   * @param dateInPeriod any date within the period of interest
+   * @return the archives of the period, sorted by counter
+   */
+  public synchronized List<File> getArchivesOfPeriod(Date dateInPeriod) {
+    TreeMap<Integer, File> archives = getIndex().get(periodOf(dateInPeriod));
+    if (archives == null) {
+      return new ArrayList<File>();
+    }
+    return new ArrayList<File>(archives.values());
+  }
+
+  /**
+   * Records a new archive. Names not matching the pattern are ignored.
+   *
+   * @param fileName the name of the archive
+   */
+  public synchronized void add(String fileName) {
+    if (archivesByPeriod == null) {
+      // the archive will be found when the index is built
+      return;
+    }
+    index(new File(fileName).getAbsoluteFile());
+  }
+
+  /**
+   * Forgets about an archive, typically after it has been deleted.
+   *
+   * @param file the archive to forget
+   */
+  public synchronized void remove(File file) {
+    if (archivesByPeriod == null) {
+      return;
+    }
+    Matcher m = stemPattern.matcher(file.getName());
+    if (!m.matches()) {
+      return;
+    }
+    String period = m.group(dateGroup);
+    TreeMap<Integer, File> archives = archivesByPeriod.get(period);
+    if (archives != null) {
+      archives.remove(counterOf(m));
+      if (archives.isEmpty()) {
+        archivesByPeriod.remove(period);
+      }
+    }
+  }
+
+  /**
+   * Drops the current content of the index, which will be rebuilt from the
+   * file system on next access.
+   */
+  public synchronized void invalidate() {
+    archivesByPeriod = null;
+  }
+
+  /**
+   * @return the number of archives currently indexed
+   */
+  public synchronized int size() {
+    int size = 0;
+    for (Map<Integer, File> archives : getIndex().values()) {
+      size += archives.size();
+    }
+    return size;
+  }
+
+  synchronized int getRebuildCount() {
+    return rebuildCount;
+  }
+
+  private TreeMap<String, TreeMap<Integer, File>> getIndex() {
+    if (archivesByPeriod == null) {
+      rebuild();
+    }
+    return archivesByPeriod;
+  }
+
+  private void rebuild() {
+    archivesByPeriod = new TreeMap<String, TreeMap<Integer, File>>();
+    rebuildCount++;
+    File[] files = FileFilterUtil.filesInFolderMatchingStemRegex(folder, stemPattern);
+    for (File file : files) {
+      index(file);
+    }
+    addInfo("Indexed " + files.length + " archive(s) in folder [" + folder + "]");
+  }
+
+  private void index(File file) {
+    if (!folder.equals(file.getParentFile())) {
+      return;
+    }
+    Matcher m = stemPattern.matcher(file.getName());
+    if (!m.matches()) {
+      return;
+    }
+    String period = m.group(dateGroup);
+    TreeMap<Integer, File> archives = archivesByPeriod.get(period);
+    if (archives == null) {
+      archives = new TreeMap<Integer, File>();
+      archivesByPeriod.put(period, archives);
+    }
+    archives.put(counterOf(m), file);
+  }
+
+  private int counterOf(Matcher m) {
+    if (counterGroup == -1) {
+      return NO_COUNTER;
+    }
+    try {
+      return Integer.parseInt(m.group(counterGroup));
+    } catch (NumberFormatException e) {
+      return NO_COUNTER;
+    }
+  }
+
+  private String periodOf(Date date) {
+    return primaryDateTokenConverter.convert(date);
+  }
+}
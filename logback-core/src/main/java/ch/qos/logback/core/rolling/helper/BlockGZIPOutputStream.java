@@ -0,0 +1,147 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream which gzip compresses its data in fixed size blocks. Each
+ * block is written to the underlying stream as a complete gzip member, so that
+ * the resulting file is a valid multi-member gzip file (RFC 1952) after every
+ * block boundary. If the process dies, at most the last, not yet written,
+ * block is lost; everything before it can be read back with <code>gzip -d</code>
+ * or {@link java.util.zip.GZIPInputStream}.
+ *
+ * <p>Calls to {@link #flush()} do not end the current block since gzip members
+ * holding a single event compress poorly. Data is pushed to the underlying
+ * stream when a block fills up and when the stream is closed.
+ */
+public class BlockGZIPOutputStream extends OutputStream {
+
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private static final byte[] GZIP_HEADER = {
+      (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+  private final OutputStream out;
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  private final CRC32 crc = new CRC32();
+
+  private final byte[] block;
+  private final byte[] deflateBuffer;
+  private final byte[] trailer = new byte[8];
+  private int count = 0;
+  private boolean closed = false;
+
+  public BlockGZIPOutputStream(OutputStream out) {
+    this(out, DEFAULT_BLOCK_SIZE);
+  }
+
+  public BlockGZIPOutputStream(OutputStream out, int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive");
+    }
+    this.out = out;
+    this.block = new byte[blockSize];
+    this.deflateBuffer = new byte[Math.min(blockSize, Compressor.BUFFER_SIZE)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (count == block.length) {
+      writeBlock();
+    }
+    block[count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == block.length) {
+        writeBlock();
+      }
+      int n = Math.min(len, block.length - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Does nothing. See the class comment for the rationale.
+   */
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * Writes out the pending partial block, if any, as a last gzip member and
+   * closes the underlying stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (count > 0) {
+        writeBlock();
+      }
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+  /**
+   * @return the number of bytes written but not yet compressed
+   */
+  public int getPendingByteCount() {
+    return count;
+  }
+
+  private void writeBlock() throws IOException {
+    out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+
+    deflater.reset();
+    deflater.setInput(block, 0, count);
+    deflater.finish();
+    while (!deflater.finished()) {
+      int n = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+      if (n > 0) {
+        out.write(deflateBuffer, 0, n);
+      }
+    }
+
+    crc.reset();
+    crc.update(block, 0, count);
+    writeIntLE(trailer, 0, (int) crc.getValue());
+    writeIntLE(trailer, 4, count);
+    out.write(trailer, 0, trailer.length);
+    out.flush();
+    count = 0;
+  }
+
+  private static void writeIntLE(byte[] buf, int offset, int value) {
+    buf[offset] = (byte) value;
+    buf[offset + 1] = (byte) (value >> 8);
+    buf[offset + 2] = (byte) (value >> 16);
+    buf[offset + 3] = (byte) (value >> 24);
+  }
+}
@@ -73,6 +73,19 @@ public class FileFilterUtil {
    */
   public static File[] filesInFolderMatchingStemRegex(File file,
       final String stemRegex) {
+    return filesInFolderMatchingStemRegex(file, Pattern.compile(stemRegex));
+  }
+
+  /**
+   * Same as {@link #filesInFolderMatchingStemRegex(File, String)} but with a
+   * precompiled stem pattern.
+   *
+   * @param file folder's file object
+   * @param stemPattern compiled regex file pattern to match
+   * @return the matching files, possibly an empty array
+   */
+  public static File[] filesInFolderMatchingStemRegex(File file,
+      final Pattern stemPattern) {
 
     if (file == null) {
       return new File[0];
@@ -80,17 +93,23 @@ public class FileFilterUtil {
     if (!file.exists() || !file.isDirectory()) {
       return new File[0];
     }
-    return file.listFiles(new FilenameFilter() {
+    final Matcher matcher = stemPattern.matcher("");
+    File[] matchingFileArray = file.listFiles(new FilenameFilter() {
       public boolean accept(File dir, String name) {
-        return name.matches(stemRegex);
+        return matcher.reset(name).matches();
       }
     });
+    return (matchingFileArray == null) ? new File[0] : matchingFileArray;
   }
 
   static public int findHighestCounter(File[] matchingFileArray, final String stemRegex) {
+    return findHighestCounter(matchingFileArray, Pattern.compile(stemRegex));
+  }
+
+  static public int findHighestCounter(File[] matchingFileArray, final Pattern stemPattern) {
     int max = Integer.MIN_VALUE;
     for (File aFile : matchingFileArray) {
-      int aCounter = FileFilterUtil.extractCounter(aFile, stemRegex);
+      int aCounter = FileFilterUtil.extractCounter(aFile, stemPattern);
       if (max < aCounter)
         max = aCounter;
     }
@@ -98,16 +117,19 @@ public class FileFilterUtil {
   }
 
   static public int extractCounter(File file, final String stemRegex) {
-    Pattern p = Pattern.compile(stemRegex);
+    return extractCounter(file, Pattern.compile(stemRegex));
+  }
+
+  static public int extractCounter(File file, final Pattern stemPattern) {
     String lastFileName = file.getName();
 
-    Matcher m = p.matcher(lastFileName);
+    Matcher m = stemPattern.matcher(lastFileName);
     if (!m.matches()) {
-      throw new IllegalStateException("The regex [" + stemRegex
+      throw new IllegalStateException("The regex [" + stemPattern
           + "] should match [" + lastFileName + "]");
     }
     String counterAsStr = m.group(1);
-    return new Integer(counterAsStr).intValue();
+    return Integer.parseInt(counterAsStr);
   }
 
   public static String slashify(String in) {
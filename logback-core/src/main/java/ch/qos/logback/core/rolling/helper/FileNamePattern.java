@@ -15,7 +15,9 @@ package ch.qos.logback.core.rolling.helper;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.pattern.Converter;
@@ -45,15 +47,47 @@ public class FileNamePattern extends ContextAwareBase {
         DateTokenConverter.class.getName());
   }
 
+  // number of file names and regular expressions remembered per pattern
+  static final int CACHE_SIZE = 16;
+  static final int NO_INDEX = Integer.MIN_VALUE;
+
   String pattern;
   Converter<Object> headTokenConverter;
 
+  // the converter chain flattened into an array, where the output of each
+  // literal converter is computed once and for all
+  Converter<Object>[] converters;
+  String[] literals;
+
+  private final Map<NameKey, String> nameCache = new BoundedCache<NameKey, String>();
+  private final Map<String, Pattern> stemPatternCache = new BoundedCache<String, Pattern>();
+
   public FileNamePattern(String patternArg, Context contextArg) {
     // the pattern is slashified
     setPattern(FileFilterUtil.slashify(patternArg));
     setContext(contextArg);
     parse();
     ConverterUtil.startConverters(this.headTokenConverter);
+    compile();
+  }
+
+  void compile() {
+    int count = 0;
+    for (Converter<Object> c = headTokenConverter; c != null; c = c.getNext()) {
+      count++;
+    }
+    @SuppressWarnings("unchecked")
+    Converter<Object>[] array = (Converter<Object>[]) new Converter<?>[count];
+    converters = array;
+    literals = new String[count];
+    int i = 0;
+    for (Converter<Object> c = headTokenConverter; c != null; c = c.getNext()) {
+      converters[i] = c;
+      if (c instanceof LiteralConverter) {
+        literals[i] = c.convert(null);
+      }
+      i++;
+    }
   }
 
   void parse() {
@@ -112,10 +146,21 @@ public class FileNamePattern extends ContextAwareBase {
   }
 
   public String convertMultipleArguments(Object... objectList) {
+    if (objectList.length == 2 && objectList[0] instanceof Date
+            && objectList[1] instanceof Integer) {
+      return convertCached(periodOf((Date) objectList[0]),
+              (Integer) objectList[1], objectList);
+    }
+    return doConvertMultipleArguments(objectList);
+  }
+
+  private String doConvertMultipleArguments(Object... objectList) {
     StringBuilder buf = new StringBuilder();
-    Converter<Object> c = headTokenConverter;
-    while (c != null) {
-      if (c instanceof MonoTypedConverter) {
+    for (int i = 0; i < converters.length; i++) {
+      Converter<Object> c = converters[i];
+      if (literals[i] != null) {
+        buf.append(literals[i]);
+      } else if (c instanceof MonoTypedConverter) {
         MonoTypedConverter monoTyped = (MonoTypedConverter) c;
         for (Object o : objectList) {
           if (monoTyped.isApplicable(o)) {
@@ -125,17 +170,62 @@ public class FileNamePattern extends ContextAwareBase {
       } else {
         buf.append(c.convert(objectList));
       }
-      c = c.getNext();
     }
     return buf.toString();
   }
 
   public String convert(Object o) {
+    if (o instanceof Date) {
+      return convertCached(periodOf((Date) o), NO_INDEX, o);
+    } else if (o instanceof Integer) {
+      return convertCached(null, (Integer) o, o);
+    }
+    return doConvert(o);
+  }
+
+  private String doConvert(Object o) {
     StringBuilder buf = new StringBuilder();
-    Converter<Object> p = headTokenConverter;
-    while (p != null) {
-      buf.append(p.convert(o));
-      p = p.getNext();
+    for (int i = 0; i < converters.length; i++) {
+      if (literals[i] != null) {
+        buf.append(literals[i]);
+      } else {
+        buf.append(converters[i].convert(o));
+      }
+    }
+    return buf.toString();
+  }
+
+  /**
+   * File names only depend on the period and the index they are computed for,
+   * so that the names of the current period are computed only once.
+   */
+  private String convertCached(String period, int index, Object... arguments) {
+    NameKey key = new NameKey(period, index);
+    synchronized (nameCache) {
+      String name = nameCache.get(key);
+      if (name != null) {
+        return name;
+      }
+    }
+    String name = (arguments.length == 1) ? doConvert(arguments[0])
+            : doConvertMultipleArguments(arguments);
+    synchronized (nameCache) {
+      nameCache.put(key, name);
+    }
+    return name;
+  }
+
+  /**
+   * Returns the output of the date tokens for the given date, which
+   * identifies the period the date belongs to: all dates of a period yield
+   * the same file names and regular expressions.
+   */
+  String periodOf(Date date) {
+    StringBuilder buf = new StringBuilder();
+    for (Converter<Object> c : converters) {
+      if (c instanceof DateTokenConverter) {
+        buf.append(c.convert(date)).append('\u0000');
+      }
     }
     return buf.toString();
   }
@@ -163,37 +253,94 @@ public class FileNamePattern extends ContextAwareBase {
    */
   public String toRegexForFixedDate(Date date) {
     StringBuilder buf = new StringBuilder();
-    Converter<Object> p = headTokenConverter;
-    while (p != null) {
-      if (p instanceof LiteralConverter) {
-        buf.append(p.convert(null));
+    for (int i = 0; i < converters.length; i++) {
+      Converter<Object> p = converters[i];
+      if (literals[i] != null) {
+        buf.append(literals[i]);
       } else if (p instanceof IntegerTokenConverter) {
         buf.append("(\\d{1,3})");
       } else if (p instanceof DateTokenConverter) {
         buf.append(p.convert(date));
       }
-      p = p.getNext();
     }
     return buf.toString();
   }
 
+  /**
+   * Returns the compiled form of the part of {@link #toRegexForFixedDate(Date)}
+   * following the last slash, i.e. the regular expression matching the names
+   * of the files of the given date within their folder. Compiled expressions
+   * are cached per period.
+   */
+  public Pattern toStemPatternForFixedDate(Date date) {
+    String key = periodOf(date);
+    synchronized (stemPatternCache) {
+      Pattern stemPattern = stemPatternCache.get(key);
+      if (stemPattern != null) {
+        return stemPattern;
+      }
+    }
+    String stemRegex = FileFilterUtil.afterLastSlash(toRegexForFixedDate(date));
+    Pattern stemPattern = Pattern.compile(stemRegex);
+    synchronized (stemPatternCache) {
+      stemPatternCache.put(key, stemPattern);
+    }
+    return stemPattern;
+  }
+
   /**
    * Given date, convert this instance to a regular expression
    */
   public String toRegex() {
     StringBuilder buf = new StringBuilder();
-    Converter<Object> p = headTokenConverter;
-    while (p != null) {
-      if (p instanceof LiteralConverter) {
-        buf.append(p.convert(null));
+    for (int i = 0; i < converters.length; i++) {
+      Converter<Object> p = converters[i];
+      if (literals[i] != null) {
+        buf.append(literals[i]);
       } else if (p instanceof IntegerTokenConverter) {
         buf.append("\\d{1,2}");
       } else if (p instanceof DateTokenConverter) {
         DateTokenConverter<Object> dtc = (DateTokenConverter<Object>) p;
         buf.append(dtc.toRegex());
       }
-      p = p.getNext();
     }
     return buf.toString();
   }
+
+  static final class NameKey {
+    final String period;
+    final int index;
+
+    NameKey(String period, int index) {
+      this.period = period;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof NameKey)) return false;
+      NameKey other = (NameKey) o;
+      return index == other.index
+              && (period == null ? other.period == null : period.equals(other.period));
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (period == null ? 0 : period.hashCode()) + index;
+    }
+  }
+
+  static final class BoundedCache<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    BoundedCache() {
+      super(CACHE_SIZE, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  }
 }
@@ -15,19 +15,36 @@ package ch.qos.logback.core.rolling.helper;
 
 import java.io.File;
 import java.util.Date;
+import java.util.regex.Pattern;
 
 public class SizeAndTimeBasedArchiveRemover extends DefaultArchiveRemover {
 
+  final ArchiveIndex archiveIndex;
+
   public SizeAndTimeBasedArchiveRemover(FileNamePattern fileNamePattern,
       RollingCalendar rc) {
+    this(fileNamePattern, rc, null);
+  }
+
+  /**
+   * @param archiveIndex index used to locate the archives of a period instead
+   * of listing the archive folder, may be null
+   */
+  public SizeAndTimeBasedArchiveRemover(FileNamePattern fileNamePattern,
+      RollingCalendar rc, ArchiveIndex archiveIndex) {
     super(fileNamePattern, rc);
+    this.archiveIndex = archiveIndex;
   }
 
   public void cleanByPeriodOffset(Date now, int periodOffset) {
     Date dateOfPeriodToClean = rc.getRelativeDate(now, periodOffset);
 
-    String regex = fileNamePattern.toRegexForFixedDate(dateOfPeriodToClean);
-    String stemRegex = FileFilterUtil.afterLastSlash(regex);
+    if (archiveIndex != null) {
+      cleanIndexedPeriod(dateOfPeriodToClean);
+      return;
+    }
+
+    Pattern stemPattern = fileNamePattern.toStemPatternForFixedDate(dateOfPeriodToClean);
     File archive0 = new File(fileNamePattern.convertMultipleArguments(
         dateOfPeriodToClean, 0));
     // in case the file has no directory part, i.e. if it's written into the
@@ -36,7 +53,7 @@ public class SizeAndTimeBasedArchiveRemover extends DefaultArchiveRemover {
 
     File parentDir = archive0.getAbsoluteFile().getParentFile();
     File[] matchingFileArray = FileFilterUtil.filesInFolderMatchingStemRegex(
-        parentDir, stemRegex);
+        parentDir, stemPattern);
 
     for (File f : matchingFileArray) {
       f.delete();
@@ -47,5 +64,20 @@ public class SizeAndTimeBasedArchiveRemover extends DefaultArchiveRemover {
     }
   }
 
+  private void cleanIndexedPeriod(Date dateOfPeriodToClean) {
+    boolean stale = false;
+    for (File f : archiveIndex.getArchivesOfPeriod(dateOfPeriodToClean)) {
+      if (f.delete()) {
+        archiveIndex.remove(f);
+      } else if (!f.exists()) {
+        stale = true;
+      }
+    }
+    if (stale) {
+      addInfo("Archive index out of date, it will be rebuilt");
+      archiveIndex.invalidate();
+    }
+  }
+
 
 }
@@ -0,0 +1,265 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.sift;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.Context;
+
+/**
+ * An {@link AppenderTracker} which can be used by many threads at once.
+ * Looking up an appender and recording its use take no lock; building the
+ * appender for a new key locks only one of a fixed number of stripes, so that
+ * each key gets a single appender without holding up other keys.
+ *
+ * <p>Unlike AppenderTracker, which removes stale appenders as it is used,
+ * this tracker leaves {@link #removeStaleComponents(long)} to a background
+ * task. When more than {@link #getMaxComponents() maxComponents} appenders
+ * are tracked, the least recently used ones are removed. An appender is not
+ * removed while an event is handed to it by {@link #append(String, long, Object)}.
+ */
+public class ConcurrentAppenderTracker<E> extends AppenderTracker<E> {
+
+  // a power of two
+  static final int STRIPE_COUNT = 32;
+
+  private final ConcurrentMap<String, Entry<E>> liveEntries = new ConcurrentHashMap<String, Entry<E>>();
+  private final ConcurrentMap<String, Entry<E>> lingeringEntries = new ConcurrentHashMap<String, Entry<E>>();
+  private final Object[] stripes = new Object[STRIPE_COUNT];
+  private final Object removalLock = new Object();
+
+  public ConcurrentAppenderTracker(Context context, AppenderFactory<E> appenderFactory) {
+    super(context, appenderFactory);
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new Object();
+    }
+  }
+
+  @Override
+  public int getComponentCount() {
+    return liveEntries.size() + lingeringEntries.size();
+  }
+
+  @Override
+  public Appender<E> find(String key) {
+    Entry<E> entry = getEntry(key);
+    return entry == null ? null : entry.appender;
+  }
+
+  @Override
+  public Appender<E> getOrCreate(String key, long timestamp) {
+    return getOrCreateEntry(key, timestamp).appender;
+  }
+
+  /**
+   * Hands an event to the appender of a key, building the appender if
+   * needed. The appender cannot be removed by
+   * {@link #removeStaleComponents(long)} until the event has been appended.
+   *
+   * @param key the key of the appender
+   * @param timestamp the time of the event
+   * @param event the event to append
+   */
+  public void append(String key, long timestamp, E event) {
+    while (true) {
+      Entry<E> entry = getOrCreateEntry(key, timestamp);
+      if (entry.pin()) {
+        try {
+          entry.appender.doAppend(event);
+        } finally {
+          entry.unpin();
+        }
+        return;
+      }
+      // the entry was removed after the lookup, look the key up again
+    }
+  }
+
+  private Entry<E> getOrCreateEntry(String key, long timestamp) {
+    Entry<E> entry = getEntry(key);
+    if (entry == null || entry.isRemoved() || !entry.appender.isStarted()) {
+      synchronized (stripeFor(key)) {
+        entry = getEntry(key);
+        // an appender which was stopped or removed meanwhile is replaced
+        if (entry == null || entry.isRemoved() || !entry.appender.isStarted()) {
+          if (entry != null) {
+            forceRemove(entry);
+          }
+          entry = new Entry<E>(key, buildComponent(key), timestamp);
+          liveEntries.put(key, entry);
+          return entry;
+        }
+      }
+    }
+    entry.timestamp = timestamp;
+    return entry;
+  }
+
+  @Override
+  public void endOfLife(String key) {
+    Entry<E> entry = liveEntries.remove(key);
+    if (entry != null) {
+      lingeringEntries.put(key, entry);
+    }
+  }
+
+  /**
+   * Removes appenders which timed out, appenders which are done lingering,
+   * and the least recently used appenders in excess of maxComponents. Unlike
+   * lookups, this method locks the whole tracker and inspects every appender.
+   */
+  @Override
+  public void removeStaleComponents(long now) {
+    synchronized (removalLock) {
+      removeExcessEntries();
+      for (Entry<E> entry : liveEntries.values()) {
+        if (isComponentStale(entry.appender) || entry.timestamp + timeout < now) {
+          remove(entry);
+        }
+      }
+      for (Entry<E> entry : lingeringEntries.values()) {
+        if (entry.timestamp + LINGERING_TIMEOUT < now) {
+          remove(entry);
+        }
+      }
+    }
+  }
+
+  private void removeExcessEntries() {
+    int excess = liveEntries.size() - maxComponents;
+    if (excess <= 0) {
+      return;
+    }
+    List<Entry<E>> entries = new ArrayList<Entry<E>>(liveEntries.values());
+    Collections.sort(entries, new Comparator<Entry<E>>() {
+      public int compare(Entry<E> e1, Entry<E> e2) {
+        long t1 = e1.timestamp;
+        long t2 = e2.timestamp;
+        return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+      }
+    });
+    for (int i = 0; i < excess && i < entries.size(); i++) {
+      remove(entries.get(i));
+    }
+  }
+
+  /**
+   * Removes an entry unless an event is being appended to it, in which case
+   * a later sweep will remove it.
+   */
+  private void remove(Entry<E> entry) {
+    if (entry.users.compareAndSet(0, Entry.REMOVED)) {
+      unlink(entry);
+    }
+  }
+
+  private void forceRemove(Entry<E> entry) {
+    if (entry.users.getAndSet(Entry.REMOVED) != Entry.REMOVED) {
+      unlink(entry);
+    }
+  }
+
+  private void unlink(Entry<E> entry) {
+    // another thread may have replaced or moved the entry
+    liveEntries.remove(entry.key, entry);
+    lingeringEntries.remove(entry.key, entry);
+    processPriorToRemoval(entry.appender);
+  }
+
+  @Override
+  public Set<String> allKeys() {
+    Set<String> allKeys = new HashSet<String>(liveEntries.keySet());
+    allKeys.addAll(lingeringEntries.keySet());
+    return allKeys;
+  }
+
+  @Override
+  public Collection<Appender<E>> allComponents() {
+    List<Appender<E>> allComponents = new ArrayList<Appender<E>>();
+    for (Entry<E> entry : liveEntries.values()) {
+      allComponents.add(entry.appender);
+    }
+    for (Entry<E> entry : lingeringEntries.values()) {
+      allComponents.add(entry.appender);
+    }
+    return allComponents;
+  }
+
+  private Entry<E> getEntry(String key) {
+    Entry<E> entry = liveEntries.get(key);
+    if (entry != null) {
+      return entry;
+    }
+    return lingeringEntries.get(key);
+  }
+
+  private Object stripeFor(String key) {
+    int h = key.hashCode();
+    h ^= (h >>> 16);
+    return stripes[h & (STRIPE_COUNT - 1)];
+  }
+
+  private static class Entry<E> {
+    static final int REMOVED = Integer.MIN_VALUE;
+
+    final String key;
+    final Appender<E> appender;
+    // written without a lock, the latest write wins
+    volatile long timestamp;
+    // number of events being appended, or REMOVED once removal has begun
+    final AtomicInteger users = new AtomicInteger();
+
+    Entry(String key, Appender<E> appender, long timestamp) {
+      this.key = key;
+      this.appender = appender;
+      this.timestamp = timestamp;
+    }
+
+    boolean pin() {
+      while (true) {
+        int n = users.get();
+        if (n < 0) {
+          return false;
+        }
+        if (users.compareAndSet(n, n + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void unpin() {
+      // a forced removal may have happened meanwhile, REMOVED then stays
+      while (true) {
+        int n = users.get();
+        if (n <= 0 || users.compareAndSet(n, n - 1)) {
+          return;
+        }
+      }
+    }
+
+    boolean isRemoved() {
+      return users.get() < 0;
+    }
+  }
+}
@@ -13,8 +13,17 @@
  */
 package ch.qos.logback.core.sift;
 
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import ch.qos.logback.core.Appender;
-import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.FileHandlePool;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.spi.AbstractComponentTracker;
 import ch.qos.logback.core.util.Duration;
 
 /**
@@ -25,16 +34,31 @@ import ch.qos.logback.core.util.Duration;
  * processed. The appender to build (dynamically) is specified as part of a
  * configuration file.
  *
+ * <p>By default, events are processed one at a time. In concurrent mode,
+ * events with different discriminating values are passed to their appenders
+ * in parallel, appenders are tracked by a {@link ConcurrentAppenderTracker},
+ * and stale appenders are removed by a background task rather than on the
+ * logging threads.
+ *
+ * <p>With {@link #setMaxOpenFiles(int) maxOpenFiles} set, the nested
+ * {@link FileAppender}s share a {@link FileHandlePool}, which keeps at most
+ * that many of their files open at a time.
+ *
  * @author Ceki Gulcu
  */
 public abstract class SiftingAppenderBase<E> extends
-        AppenderBase<E> {
+        UnsynchronizedAppenderBase<E> {
 
   protected AppenderTracker<E> appenderTracker;
   AppenderFactory<E> appenderFactory;
   Duration timeout = new Duration(AppenderTracker.DEFAULT_TIMEOUT);
   int maxAppenderCount = AppenderTracker.DEFAULT_MAX_COMPONENTS;
 
+  boolean concurrent = false;
+  int maxOpenFiles = 0;
+  private FileHandlePool fileHandlePool;
+  private ScheduledFuture<?> scheduledRemoval;
+
   Discriminator<E> discriminator;
 
   public Duration getTimeout() {
@@ -53,6 +77,43 @@ public abstract class SiftingAppenderBase<E> extends
     this.maxAppenderCount = maxAppenderCount;
   }
 
+  public boolean isConcurrent() {
+    return concurrent;
+  }
+
+  /**
+   * Whether events with different discriminating values may be processed in
+   * parallel. Nested appenders must then be safe for concurrent use across
+   * keys, as they are when each has its own output.
+   *
+   * @param concurrent true for concurrent mode
+   */
+  public void setConcurrent(boolean concurrent) {
+    this.concurrent = concurrent;
+  }
+
+  public int getMaxOpenFiles() {
+    return maxOpenFiles;
+  }
+
+  /**
+   * The maximum number of files kept open by nested file appenders at any
+   * time, or 0 (the default) to keep every nested appender's file open.
+   *
+   * @param maxOpenFiles the number of files
+   */
+  public void setMaxOpenFiles(int maxOpenFiles) {
+    this.maxOpenFiles = maxOpenFiles;
+  }
+
+  /**
+   * @return the pool of files of nested appenders, or null if maxOpenFiles is
+   * not set
+   */
+  public FileHandlePool getFileHandlePool() {
+    return fileHandlePool;
+  }
+
   /**
    * This setter is intended to be invoked by SiftAction. Customers have no reason to invoke
    * this method directly.
@@ -76,20 +137,58 @@ public abstract class SiftingAppenderBase<E> extends
       addError("AppenderFactory has not been set. Aborting");
       errors++;
     } else {
-      appenderTracker = new AppenderTracker<E>(context, appenderFactory);
+      AppenderFactory<E> factory = appenderFactory;
+      if (maxOpenFiles > 0) {
+        fileHandlePool = new FileHandlePool(maxOpenFiles);
+        fileHandlePool.setContext(context);
+        factory = new PooledFileAppenderFactory<E>(appenderFactory, fileHandlePool);
+      }
+      if (concurrent) {
+        appenderTracker = new ConcurrentAppenderTracker<E>(context, factory);
+      } else {
+        appenderTracker = new AppenderTracker<E>(context, factory);
+      }
       appenderTracker.setMaxComponents(maxAppenderCount);
       appenderTracker.setTimeout(timeout.getMilliseconds());
     }
+    if (errors == 0 && concurrent && !scheduleStaleAppenderRemoval()) {
+      errors++;
+    }
     if (errors == 0) {
       super.start();
     }
   }
 
+  private boolean scheduleStaleAppenderRemoval() {
+    final AppenderTracker<E> tracker = appenderTracker;
+    Runnable removal = new Runnable() {
+      public void run() {
+        tracker.removeStaleComponents(System.currentTimeMillis());
+      }
+    };
+    long period = AbstractComponentTracker.WAIT_BETWEEN_SUCCESSIVE_REMOVAL_ITERATIONS;
+    try {
+      scheduledRemoval = context.getScheduledExecutorService().scheduleWithFixedDelay(
+          removal, period, period, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (RejectedExecutionException e) {
+      addError("Cannot schedule the removal of stale appenders", e);
+      return false;
+    }
+  }
+
   @Override
   public void stop() {
+    if (scheduledRemoval != null) {
+      scheduledRemoval.cancel(false);
+      scheduledRemoval = null;
+    }
     for (Appender<E> appender : appenderTracker.allComponents()) {
       appender.stop();
     }
+    if (fileHandlePool != null) {
+      addInfo("Closed nested appenders, " + fileHandlePool);
+    }
   }
 
   abstract protected long getTimestamp(E event);
@@ -99,6 +198,25 @@ public abstract class SiftingAppenderBase<E> extends
     if (!isStarted()) {
       return;
     }
+    if (concurrent) {
+      appendConcurrently(event);
+    } else {
+      synchronized (this) {
+        appendSerially(event);
+      }
+    }
+  }
+
+  private void appendConcurrently(E event) {
+    String discriminatingValue = discriminator.getDiscriminatingValue(event);
+    // the appender cannot be removed by the background sweep meanwhile
+    ((ConcurrentAppenderTracker<E>) appenderTracker).append(discriminatingValue, getTimestamp(event), event);
+    if (eventMarksEndOfLife(event)) {
+      appenderTracker.endOfLife(discriminatingValue);
+    }
+  }
+
+  private void appendSerially(E event) {
     String discriminatingValue = discriminator.getDiscriminatingValue(event);
     long timestamp = getTimestamp(event);
 
@@ -113,6 +231,27 @@ public abstract class SiftingAppenderBase<E> extends
 
   protected abstract boolean eventMarksEndOfLife(E event);
 
+  /**
+   * Hands the file appenders built by another factory over to a pool.
+   */
+  static class PooledFileAppenderFactory<E> implements AppenderFactory<E> {
+    final AppenderFactory<E> delegate;
+    final FileHandlePool pool;
+
+    PooledFileAppenderFactory(AppenderFactory<E> delegate, FileHandlePool pool) {
+      this.delegate = delegate;
+      this.pool = pool;
+    }
+
+    public Appender<E> buildAppender(Context context, String discriminatingValue) throws JoranException {
+      Appender<E> appender = delegate.buildAppender(context, discriminatingValue);
+      if (appender instanceof FileAppender) {
+        ((FileAppender<E>) appender).setFileHandlePool(pool);
+      }
+      return appender;
+    }
+  }
+
   public Discriminator<E> getDiscriminator() {
     return discriminator;
   }
@@ -13,7 +13,10 @@
  */
 package ch.qos.logback.core.spi;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import ch.qos.logback.core.Appender;
@@ -26,7 +29,8 @@ import ch.qos.logback.core.Appender;
  */
 public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
 
-  final private CopyOnWriteArrayList<Appender<E>> appenderList = new CopyOnWriteArrayList<Appender<E>>();
+  // replaced as a whole by replaceAllAppenders()
+  private volatile CopyOnWriteArrayList<Appender<E>> appenderList = new CopyOnWriteArrayList<Appender<E>>();
 
   /**
    * Attach an appender. If the appender is already in the list in won't be
@@ -106,6 +110,25 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     appenderList.clear();
   }
 
+  /**
+   * Replaces all attached appenders in one step. Each event is passed either
+   * to the previously attached appenders or to the new ones, never to
+   * neither. The previously attached appenders are not stopped.
+   * <p>
+   * Appenders attached by another thread while the replacement takes place
+   * may be lost; callers synchronize with {@link #addAppender(Appender)}.
+   *
+   * @param newAppenders the appenders to attach
+   * @return the previously attached appenders
+   */
+  public List<Appender<E>> replaceAllAppenders(Collection<? extends Appender<E>> newAppenders) {
+    CopyOnWriteArrayList<Appender<E>> replacement = new CopyOnWriteArrayList<Appender<E>>();
+    replacement.addAllAbsent(newAppenders);
+    List<Appender<E>> previous = new ArrayList<Appender<E>>(appenderList);
+    appenderList = replacement;
+    return previous;
+  }
+
   static final long START = System.currentTimeMillis();
 
   /**
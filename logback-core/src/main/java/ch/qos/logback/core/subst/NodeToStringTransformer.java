@@ -20,6 +20,8 @@ import ch.qos.logback.core.util.OptionHelper;
 
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Compiles a previously parsed Node chain into a String.
@@ -28,6 +30,16 @@ import java.util.Stack;
  */
 public class NodeToStringTransformer {
 
+  /**
+   * The cache of parsed strings is emptied once it holds this many entries.
+   */
+  static final int MAX_CACHED_NODES = 512;
+
+  // Parsed strings, keyed by the string. A Node chain only depends on the
+  // parsed string, variables are looked up when it is transformed, so
+  // entries never go stale when properties change.
+  private static final ConcurrentMap<String, Node> NODE_CACHE = new ConcurrentHashMap<String, Node>();
+
   final Node node;
   final PropertyContainer propertyContainer0;
   final PropertyContainer propertyContainer1;
@@ -43,12 +55,49 @@ public class NodeToStringTransformer {
   }
 
   public static String substituteVariable(String input, PropertyContainer pc0, PropertyContainer pc1) throws ScanException {
+    if (input != null && isLiteral(input)) {
+      return input;
+    }
     Node node = tokenizeAndParseString(input);
     NodeToStringTransformer nodeToStringTransformer = new NodeToStringTransformer(node, pc0, pc1);
     return nodeToStringTransformer.transform();
   }
 
+  /**
+   * Tells whether a string contains none of the characters the tokenizer
+   * treats specially, in which case substitution leaves it unchanged.
+   */
+  private static boolean isLiteral(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      switch (value.charAt(i)) {
+        case CoreConstants.DOLLAR:
+        case CoreConstants.CURLY_LEFT:
+        case CoreConstants.CURLY_RIGHT:
+        case CoreConstants.COLON_CHAR:
+          return false;
+      }
+    }
+    return true;
+  }
+
   private static Node tokenizeAndParseString(String value) throws ScanException {
+    if (value == null) {
+      return parse(value);
+    }
+    Node node = NODE_CACHE.get(value);
+    if (node == null) {
+      node = parse(value);
+      if (node != null) {
+        if (NODE_CACHE.size() >= MAX_CACHED_NODES) {
+          NODE_CACHE.clear();
+        }
+        NODE_CACHE.put(value, node);
+      }
+    }
+    return node;
+  }
+
+  private static Node parse(String value) throws ScanException {
     Tokenizer tokenizer = new Tokenizer(value);
     List<Token> tokens = tokenizer.tokenize();
     Parser parser = new Parser(tokens);
@@ -149,9 +198,10 @@ public class NodeToStringTransformer {
   private String constructRecursionErrorMessage(Stack<Node> recursionNodes) {
     StringBuilder errorBuilder = new StringBuilder("Circular variable reference detected while parsing input [");
 
-    for (Node stackNode : recursionNodes) {
-      errorBuilder.append("${").append(variableNodeValue(stackNode)).append("}");
-      if (recursionNodes.lastElement() != stackNode) {
+    // the same (cached) node can appear more than once, so compare positions
+    for (int i = 0; i < recursionNodes.size(); i++) {
+      errorBuilder.append("${").append(variableNodeValue(recursionNodes.get(i))).append("}");
+      if (i < recursionNodes.size() - 1) {
         errorBuilder.append(" --> ");
       }
     }
@@ -15,9 +15,14 @@
 package ch.qos.logback.core.util;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.qos.logback.core.CoreConstants;
 
@@ -28,6 +33,18 @@ import ch.qos.logback.core.CoreConstants;
  */
 public class ExecutorServiceUtil {
 
+  private static final ThreadFactory SCHEDULER_THREAD_FACTORY = new ThreadFactory() {
+    private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    public Thread newThread(Runnable r) {
+      Thread thread = defaultFactory.newThread(r);
+      thread.setName("logback-scheduler-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  };
+
   /**
    * Creates an executor service suitable for use by logback components.
    * @return executor service
@@ -39,6 +56,17 @@ public class ExecutorServiceUtil {
         new SynchronousQueue<Runnable>());
   }
 
+  /**
+   * Creates a scheduled executor service suitable for use by logback
+   * components. Its threads are daemon threads so that pending schedules do
+   * not keep the JVM alive.
+   * @return scheduled executor service
+   */
+  static public ScheduledExecutorService newScheduledExecutorService() {
+    return new ScheduledThreadPoolExecutor(
+        CoreConstants.SCHEDULED_EXECUTOR_POOL_SIZE, SCHEDULER_THREAD_FACTORY);
+  }
+
   /**
    * Shuts down an executor service.
    * <p>
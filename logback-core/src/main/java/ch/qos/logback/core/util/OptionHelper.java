@@ -210,6 +210,18 @@ public class OptionHelper {
     }
   }
 
+  /**
+   * Same as {@link #getSystemProperty(String)}, but looks up each key only
+   * once until the context is reset.
+   *
+   * @param context the context whose {@link SystemPropertySnapshot} is used
+   * @param key The key to search for.
+   * @return the string value of the system property.
+   */
+  public static String getSystemProperty(Context context, String key) {
+    return SystemPropertySnapshot.getInstance(context).getProperty(key);
+  }
+
   public static void setSystemProperties(ContextAware contextAware, Properties props) {
     for (Object o : props.keySet()) {
       String key = (String) o;
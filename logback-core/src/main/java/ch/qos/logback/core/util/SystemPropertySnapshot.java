@@ -0,0 +1,74 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.CoreConstants;
+
+/**
+ * The system properties seen by a context, as returned by
+ * {@link OptionHelper#getSystemProperty(String)}. Looking up an Android
+ * system property goes through reflection, so each key is looked up once and
+ * the answer, including the absence of a value, is kept for the rest of the
+ * configuration.
+ *
+ * <p>The snapshot is stored in the context's object map, which is cleared
+ * when the context is reset. A reconfiguration therefore sees the current
+ * values again.
+ */
+public class SystemPropertySnapshot {
+
+  // marks keys without a value, ConcurrentHashMap does not take nulls
+  private static final String NO_VALUE = new String();
+
+  private final ConcurrentMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+  /**
+   * Returns the snapshot of the given context, creating it on first use.
+   *
+   * @param context the context
+   * @return the snapshot of the context
+   */
+  public static SystemPropertySnapshot getInstance(Context context) {
+    synchronized (SystemPropertySnapshot.class) {
+      SystemPropertySnapshot snapshot = (SystemPropertySnapshot) context.getObject(
+          CoreConstants.SYSTEM_PROPERTY_SNAPSHOT);
+      if (snapshot == null) {
+        snapshot = new SystemPropertySnapshot();
+        context.putObject(CoreConstants.SYSTEM_PROPERTY_SNAPSHOT, snapshot);
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Gets a Java system property, or if there is none, an Android system
+   * property.
+   *
+   * @param key the key to search for
+   * @return the value of the property, or null if there is none
+   */
+  public String getProperty(String key) {
+    String value = values.get(key);
+    if (value == null) {
+      value = OptionHelper.getSystemProperty(key);
+      values.put(key, value == null ? NO_VALUE : value);
+      return value;
+    }
+    return value == NO_VALUE ? null : value;
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+public class FileHandlePoolTest {
+
+  static final int APPENDER_COUNT = 3;
+
+  Context context = new ContextBase();
+  FileHandlePool pool = new FileHandlePool(2);
+  List<FileAppender<Object>> appenders = new ArrayList<FileAppender<Object>>();
+  int diff = RandomUtil.getPositiveInt();
+
+  @Before
+  public void setUp() {
+    pool.setContext(context);
+    for (int i = 0; i < APPENDER_COUNT; i++) {
+      FileAppender<Object> appender = new FileAppender<Object>();
+      appender.setContext(context);
+      appender.setName("pooled-" + i);
+      appender.setEncoder(new EchoEncoder<Object>());
+      appender.setAppend(false);
+      appender.setFile(fileName(i));
+      appender.start();
+      appender.setFileHandlePool(pool);
+      appenders.add(appender);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    for (int i = 0; i < APPENDER_COUNT; i++) {
+      appenders.get(i).stop();
+      new File(fileName(i)).delete();
+    }
+  }
+
+  String fileName(int i) {
+    return CoreTestConstants.OUTPUT_DIR_PREFIX + "fileHandlePool-" + diff + "-" + i + ".log";
+  }
+
+  @Test
+  public void filesBeyondMaxOpenFilesAreClosedAndReopened() throws IOException {
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < APPENDER_COUNT; i++) {
+        appenders.get(i).doAppend("event " + round);
+        assertTrue(pool.getOpenFileCount() <= 2);
+      }
+    }
+
+    assertEquals(6, pool.getOpenCount());
+    assertEquals(3, pool.getReopenCount());
+    assertEquals(4, pool.getEvictionCount());
+    for (int i = 0; i < APPENDER_COUNT; i++) {
+      appenders.get(i).stop();
+      List<String> lines = readLines(fileName(i));
+      assertEquals(2, lines.size());
+      assertEquals("event 0", lines.get(0));
+      assertEquals("event 1", lines.get(1));
+    }
+    assertEquals(0, pool.getOpenFileCount());
+  }
+
+  List<String> readLines(String fileName) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader(new FileReader(fileName));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
+
+  @Test
+  public void recentlyUsedFileStaysOpen() {
+    appenders.get(0).doAppend("a");
+    appenders.get(1).doAppend("b");
+    appenders.get(0).doAppend("a");
+    appenders.get(2).doAppend("c");
+    appenders.get(0).doAppend("a");
+
+    assertEquals(1, pool.getEvictionCount());
+    assertEquals(0, pool.getReopenCount());
+  }
+}
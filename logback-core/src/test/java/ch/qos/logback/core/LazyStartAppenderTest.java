@@ -0,0 +1,166 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.read.ListAppender;
+
+public class LazyStartAppenderTest {
+
+  ContextBase context = new ContextBase();
+  BlockingStartListAppender listAppender = new BlockingStartListAppender();
+  LazyStartAppender<Integer> lazyStartAppender;
+
+  @Before
+  public void setUp() {
+    listAppender.setContext(context);
+    listAppender.setName("list");
+    lazyStartAppender = new LazyStartAppender<Integer>(listAppender);
+    lazyStartAppender.setContext(context);
+  }
+
+  @After
+  public void tearDown() {
+    listAppender.release.countDown();
+    context.stop();
+  }
+
+  @Test
+  public void takesTheNameOfTheWrappedAppender() {
+    assertEquals("list", lazyStartAppender.getName());
+  }
+
+  @Test(timeout = 5000)
+  public void appenderIsStartedOnFirstEvent() throws InterruptedException {
+    lazyStartAppender.start();
+    assertFalse(listAppender.startCalled.await(100, TimeUnit.MILLISECONDS));
+
+    lazyStartAppender.doAppend(0);
+    listAppender.startCalled.await();
+    lazyStartAppender.doAppend(1);
+    listAppender.release.countDown();
+
+    lazyStartAppender.stop();
+    assertEquals(2, listAppender.list.size());
+    assertEquals(0, listAppender.list.get(0).intValue());
+    assertEquals(1, listAppender.list.get(1).intValue());
+    assertFalse(listAppender.isStarted());
+  }
+
+  @Test(timeout = 5000)
+  public void appenderIsStartedInBackground() throws InterruptedException {
+    lazyStartAppender.setStartOnFirstEvent(false);
+    lazyStartAppender.start();
+    listAppender.startCalled.await();
+    listAppender.release.countDown();
+    while (!lazyStartAppender.isAppenderStartCompleted()) {
+      Thread.sleep(10);
+    }
+    assertTrue(listAppender.isStarted());
+
+    lazyStartAppender.doAppend(0);
+    assertEquals(1, listAppender.list.size());
+  }
+
+  @Test(timeout = 5000)
+  public void loggingThreadWaitsWhenBufferIsFull() throws InterruptedException {
+    lazyStartAppender.setBufferSize(2);
+    lazyStartAppender.start();
+    lazyStartAppender.doAppend(0);
+    lazyStartAppender.doAppend(1);
+    listAppender.startCalled.await();
+
+    Thread logger = new Thread() {
+      public void run() {
+        lazyStartAppender.doAppend(2);
+      }
+    };
+    logger.start();
+    logger.join(200);
+    assertTrue(logger.isAlive());
+    assertEquals(0, listAppender.list.size());
+
+    listAppender.release.countDown();
+    logger.join();
+    assertEquals(3, listAppender.list.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, listAppender.list.get(i).intValue());
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void wrappedAppenderMayLogBackDuringReplay() throws InterruptedException {
+    BlockingStartListAppender loggingBack = new BlockingStartListAppender() {
+      @Override
+      protected void append(Integer e) {
+        super.append(e);
+        if (e == 0) {
+          lazyStartAppender.doAppend(100);
+        }
+      }
+    };
+    loggingBack.setContext(context);
+    lazyStartAppender = new LazyStartAppender<Integer>(loggingBack);
+    lazyStartAppender.setContext(context);
+    lazyStartAppender.setBufferSize(2);
+    lazyStartAppender.start();
+    lazyStartAppender.doAppend(0);
+    lazyStartAppender.doAppend(1);
+    loggingBack.release.countDown();
+    while (!lazyStartAppender.isAppenderStartCompleted()) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(3, loggingBack.list.size());
+    assertEquals(0, loggingBack.list.get(0).intValue());
+    assertEquals(1, loggingBack.list.get(1).intValue());
+    assertEquals(100, loggingBack.list.get(2).intValue());
+  }
+
+  @Test
+  public void appenderIsNotStartedWithoutEvents() {
+    lazyStartAppender.start();
+    lazyStartAppender.stop();
+    assertEquals(1, listAppender.startCalled.getCount());
+  }
+
+  /**
+   * A list appender whose start blocks until released.
+   */
+  static class BlockingStartListAppender extends ListAppender<Integer> {
+    final CountDownLatch startCalled = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void start() {
+      startCalled.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.start();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class ConcurrentCyclicBufferTest {
+
+  @Test
+  public void smoke() {
+    ConcurrentCyclicBuffer<String> cb = new ConcurrentCyclicBuffer<String>(2);
+    assertEquals(0, cb.length());
+    cb.add("zero");
+    assertEquals(1, cb.length());
+    cb.add("one");
+    cb.add("two");
+    assertEquals(2, cb.length());
+    assertEquals("one", cb.get(0));
+    assertEquals("two", cb.get(1));
+    assertNull(cb.get(2));
+    assertNull(cb.get(-1));
+    assertEquals(Arrays.asList("one", "two"), cb.asList());
+  }
+
+  @Test
+  public void clear() {
+    ConcurrentCyclicBuffer<String> cb = new ConcurrentCyclicBuffer<String>(3);
+    cb.add("zero");
+    cb.add("one");
+    cb.clear();
+    assertEquals(0, cb.length());
+    assertTrue(cb.asList().isEmpty());
+    cb.add("two");
+    assertEquals(Arrays.asList("two"), cb.asList());
+    assertEquals("two", cb.get(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void sizeMustBePositive() {
+    new ConcurrentCyclicBuffer<String>(0);
+  }
+
+  @Test(timeout = 10000)
+  public void snapshotsAreOrderedWhileWritersAppend() throws InterruptedException {
+    final int maxSize = 64;
+    final int writerCount = 4;
+    final int perWriter = 20000;
+    final ConcurrentCyclicBuffer<long[]> cb = new ConcurrentCyclicBuffer<long[]>(maxSize);
+    Thread[] writers = new Thread[writerCount];
+    for (int w = 0; w < writerCount; w++) {
+      final int writer = w;
+      writers[w] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < perWriter; i++) {
+            cb.add(new long[] {writer, i});
+          }
+        }
+      });
+      writers[w].start();
+    }
+    boolean running = true;
+    while (running) {
+      running = false;
+      for (Thread writer : writers) {
+        running |= writer.isAlive();
+      }
+      List<long[]> snapshot = cb.asList();
+      assertTrue(snapshot.size() <= maxSize);
+      // the elements of each writer appear in the order it added them
+      long[] last = new long[writerCount];
+      Arrays.fill(last, -1);
+      for (long[] element : snapshot) {
+        int writer = (int) element[0];
+        assertTrue(element[1] > last[writer]);
+        last[writer] = element[1];
+      }
+    }
+    assertEquals(maxSize, cb.length());
+    assertEquals(maxSize, cb.asList().size());
+  }
+
+  @Test(timeout = 10000)
+  public void readersSurviveConcurrentClears() throws InterruptedException {
+    final int maxSize = 8;
+    final ConcurrentCyclicBuffer<Integer> cb = new ConcurrentCyclicBuffer<Integer>(maxSize);
+    final AtomicBoolean done = new AtomicBoolean();
+    Runnable writing = new Runnable() {
+      public void run() {
+        for (int i = 0; !done.get(); i++) {
+          cb.add(i);
+        }
+      }
+    };
+    Thread[] writers = {new Thread(writing), new Thread(writing)};
+    Thread clearer = new Thread(new Runnable() {
+      public void run() {
+        while (!done.get()) {
+          cb.clear();
+        }
+      }
+    });
+    for (Thread writer : writers) {
+      writer.start();
+    }
+    clearer.start();
+    try {
+      for (int i = 0; i < 1000000; i++) {
+        int length = cb.length();
+        assertTrue(length >= 0 && length <= maxSize);
+        assertTrue(cb.asList().size() <= maxSize);
+        cb.get(0);
+      }
+    } finally {
+      done.set(true);
+      for (Thread writer : writers) {
+        writer.join();
+      }
+      clearer.join();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.joran.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.status.StatusChecker;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+public class SaxEventCacheTest {
+
+  Context context = new ContextBase();
+  StatusChecker statusChecker = new StatusChecker(context);
+  int diff = RandomUtil.getPositiveInt();
+  File cacheFile = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "saxEventCache-" + diff + ".bin");
+  SaxEventCache cache = new SaxEventCache(cacheFile);
+
+  byte[] key = SaxEventCache.computeKey("configuration".getBytes());
+
+  {
+    cache.setContext(context);
+  }
+
+  List<SaxEvent> record(String filename) throws Exception {
+    SaxEventRecorder recorder = new SaxEventRecorder(context);
+    FileInputStream fis = new FileInputStream(CoreTestConstants.TEST_DIR_PREFIX
+        + "input/joran/" + filename);
+    recorder.recordEvents(fis);
+    return recorder.getSaxEventList();
+  }
+
+  @Test
+  public void eventsSurviveRoundTrip() throws Exception {
+    List<SaxEvent> events = record("event1.xml");
+    cache.write(key, events);
+    List<SaxEvent> cachedEvents = cache.read(key);
+
+    assertEquals(events.size(), cachedEvents.size());
+    for (int i = 0; i < events.size(); i++) {
+      SaxEvent expected = events.get(i);
+      SaxEvent actual = cachedEvents.get(i);
+      assertEquals(expected.getClass(), actual.getClass());
+      assertEquals(expected.toString(), actual.toString());
+      assertEquals(expected.getQName(), actual.getQName());
+      assertEquals(expected.getLocalName(), actual.getLocalName());
+      if (expected instanceof StartEvent) {
+        StartEvent expectedStart = (StartEvent) expected;
+        StartEvent actualStart = (StartEvent) actual;
+        assertEquals(expectedStart.elementPath, actualStart.elementPath);
+        assertEquals(expectedStart.attributes.getLength(), actualStart.attributes.getLength());
+        for (int j = 0; j < expectedStart.attributes.getLength(); j++) {
+          assertEquals(expectedStart.attributes.getQName(j), actualStart.attributes.getQName(j));
+          assertEquals(expectedStart.attributes.getValue(j), actualStart.attributes.getValue(j));
+        }
+      } else if (expected instanceof BodyEvent) {
+        assertEquals(((BodyEvent) expected).getText(), ((BodyEvent) actual).getText());
+      }
+    }
+    statusChecker.assertIsErrorFree();
+  }
+
+  @Test
+  public void cacheOfOtherContentsIsIgnored() throws Exception {
+    cache.write(key, record("event1.xml"));
+    assertNull(cache.read(SaxEventCache.computeKey("other configuration".getBytes())));
+  }
+
+  @Test
+  public void missingCacheIsIgnored() {
+    assertNull(cache.read(key));
+  }
+
+  @Test
+  public void corruptCacheIsIgnored() throws Exception {
+    cache.write(key, record("event1.xml"));
+    truncate(cacheFile, cacheFile.length() - 10);
+
+    assertNull(cache.read(key));
+    assertEquals(Status.WARN, statusChecker.getHighestLevel(0));
+  }
+
+  private static void truncate(File file, long length) throws IOException {
+    FileOutputStream fos = new FileOutputStream(file, true);
+    try {
+      fos.getChannel().truncate(length);
+    } finally {
+      fos.close();
+    }
+  }
+}
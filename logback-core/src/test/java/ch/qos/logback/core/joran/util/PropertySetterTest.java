@@ -16,6 +16,7 @@ package ch.qos.logback.core.joran.util;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 import java.lang.reflect.Method;
@@ -243,5 +244,31 @@ public class PropertySetterTest {
     StatusChecker checker = new StatusChecker(context);
     checker.containsException(UnsupportedCharsetException.class);
   }
-}
 
+  @Test
+  public void classDescriptionIsSharedBetweenSetters() {
+    BeanDescription description = BeanDescription.forClass(House.class);
+    assertSame(description, BeanDescription.forClass(House.class));
+
+    House otherHouse = new House();
+    PropertySetter otherSetter = new PropertySetter(otherHouse);
+    otherSetter.setContext(context);
+    otherSetter.setProperty("count", "7");
+    assertEquals(7, otherHouse.getCount());
+    assertSame(description.getPropertyDescriptor("count"),
+        setter.getPropertyDescriptor("count"));
+  }
+
+  @Test
+  public void aggregationTypeIsRememberedPerClass() {
+    BeanDescription.clearCache();
+    assertEquals(AggregationType.AS_COMPLEX_PROPERTY_COLLECTION,
+        setter.computeAggregationType("window"));
+
+    BeanDescription description = BeanDescription.forClass(House.class);
+    assertEquals(AggregationType.AS_COMPLEX_PROPERTY_COLLECTION,
+        description.getAggregationType("window"));
+    assertEquals(AggregationType.AS_COMPLEX_PROPERTY_COLLECTION,
+        new PropertySetter(new House()).computeAggregationType("window"));
+  }
+}
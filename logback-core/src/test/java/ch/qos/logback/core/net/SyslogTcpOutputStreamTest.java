@@ -0,0 +1,116 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.net.server.ServerSocketUtil;
+
+public class SyslogTcpOutputStreamTest {
+
+  ServerSocket serverSocket;
+  SyslogTcpOutputStream stream;
+
+  @Before
+  public void setUp() throws IOException {
+    serverSocket = ServerSocketUtil.createServerSocket();
+    serverSocket.setSoTimeout(5000);
+    stream = new SyslogTcpOutputStream("localhost", serverSocket.getLocalPort());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    stream.close();
+    serverSocket.close();
+  }
+
+  @Test
+  public void messagesArePrecededByTheirLength() throws IOException {
+    stream.writeMessage("<14>hello".getBytes());
+    stream.write("<14>world!".getBytes());
+    stream.flush();
+    stream.close();
+
+    Socket socket = serverSocket.accept();
+    assertEquals("9 <14>hello10 <14>world!", readFully(socket.getInputStream()));
+    socket.close();
+  }
+
+  @Test
+  public void nothingIsSentBeforeFlush() throws IOException {
+    stream.writeMessage("<14>hello".getBytes());
+    Socket socket = serverSocket.accept();
+    socket.setSoTimeout(100);
+    try {
+      socket.getInputStream().read();
+      fail("data received before flush");
+    } catch (IOException e) {
+      // expected, the read timed out
+    }
+    socket.close();
+  }
+
+  @Test
+  public void closedStreamDoesNotReconnect() throws IOException {
+    stream.close();
+    try {
+      stream.writeMessage("<14>hello".getBytes());
+      fail("message written to a closed stream");
+    } catch (IOException e) {
+      assertFalse(stream.isConnected());
+    }
+  }
+
+  @Test
+  public void failedConnectionIsReported() throws IOException {
+    int port = serverSocket.getLocalPort();
+    serverSocket.close();
+    SyslogTcpOutputStream unconnected = new SyslogTcpOutputStream("localhost", port);
+    try {
+      unconnected.writeMessage("<14>hello".getBytes());
+      fail("message written without a connection");
+    } catch (IOException e) {
+      assertFalse(unconnected.isConnected());
+    }
+    // the next attempt backs off rather than connecting again
+    try {
+      unconnected.writeMessage("<14>hello".getBytes());
+      fail("message written without a connection");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Not connected"));
+    }
+    unconnected.close();
+  }
+
+  private static String readFully(InputStream in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    int b;
+    while ((b = in.read()) != -1) {
+      sb.append((char) b);
+    }
+    return sb.toString();
+  }
+}
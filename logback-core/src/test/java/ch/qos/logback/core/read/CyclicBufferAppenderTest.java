@@ -17,6 +17,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
 
 public class CyclicBufferAppenderTest {
 
@@ -45,5 +49,42 @@ public class CyclicBufferAppenderTest {
     assertEquals("Some string", foo);
   }
 
+  @Test
+  public void asList() {
+    cyclicBufferAppender.doAppend("a");
+    cyclicBufferAppender.doAppend("b");
+    assertEquals(Arrays.asList("a", "b"), cyclicBufferAppender.asList());
+  }
+
+  @Test
+  public void stoppedAppenderHoldsNoEvents() {
+    cyclicBufferAppender.doAppend("a");
+    cyclicBufferAppender.stop();
+    assertEquals(0, cyclicBufferAppender.getLength());
+    assertTrue(cyclicBufferAppender.asList().isEmpty());
+    cyclicBufferAppender.reset();
+  }
 
+  @Test(timeout = 10000)
+  public void concurrentAppendsAreAllCounted() throws InterruptedException {
+    cyclicBufferAppender.stop();
+    cyclicBufferAppender.setMaxSize(100000);
+    cyclicBufferAppender.start();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < 10000; i++) {
+            cyclicBufferAppender.doAppend("x");
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    List<String> events = cyclicBufferAppender.asList();
+    assertEquals(40000, events.size());
+  }
 }
@@ -15,9 +15,18 @@ package ch.qos.logback.core.rolling;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.zip.GZIPInputStream;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -211,4 +220,130 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
     assertTrue("Missing error: " + msg, containsMatch);
   }
 
+  @Test
+  public void compressOnWriteProducesGzippedActiveFile() throws IOException {
+    rfa.setContext(context);
+    String activeFileName = randomOutputDir + "cow.log.gz";
+    rfa.setFile(activeFileName);
+    rfa.setCompressOnWrite(true);
+    rfa.setCompressionBlockSize("10");
+
+    FixedWindowRollingPolicy fwrp = new FixedWindowRollingPolicy();
+    fwrp.setContext(context);
+    fwrp.setFileNamePattern(randomOutputDir + "cow-%i.log.gz");
+    fwrp.setParent(rfa);
+    fwrp.start();
+    rfa.setRollingPolicy(fwrp);
+    rfa.setTriggeringPolicy(new SizeBasedTriggeringPolicy<Object>("10MB"));
+    rfa.start();
+    assertTrue(rfa.isCompressOnWrite());
+
+    rfa.doAppend("hello");
+    rfa.doAppend("world");
+    rfa.rollover();
+    rfa.doAppend("again");
+    rfa.stop();
+
+    assertEquals(DummyEncoder.DUMMY + DummyEncoder.DUMMY,
+            gunzip(new File(randomOutputDir + "cow-1.log.gz")));
+    assertEquals(DummyEncoder.DUMMY, gunzip(new File(activeFileName)));
+  }
+
+  @Test
+  public void compressOnWriteRequiresGzPattern() {
+    rfa.setContext(context);
+    rfa.setCompressOnWrite(true);
+    tbrp.setFileNamePattern(randomOutputDir + "toto-%d.log.zip");
+    tbrp.start();
+    rfa.setRollingPolicy(tbrp);
+    rfa.start();
+
+    assertTrue(rfa.isStarted());
+    assertFalse(rfa.isCompressOnWrite());
+    StatusChecker statusChecker = new StatusChecker(context);
+    statusChecker.assertContainsMatch(Status.WARN, "CompressOnWrite requires");
+  }
+
+  @Test
+  public void scheduledRolloverHappensWithoutEvents() throws Exception {
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + "sched.log");
+    tbrp.setFileNamePattern(randomOutputDir + "sched-%d{yyyy-MM-dd_HH_mm_ss}.log");
+    tbrp.setScheduledRollover(true);
+    tbrp.start();
+    rfa.setRollingPolicy(tbrp);
+    rfa.start();
+    assertTrue(tbrp.isScheduledRollover());
+
+    rfa.doAppend("hello");
+    assertFalse(tbrp.isTriggeringEvent(rfa.currentlyActiveFile, "hello"));
+
+    File[] archives = null;
+    long deadline = System.currentTimeMillis() + 5000;
+    while (System.currentTimeMillis() < deadline) {
+      archives = new File(randomOutputDir).listFiles(new FilenameFilter() {
+        public boolean accept(File dir, String name) {
+          return name.startsWith("sched-");
+        }
+      });
+      if (archives != null && archives.length > 0) {
+        break;
+      }
+      Thread.sleep(50);
+    }
+    rfa.stop();
+
+    assertNotNull(archives);
+    assertEquals(1, archives.length);
+    assertEquals(DummyEncoder.DUMMY, read(archives[0]));
+  }
+
+  @Test
+  public void scheduledRolloverRequiresDefaultTriggeringPolicy() {
+    rfa.setContext(context);
+    tbrp.setFileNamePattern(randomOutputDir + "toto-%d-%i.log");
+    SizeAndTimeBasedFNATP<Object> sizeAndTimeBasedFNATP = new SizeAndTimeBasedFNATP<Object>();
+    sizeAndTimeBasedFNATP.setMaxFileSize("10MB");
+    tbrp.setTimeBasedFileNamingAndTriggeringPolicy(sizeAndTimeBasedFNATP);
+    tbrp.setScheduledRollover(true);
+    tbrp.start();
+    rfa.setRollingPolicy(tbrp);
+    rfa.start();
+
+    assertTrue(rfa.isStarted());
+    assertFalse(tbrp.isScheduledRollover());
+    StatusChecker statusChecker = new StatusChecker(context);
+    statusChecker.assertContainsMatch(Status.WARN, "ScheduledRollover is not supported");
+    rfa.stop();
+  }
+
+  static String read(File file) throws IOException {
+    Reader reader = new InputStreamReader(new FileInputStream(file));
+    try {
+      StringBuilder sb = new StringBuilder();
+      char[] buf = new char[1024];
+      int n;
+      while ((n = reader.read(buf)) != -1) {
+        sb.append(buf, 0, n);
+      }
+      return sb.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  static String gunzip(File file) throws IOException {
+    Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)));
+    try {
+      StringBuilder sb = new StringBuilder();
+      char[] buf = new char[1024];
+      int n;
+      while ((n = reader.read(buf)) != -1) {
+        sb.append(buf, 0, n);
+      }
+      return sb.toString();
+    } finally {
+      reader.close();
+    }
+  }
 }
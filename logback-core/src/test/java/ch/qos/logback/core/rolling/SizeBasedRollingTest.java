@@ -18,10 +18,16 @@ import ch.qos.logback.core.util.CoreTestConstants;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 public class SizeBasedRollingTest extends ScaffoldingForRollingTests {
 
   RollingFileAppender<Object> rfa = new RollingFileAppender<Object>();
@@ -115,4 +121,81 @@ public class SizeBasedRollingTest extends ScaffoldingForRollingTests {
     List<String> zipFiles = filterElementsInListBySuffix(".zip");
     zipEntryNameCheck(zipFiles, "sbr-zipped.20\\d{2}-\\d{2}-\\d{2}_\\d{4}");
   }
+
+  @Test
+  public void ringIndexed() throws IOException {
+    String activeFileName = randomOutputDir + "ring.log";
+    initRFA(activeFileName);
+    sizeBasedTriggeringPolicy.setMaxFileSize("10MB");
+    fwrp.setMinIndex(1);
+    fwrp.setMaxIndex(3);
+    fwrp.setRingIndexed(true);
+    fwrp.setFileNamePattern(randomOutputDir + "ring.%i");
+    rfa.triggeringPolicy = sizeBasedTriggeringPolicy;
+    rfa.rollingPolicy = fwrp;
+    fwrp.start();
+    sizeBasedTriggeringPolicy.start();
+    rfa.start();
+
+    for (int i = 0; i < 5; i++) {
+      rfa.doAppend("event" + i);
+      rfa.rollover();
+    }
+    rfa.stop();
+
+    // events 0,1,2 went to slots 1,2,3, then 3 and 4 replaced slots 1 and 2
+    List<String> expected = new ArrayList<String>();
+    expected.add(randomOutputDir + "ring.2");
+    expected.add(randomOutputDir + "ring.1");
+    expected.add(randomOutputDir + "ring.3");
+    assertEquals(expected, readLines(activeFileName + FixedWindowRollingPolicy.MANIFEST_SUFFIX));
+    assertEquals("event4", readLines(randomOutputDir + "ring.2").get(0));
+    assertEquals("event2", readLines(randomOutputDir + "ring.3").get(0));
+    assertFalse(new File(activeFileName + FixedWindowRollingPolicy.MANIFEST_SUFFIX + ".tmp").exists());
+  }
+
+  @Test
+  public void ringIndexedRecoversLastIndexFromManifest() throws IOException {
+    String activeFileName = randomOutputDir + "ringRecovery.log";
+    initRFA(activeFileName);
+    sizeBasedTriggeringPolicy.setMaxFileSize("10MB");
+    fwrp.setMinIndex(1);
+    fwrp.setMaxIndex(3);
+    fwrp.setRingIndexed(true);
+    fwrp.setFileNamePattern(randomOutputDir + "ringRecovery.%i");
+    rfa.rollingPolicy = fwrp;
+    rfa.triggeringPolicy = sizeBasedTriggeringPolicy;
+    fwrp.start();
+    rfa.start();
+    rfa.doAppend("event0");
+    rfa.rollover();
+    rfa.doAppend("event1");
+    rfa.rollover();
+    rfa.stop();
+
+    FixedWindowRollingPolicy restarted = new FixedWindowRollingPolicy();
+    restarted.setContext(context);
+    restarted.setParent(rfa);
+    restarted.setMinIndex(1);
+    restarted.setMaxIndex(3);
+    restarted.setRingIndexed(true);
+    restarted.setFileNamePattern(randomOutputDir + "ringRecovery.%i");
+    restarted.start();
+    assertEquals(2, restarted.lastIndex);
+    assertEquals(2, restarted.archiveCount);
+  }
+
+  static List<String> readLines(String fileName) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader(new FileReader(fileName));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } finally {
+      reader.close();
+    }
+    return lines;
+  }
 }
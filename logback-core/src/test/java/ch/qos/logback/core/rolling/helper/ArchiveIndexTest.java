@@ -0,0 +1,145 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+public class ArchiveIndexTest {
+
+  Context context = new ContextBase();
+  String randomOutputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+  SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+  FileNamePattern fnp;
+  ArchiveIndex archiveIndex;
+
+  @Before
+  public void setUp() {
+    new File(randomOutputDir).mkdirs();
+    fnp = new FileNamePattern(randomOutputDir + "app-%d{yyyy-MM-dd}.%i.log.gz", context);
+    archiveIndex = new ArchiveIndex(fnp);
+    archiveIndex.setContext(context);
+  }
+
+  File touch(String dateStr, int counter) throws ParseException, IOException {
+    File file = new File(fnp.convertMultipleArguments(sdf.parse(dateStr), counter));
+    file.createNewFile();
+    return file;
+  }
+
+  @Test
+  public void applicability() {
+    assertTrue(ArchiveIndex.isApplicable(fnp));
+    assertFalse(ArchiveIndex.isApplicable(new FileNamePattern("logs/%d{yyyy/MM}/app.%i.log", context)));
+    assertFalse(ArchiveIndex.isApplicable(new FileNamePattern("logs/%d{yyyy-MM}/app.%i.log", context)));
+    assertFalse(ArchiveIndex.isApplicable(new FileNamePattern("logs/app.%i.log", context)));
+  }
+
+  @Test
+  public void indexesByPeriodAndCounter() throws Exception {
+    touch("2016-01-01", 0);
+    touch("2016-01-01", 10);
+    touch("2016-01-01", 2);
+    touch("2016-01-02", 0);
+    new File(randomOutputDir + "unrelated.log").createNewFile();
+
+    assertEquals(4, archiveIndex.size());
+    assertEquals(10, archiveIndex.getHighestCounter(sdf.parse("2016-01-01")));
+    assertEquals(0, archiveIndex.getHighestCounter(sdf.parse("2016-01-02")));
+    assertEquals(-1, archiveIndex.getHighestCounter(sdf.parse("2016-01-03")));
+
+    List<File> archives = archiveIndex.getArchivesOfPeriod(sdf.parse("2016-01-01"));
+    assertEquals(3, archives.size());
+    assertTrue(archives.get(2).getName().endsWith(".10.log.gz"));
+  }
+
+  @Test
+  public void dateTokenWithGroupsOfItsOwn() throws Exception {
+    // the Z token is mapped to a regex containing a group
+    FileNamePattern zonedFnp = new FileNamePattern(randomOutputDir + "app-%d{yyyy-MM-dd_HHmmZ}.%i.log", context);
+    ArchiveIndex zonedIndex = new ArchiveIndex(zonedFnp);
+    zonedIndex.setContext(context);
+    Date date = new SimpleDateFormat("yyyy-MM-dd_HHmm").parse("2016-01-01_1200");
+    Date otherDate = new SimpleDateFormat("yyyy-MM-dd_HHmm").parse("2016-01-01_1300");
+    new File(zonedFnp.convertMultipleArguments(date, 0)).createNewFile();
+    new File(zonedFnp.convertMultipleArguments(date, 7)).createNewFile();
+    new File(zonedFnp.convertMultipleArguments(otherDate, 3)).createNewFile();
+
+    assertEquals(3, zonedIndex.size());
+    assertEquals(7, zonedIndex.getHighestCounter(date));
+    assertEquals(3, zonedIndex.getHighestCounter(otherDate));
+    assertEquals(2, zonedIndex.getArchivesOfPeriod(date).size());
+  }
+
+  @Test
+  public void keptUpToDateWithoutRescanning() throws Exception {
+    touch("2016-01-01", 0);
+    Date date = sdf.parse("2016-01-01");
+    assertEquals(0, archiveIndex.getHighestCounter(date));
+
+    archiveIndex.add(fnp.convertMultipleArguments(date, 1));
+    assertEquals(1, archiveIndex.getHighestCounter(date));
+
+    archiveIndex.remove(archiveIndex.getArchivesOfPeriod(date).get(1));
+    assertEquals(0, archiveIndex.getHighestCounter(date));
+    assertEquals(1, archiveIndex.getRebuildCount());
+  }
+
+  @Test
+  public void invalidationRebuildsFromFileSystem() throws Exception {
+    Date date = sdf.parse("2016-01-01");
+    assertEquals(-1, archiveIndex.getHighestCounter(date));
+
+    touch("2016-01-01", 3);
+    // the index does not see files created behind its back
+    assertEquals(-1, archiveIndex.getHighestCounter(date));
+
+    archiveIndex.invalidate();
+    assertEquals(3, archiveIndex.getHighestCounter(date));
+    assertEquals(2, archiveIndex.getRebuildCount());
+  }
+
+  @Test
+  public void removerUsesIndex() throws Exception {
+    touch("2016-01-01", 0);
+    touch("2016-01-01", 1);
+    File kept = touch("2016-01-02", 0);
+
+    RollingCalendar rc = new RollingCalendar();
+    rc.init("yyyy-MM-dd");
+    SizeAndTimeBasedArchiveRemover remover = new SizeAndTimeBasedArchiveRemover(fnp, rc, archiveIndex);
+    remover.setContext(context);
+    remover.cleanByPeriodOffset(sdf.parse("2016-01-02"), -1);
+
+    assertEquals(1, archiveIndex.size());
+    assertEquals(1, new File(randomOutputDir).listFiles().length);
+    assertTrue(kept.exists());
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class BlockGZIPOutputStreamTest {
+
+  ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+  static String gunzip(byte[] compressed) throws IOException {
+    GZIPInputStream gzis = new GZIPInputStream(new ByteArrayInputStream(compressed));
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buf = new byte[1024];
+    int n;
+    while ((n = gzis.read(buf)) != -1) {
+      result.write(buf, 0, n);
+    }
+    gzis.close();
+    return result.toString("UTF-8");
+  }
+
+  static String makeMessages(int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append("message ").append(i).append('\n');
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void roundTripAcrossManyBlocks() throws IOException {
+    String expected = makeMessages(1000);
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, 100);
+    bgzos.write(expected.getBytes("UTF-8"));
+    bgzos.close();
+    assertEquals(expected, gunzip(baos.toByteArray()));
+  }
+
+  @Test
+  public void singleByteWrites() throws IOException {
+    String expected = makeMessages(10);
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, 7);
+    for (byte b : expected.getBytes("UTF-8")) {
+      bgzos.write(b);
+    }
+    bgzos.close();
+    assertEquals(expected, gunzip(baos.toByteArray()));
+  }
+
+  @Test
+  public void completedBlocksAreReadableBeforeClose() throws IOException {
+    String firstBlock = "0123456789";
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, firstBlock.length());
+    bgzos.write(firstBlock.getBytes("UTF-8"));
+    bgzos.write("pending".getBytes("UTF-8"));
+    bgzos.flush();
+
+    // simulate a crash: whatever reached the underlying stream must be valid
+    assertEquals(firstBlock, gunzip(baos.toByteArray()));
+    assertEquals("pending".length(), bgzos.getPendingByteCount());
+
+    bgzos.close();
+    assertEquals(firstBlock + "pending", gunzip(baos.toByteArray()));
+  }
+
+  @Test
+  public void closeIsIdempotent() throws IOException {
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos);
+    bgzos.write("hello".getBytes("UTF-8"));
+    bgzos.close();
+    bgzos.close();
+    assertEquals("hello", gunzip(baos.toByteArray()));
+  }
+}
@@ -14,8 +14,12 @@
 package ch.qos.logback.core.rolling.helper;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
 
 import java.util.Calendar;
+import java.util.Date;
+import java.util.regex.Pattern;
 
 import org.junit.Test;
 
@@ -147,4 +151,45 @@ public class FileNamePatternTest {
     FileNamePattern fnp = new FileNamePattern("foo-%d{yyyy.MM, aux}/%d{yyyy.MM.dd}.txt", context);
     assertEquals("foo-2003.05/2003.05.20.txt", fnp.convert(cal.getTime()));
   }
+
+  @Test
+  public void cachedNamesFollowMutatedDates() {
+    Calendar cal = Calendar.getInstance();
+    cal.set(2003, 4, 20, 17, 55);
+    FileNamePattern fnp = new FileNamePattern("foo-%d{yyyy.MM.dd}-%i.txt", context);
+    // rolling policies mutate the date of the current period in place
+    Date date = cal.getTime();
+    String first = fnp.convertMultipleArguments(date, 1);
+    assertSame(first, fnp.convertMultipleArguments(date, 1));
+    assertEquals("foo-2003.05.20-2.txt", fnp.convertMultipleArguments(date, 2));
+
+    cal.add(Calendar.DAY_OF_MONTH, 1);
+    date.setTime(cal.getTimeInMillis());
+    assertEquals("foo-2003.05.21-1.txt", fnp.convertMultipleArguments(date, 1));
+  }
+
+  @Test
+  public void stemPatternForFixedDate() {
+    Calendar cal = Calendar.getInstance();
+    cal.set(2003, 4, 20, 17, 55);
+    FileNamePattern fnp = new FileNamePattern("/toto/foo-%d{yyyy.MM.dd}-%i.txt", context);
+    Pattern stemPattern = fnp.toStemPatternForFixedDate(cal.getTime());
+    assertEquals("foo-2003.05.20-(\\d{1,3}).txt", stemPattern.pattern());
+    assertTrue(stemPattern.matcher("foo-2003.05.20-12.txt").matches());
+    assertSame(stemPattern, fnp.toStemPatternForFixedDate(cal.getTime()));
+  }
+
+  @Test
+  public void datesOfTheSamePeriodShareCacheEntries() {
+    Calendar cal = Calendar.getInstance();
+    cal.set(2003, 4, 20, 17, 55);
+    FileNamePattern fnp = new FileNamePattern("/toto/foo-%d{yyyy.MM.dd}-%i.txt", context);
+    String name = fnp.convertMultipleArguments(cal.getTime(), 1);
+    Pattern stemPattern = fnp.toStemPatternForFixedDate(cal.getTime());
+
+    // cleanup computes a new date of the period on each pass
+    cal.add(Calendar.MINUTE, 3);
+    assertSame(name, fnp.convertMultipleArguments(cal.getTime(), 1));
+    assertSame(stemPattern, fnp.toStemPatternForFixedDate(cal.getTime()));
+  }
 }
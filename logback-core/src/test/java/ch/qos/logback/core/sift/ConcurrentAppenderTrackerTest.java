@@ -0,0 +1,137 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.sift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Runs the AppenderTracker tests against ConcurrentAppenderTracker, plus
+ * tests specific to concurrent use.
+ */
+public class ConcurrentAppenderTrackerTest extends AppenderTrackerTest {
+
+  @Before
+  @Override
+  public void setUp() {
+    appenderTracker = new ConcurrentAppenderTracker<Object>(context, listAppenderFactory);
+  }
+
+  @Test
+  public void keyIsBuiltOnceByConcurrentThreads() throws InterruptedException {
+    final CountingAppenderFactory factory = new CountingAppenderFactory();
+    final AppenderTracker<Object> tracker = new ConcurrentAppenderTracker<Object>(context, factory);
+    final CountDownLatch go = new CountDownLatch(1);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            go.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          for (int j = 0; j < 100; j++) {
+            tracker.getOrCreate(key + "-" + j, now);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    go.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(100, factory.count.get());
+    assertEquals(100, tracker.getComponentCount());
+  }
+
+  @Test
+  public void stoppedAppenderIsReplaced() {
+    Appender<Object> a = appenderTracker.getOrCreate(key, now);
+    a.stop();
+    Appender<Object> b = appenderTracker.getOrCreate(key, now);
+    assertNotSame(a, b);
+    assertTrue(b.isStarted());
+    assertSame(b, appenderTracker.find(key));
+  }
+
+  @Test(timeout = 5000)
+  public void appenderInUseIsNotRemoved() throws InterruptedException {
+    final CountDownLatch appending = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ListAppender<Object> blocking = new ListAppender<Object>() {
+      @Override
+      protected void append(Object e) {
+        appending.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+        super.append(e);
+      }
+    };
+    blocking.setContext(context);
+    blocking.start();
+    final ConcurrentAppenderTracker<Object> tracker = new ConcurrentAppenderTracker<Object>(context,
+        new AppenderFactory<Object>() {
+          public Appender<Object> buildAppender(Context context, String discriminatingValue) {
+            return blocking;
+          }
+        });
+    tracker.setTimeout(10);
+
+    Thread logger = new Thread() {
+      public void run() {
+        tracker.append(key, now, "event");
+      }
+    };
+    logger.start();
+    appending.await();
+    tracker.removeStaleComponents(now + 1000);
+    assertTrue(blocking.isStarted());
+
+    release.countDown();
+    logger.join();
+    assertEquals(1, blocking.list.size());
+    tracker.removeStaleComponents(now + 1000);
+    assertFalse(blocking.isStarted());
+    assertEquals(0, tracker.getComponentCount());
+  }
+
+  static class CountingAppenderFactory extends ListAppenderFactory {
+    final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Appender<Object> buildAppender(Context context, String discriminatingValue) throws JoranException {
+      count.incrementAndGet();
+      return super.buildAppender(context, discriminatingValue);
+    }
+  }
+}
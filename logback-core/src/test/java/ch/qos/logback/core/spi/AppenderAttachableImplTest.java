@@ -19,7 +19,9 @@ import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -162,6 +164,24 @@ public class AppenderAttachableImplTest {
     assertFalse( aai.detachAppender("test1"));
   }
 
+  @Test
+  public void testReplaceAllAppenders() throws Exception {
+    NOPAppender<TestEvent> previous = new NOPAppender<TestEvent>();
+    previous.setName("previous");
+    previous.start();
+    aai.addAppender(previous);
+    NOPAppender<TestEvent> replacement = new NOPAppender<TestEvent>();
+    replacement.setName("replacement");
+    replacement.start();
+
+    List<Appender<TestEvent>> replaced = aai.replaceAllAppenders(Arrays.<Appender<TestEvent>>asList(replacement));
+    assertTrue(replaced.contains(previous));
+    assertTrue(previous.isStarted());
+    assertFalse(aai.isAttached(previous));
+    assertTrue(aai.isAttached(replacement));
+    assertNotNull(aai.getAppender("replacement"));
+  }
+
   private static class TestEvent {
 
   }
@@ -132,5 +132,20 @@ public class NodeToStringTransformerTest {
     assertEquals("axv0c", nodeToStringTransformer.transform());
   }
 
+  @Test
+  public void cachedTemplateSeesPropertyChanges() throws ScanException {
+    String input = "${k0}-${host:-none}.log";
+    assertEquals("v0-local.log", NodeToStringTransformer.substituteVariable(input, propertyContainer0, null));
+
+    propertyContainer0.putProperty("k0", "v1");
+    propertyContainer0.putProperty("host", "remote");
+    assertEquals("v1-remote.log", NodeToStringTransformer.substituteVariable(input, propertyContainer0, null));
+  }
 
+  @Test
+  public void stringsWithoutSpecialCharactersAreReturnedAsIs() throws ScanException {
+    String input = "logs/app-1.log";
+    assertEquals(input, NodeToStringTransformer.substituteVariable(input, propertyContainer0, null));
+    assertEquals("", NodeToStringTransformer.substituteVariable("", propertyContainer0, null));
+  }
 }
@@ -248,5 +248,21 @@ public class OptionHelperTest  {
     assertEquals("jackrabbit/log/jackrabbit.log", r);
   }
 
-
+  @Test
+  public void systemPropertyIsLookedUpOnceUntilReset() {
+    String key = "OptionHelperTest.snapshot." + System.nanoTime();
+    ContextBase contextBase = (ContextBase) context;
+    try {
+      assertEquals(null, OptionHelper.getSystemProperty(context, key));
+      System.setProperty(key, "a");
+      assertEquals(null, OptionHelper.getSystemProperty(context, key));
+
+      contextBase.reset();
+      assertEquals("a", OptionHelper.getSystemProperty(context, key));
+      System.setProperty(key, "b");
+      assertEquals("a", OptionHelper.getSystemProperty(context, key));
+    } finally {
+      System.clearProperty(key);
+    }
+  }
 }